@@ -0,0 +1,45 @@
+package br.com.tddspring.cursotddspringudemy.reactive.api;
+
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.server.ResponseStatusException;
+
+import br.com.tddspring.cursotddspringudemy.api.exception.ApiErrors;
+import br.com.tddspring.cursotddspringudemy.exception.BusinessException;
+
+/**
+ * The error bodies of the servlet {@code ApplicationControllerAdvice}, for the
+ * exceptions WebFlux raises instead.
+ */
+@RestControllerAdvice
+public class ReactiveControllerAdvice {
+
+	@ExceptionHandler(WebExchangeBindException.class)
+	@ResponseStatus(HttpStatus.BAD_REQUEST)
+	public ApiErrors handleValidationException(WebExchangeBindException ex) {
+		return new ApiErrors(ex.getBindingResult());
+	}
+
+	@ExceptionHandler(BusinessException.class)
+	@ResponseStatus(HttpStatus.BAD_REQUEST)
+	public ApiErrors handlerBusinessException(BusinessException ex) {
+		return new ApiErrors(ex);
+	}
+
+	@ExceptionHandler(OptimisticLockingFailureException.class)
+	@ResponseStatus(HttpStatus.CONFLICT)
+	public ApiErrors handleOptimisticLockingFailure(OptimisticLockingFailureException ex) {
+		return new ApiErrors(new ResponseStatusException(HttpStatus.CONFLICT, "Resource was modified concurrently"));
+	}
+
+	@ExceptionHandler(ResponseStatusException.class)
+	public ResponseEntity<ApiErrors> handleReponseStatusException(ResponseStatusException ex) {
+		return new ResponseEntity<>(new ApiErrors(ex), ex.getStatus());
+	}
+
+}
@@ -0,0 +1,21 @@
+package br.com.tddspring.cursotddspringudemy.reactive.api.mapper;
+
+import org.springframework.stereotype.Component;
+
+import br.com.tddspring.cursotddspringudemy.api.dto.BookDTO;
+import br.com.tddspring.cursotddspringudemy.api.dto.LoanDTO;
+import br.com.tddspring.cursotddspringudemy.model.projection.LoanSummary;
+
+@Component
+public class LoanMapper {
+
+	public LoanDTO toDto(LoanSummary summary) {
+		LoanDTO dto = new LoanDTO();
+		dto.setId(summary.getId());
+		dto.setCustomer(summary.getCustomer());
+		dto.setEmail(summary.getEmail());
+		dto.setBook(new BookDTO(summary.getBookId(), summary.getTitle(), summary.getAuthor(), summary.getIsbn()));
+		return dto;
+	}
+
+}
@@ -0,0 +1,112 @@
+package br.com.tddspring.cursotddspringudemy.reactive.api.resource;
+
+import javax.validation.Valid;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import br.com.tddspring.cursotddspringudemy.api.KeysetCursor;
+import br.com.tddspring.cursotddspringudemy.api.dto.BookDTO;
+import br.com.tddspring.cursotddspringudemy.api.dto.KeysetPageDTO;
+import br.com.tddspring.cursotddspringudemy.api.dto.LoanDTO;
+import br.com.tddspring.cursotddspringudemy.reactive.api.mapper.BookMapper;
+import br.com.tddspring.cursotddspringudemy.reactive.api.mapper.LoanMapper;
+import br.com.tddspring.cursotddspringudemy.reactive.model.entity.Book;
+import br.com.tddspring.cursotddspringudemy.reactive.service.BookService;
+import br.com.tddspring.cursotddspringudemy.reactive.service.LoanService;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("/api/books")
+@RequiredArgsConstructor
+public class BookController {
+
+	private final BookService service;
+	private final BookMapper bookMapper;
+	private final LoanMapper loanMapper;
+	private final LoanService loanService;
+
+	@GetMapping("{id}")
+	public Mono<BookDTO> get(@PathVariable Integer id) {
+		return existing(id).map(bookMapper::toDto);
+	}
+
+	@PostMapping
+	@ResponseStatus(HttpStatus.CREATED)
+	public Mono<BookDTO> create(@Valid @RequestBody BookDTO bookDTO) {
+		return service.save(bookMapper.toEntity(bookDTO)).map(bookMapper::toDto);
+	}
+
+	@DeleteMapping("{id}")
+	@ResponseStatus(HttpStatus.NO_CONTENT)
+	public Mono<Void> delete(@PathVariable Integer id) {
+		return existing(id).flatMap(service::delete);
+	}
+
+	@PutMapping("{id}")
+	public Mono<BookDTO> update(@PathVariable Integer id, @RequestBody @Valid BookDTO dto) {
+		return existing(id).flatMap(book -> {
+			book.setAuthor(dto.getAuthor());
+			book.setTitle(dto.getTitle());
+			return service.update(book);
+		}).map(bookMapper::toDto);
+	}
+
+	@GetMapping
+	public Mono<Page<BookDTO>> find(BookDTO bookDto, Pageable pageRequest) {
+		return service.find(bookMapper.toEntity(bookDto), pageRequest).map(page -> page.map(bookMapper::toDto));
+	}
+
+	/**
+	 * Every matching book, written out one JSON document per line as rows
+	 * arrive from the database, without counting or buffering a page.
+	 */
+	@GetMapping(produces = MediaType.APPLICATION_STREAM_JSON_VALUE)
+	public Flux<BookDTO> stream(BookDTO bookDto) {
+		return service.stream(bookMapper.toEntity(bookDto)).map(bookMapper::toDto);
+	}
+
+	@GetMapping(params = "after")
+	public Mono<KeysetPageDTO<BookDTO>> findAfter(BookDTO bookDto, @RequestParam String after,
+			@RequestParam(defaultValue = "20") Integer size) {
+		return Mono.fromCallable(() -> KeysetCursor.checkSize(size))
+				.flatMap(checked -> service.findAfter(bookMapper.toEntity(bookDto), KeysetCursor.decode(after), checked))
+				.map(slice -> KeysetPageDTO.of(slice.map(bookMapper::toDto).getContent(), slice, BookDTO::getId));
+	}
+
+	@GetMapping("{id}/loans")
+	public Mono<Page<LoanDTO>> loansByBook(@PathVariable Integer id, Pageable pageable) {
+		return existing(id)
+				.flatMap(book -> loanService.getLoansByBook(book.getId(), pageable))
+				.map(page -> page.map(loanMapper::toDto));
+	}
+
+	@GetMapping(value = "{id}/loans", params = "after")
+	public Mono<KeysetPageDTO<LoanDTO>> loansByBookAfter(@PathVariable Integer id, @RequestParam String after,
+			@RequestParam(defaultValue = "20") Integer size) {
+		return Mono.fromCallable(() -> KeysetCursor.checkSize(size))
+				.flatMap(checked -> existing(id).flatMap(
+						book -> loanService.getLoansByBookAfter(book.getId(), KeysetCursor.decode(after), checked)))
+				.map(slice -> KeysetPageDTO.of(slice.map(loanMapper::toDto).getContent(), slice, LoanDTO::getId));
+	}
+
+	private Mono<Book> existing(Integer id) {
+		return service.getById(id).switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND)));
+	}
+
+}
@@ -0,0 +1,82 @@
+package br.com.tddspring.cursotddspringudemy.reactive.api.resource;
+
+import java.time.LocalDate;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import br.com.tddspring.cursotddspringudemy.api.KeysetCursor;
+import br.com.tddspring.cursotddspringudemy.api.dto.KeysetPageDTO;
+import br.com.tddspring.cursotddspringudemy.api.dto.LoanDTO;
+import br.com.tddspring.cursotddspringudemy.api.dto.LoanFilterDTO;
+import br.com.tddspring.cursotddspringudemy.api.dto.ReturnedLoanDTO;
+import br.com.tddspring.cursotddspringudemy.reactive.api.mapper.LoanMapper;
+import br.com.tddspring.cursotddspringudemy.reactive.model.entity.Loan;
+import br.com.tddspring.cursotddspringudemy.reactive.service.BookService;
+import br.com.tddspring.cursotddspringudemy.reactive.service.LoanService;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@RequiredArgsConstructor
+@RestController
+@RequestMapping("/api/loans")
+public class LoanController {
+
+	private final LoanService service;
+	private final BookService bookService;
+	private final LoanMapper loanMapper;
+
+	@PostMapping
+	@ResponseStatus(HttpStatus.CREATED)
+	public Mono<Integer> create(@RequestBody LoanDTO dto) {
+		return bookService.getBookByIsbn(dto.getIsbn())
+				.switchIfEmpty(Mono.error(
+						() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Book not found for passed isbn")))
+				.flatMap(book -> service.save(Loan.builder().bookId(book.getId()).customer(dto.getCustomer())
+						.loanDate(LocalDate.now()).build()))
+				.map(Loan::getId);
+	}
+
+	@PatchMapping("{id}")
+	public Mono<Void> returnBook(@PathVariable Integer id, @RequestBody ReturnedLoanDTO dto) {
+		return service.getById(id)
+				.switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND)))
+				.flatMap(loan -> {
+					loan.setReturned(dto.getReturned());
+					return service.update(loan);
+				})
+				.then();
+	}
+
+	@GetMapping
+	public Mono<Page<LoanDTO>> find(LoanFilterDTO dto, Pageable pageRequest) {
+		return service.findSummaries(dto, pageRequest).map(page -> page.map(loanMapper::toDto));
+	}
+
+	@GetMapping(produces = MediaType.APPLICATION_STREAM_JSON_VALUE)
+	public Flux<LoanDTO> stream(LoanFilterDTO dto) {
+		return service.streamSummaries(dto).map(loanMapper::toDto);
+	}
+
+	@GetMapping(params = "after")
+	public Mono<KeysetPageDTO<LoanDTO>> findAfter(LoanFilterDTO dto, @RequestParam String after,
+			@RequestParam(defaultValue = "20") Integer size) {
+		return Mono.fromCallable(() -> KeysetCursor.checkSize(size))
+				.flatMap(checked -> service.findSummariesAfter(dto, KeysetCursor.decode(after), checked))
+				.map(slice -> KeysetPageDTO.of(slice.map(loanMapper::toDto).getContent(), slice, LoanDTO::getId));
+	}
+
+}
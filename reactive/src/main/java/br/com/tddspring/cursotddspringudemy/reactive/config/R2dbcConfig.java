@@ -0,0 +1,99 @@
+package br.com.tddspring.cursotddspringudemy.reactive.config;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.data.r2dbc.config.AbstractR2dbcConfiguration;
+import org.springframework.data.r2dbc.connectionfactory.init.ConnectionFactoryInitializer;
+import org.springframework.data.r2dbc.connectionfactory.init.ResourceDatabasePopulator;
+import org.springframework.data.r2dbc.repository.config.EnableR2dbcRepositories;
+
+import br.com.tddspring.cursotddspringudemy.reactive.model.repository.BookRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.pool.PoolMetrics;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import reactor.core.publisher.Mono;
+
+@Configuration
+@EnableR2dbcRepositories(basePackageClasses = BookRepository.class)
+public class R2dbcConfig extends AbstractR2dbcConfiguration {
+
+	static final String SCHEMA_MIGRATIONS = "classpath*:db/migration/V*__*.sql";
+
+	@Value("${application.r2dbc.url}")
+	private String url;
+
+	@Value("${application.r2dbc.pool.initial-size}")
+	private int initialSize;
+
+	@Value("${application.r2dbc.pool.max-size}")
+	private int maxSize;
+
+	@Value("${application.r2dbc.pool.max-idle-time}")
+	private Duration maxIdleTime;
+
+	/**
+	 * Pooled so the number of open connections stays bounded and shows up in
+	 * the {@code r2dbc.pool.*} metrics, like Hikari's on the servlet stack.
+	 */
+	@Override
+	@Bean(destroyMethod = "dispose")
+	public ConnectionPool connectionFactory() {
+		return new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(url))
+				.name("library")
+				.initialSize(initialSize)
+				.maxSize(maxSize)
+				.maxIdleTime(maxIdleTime)
+				.build());
+	}
+
+	/**
+	 * Creates the schema with the servlet application's migrations, in version
+	 * order, when the database has no {@code book} table yet, so the two
+	 * stacks cannot drift apart. A database the servlet application already
+	 * migrated is left alone; its later migrations are Flyway's job.
+	 */
+	@Bean
+	public ConnectionFactoryInitializer schemaInitializer(ConnectionFactory connectionFactory) throws IOException {
+		Resource[] migrations = new PathMatchingResourcePatternResolver().getResources(SCHEMA_MIGRATIONS);
+		Arrays.sort(migrations, Comparator.comparingInt(R2dbcConfig::version));
+		ResourceDatabasePopulator migration = new ResourceDatabasePopulator(migrations);
+		ConnectionFactoryInitializer initializer = new ConnectionFactoryInitializer();
+		initializer.setConnectionFactory(connectionFactory);
+		initializer.setDatabasePopulator(connection -> Mono.from(connection
+				.createStatement("select count(*) from information_schema.tables where lower(table_name) = 'book'")
+				.execute())
+				.flatMap(result -> Mono.from(result.map((row, metadata) -> row.get(0, Long.class))))
+				.flatMap(tables -> tables > 0 ? Mono.<Void>empty() : migration.populate(connection)));
+		return initializer;
+	}
+
+	private static int version(Resource migration) {
+		String name = migration.getFilename();
+		return Integer.parseInt(name.substring(1, name.indexOf("__")));
+	}
+
+	@Bean
+	public MeterBinder connectionPoolMetrics(ConnectionPool pool) {
+		return registry -> pool.getMetrics().ifPresent(metrics -> {
+			Gauge.builder("r2dbc.pool.acquired", metrics, PoolMetrics::acquiredSize)
+					.description("Connections in use").register(registry);
+			Gauge.builder("r2dbc.pool.allocated", metrics, PoolMetrics::allocatedSize)
+					.description("Connections open, in use or idle").register(registry);
+			Gauge.builder("r2dbc.pool.pending", metrics, PoolMetrics::pendingAcquireSize)
+					.description("Requests waiting for a connection").register(registry);
+		});
+	}
+
+}
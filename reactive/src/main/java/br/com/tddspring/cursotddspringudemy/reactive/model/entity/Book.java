@@ -0,0 +1,36 @@
+package br.com.tddspring.cursotddspringudemy.reactive.model.entity;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.relational.core.mapping.Table;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Table("book")
+public class Book {
+
+	@Id
+	private Integer id;
+
+	private String title;
+
+	private String author;
+
+	private String isbn;
+
+	/**
+	 * The version column the JPA entity checks and the servlet ETags are built
+	 * from. Spring Data R2DBC 1.0 does not manage it, so
+	 * {@code BookRepositoryCustom} writes it on every insert and update.
+	 */
+	@Version
+	private Long version;
+
+}
@@ -0,0 +1,59 @@
+package br.com.tddspring.cursotddspringudemy.reactive.model.entity;
+
+import java.time.LocalDate;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table("loan")
+public class Loan {
+
+	public static final String ACTIVE_BOOK_CONSTRAINT = "uk_loan_active_book";
+
+	@Id
+	private Integer id;
+
+	private String customer;
+
+	@Column("customer_email")
+	private String customerEmail;
+
+	@Column("id_book")
+	private Integer bookId;
+
+	@Column("loan_date")
+	private LocalDate loanDate;
+
+	@Column("due_date")
+	private LocalDate dueDate;
+
+	private Boolean returned;
+
+	/**
+	 * The book id while the loan is open, null once returned; kept by
+	 * {@link #markReturned(Boolean)} since there are no entity callbacks here.
+	 */
+	@Column("active_book")
+	private Integer activeBook;
+
+	/** Written by {@code LoanRepositoryCustom}, as for {@link Book#getVersion()}. */
+	@Version
+	private Long version;
+
+	public void markReturned(Boolean returned) {
+		this.returned = returned;
+		this.activeBook = Boolean.TRUE.equals(returned) ? null : bookId;
+	}
+
+}
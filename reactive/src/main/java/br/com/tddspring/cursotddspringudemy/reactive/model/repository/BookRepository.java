@@ -0,0 +1,20 @@
+package br.com.tddspring.cursotddspringudemy.reactive.model.repository;
+
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.stereotype.Repository;
+
+import br.com.tddspring.cursotddspringudemy.reactive.model.entity.Book;
+import reactor.core.publisher.Mono;
+
+@Repository
+public interface BookRepository extends ReactiveCrudRepository<Book, Integer>, BookRepositoryCustom {
+
+	@Query("select case when count(id) > 0 then true else false end from book where isbn = :isbn")
+	Mono<Boolean> existsByIsbn(@Param("isbn") String isbn);
+
+	@Query("select * from book where isbn = :isbn")
+	Mono<Book> findByIsbn(@Param("isbn") String isbn);
+
+}
@@ -0,0 +1,35 @@
+package br.com.tddspring.cursotddspringudemy.reactive.model.repository;
+
+import org.springframework.data.domain.Pageable;
+
+import br.com.tddspring.cursotddspringudemy.reactive.model.entity.Book;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Book queries that R2DBC repositories cannot derive: sequence ids, versioned
+ * writes and the "contains, ignoring case" filter of the servlet API.
+ */
+public interface BookRepositoryCustom {
+
+	/**
+	 * Inserts a new book with an id taken from {@code book_seq}, the sequence
+	 * the JPA entity uses, so both stacks can share one database.
+	 */
+	Mono<Book> insert(Book book);
+
+	/**
+	 * Updates a book only if it still has the version it was read with, and
+	 * moves it to the next one, as the JPA entity's {@code @Version} does.
+	 * Fails with {@link org.springframework.dao.OptimisticLockingFailureException}
+	 * when the book was changed or deleted in the meantime.
+	 */
+	Mono<Book> update(Book book);
+
+	Flux<Book> findMatching(Book filter, Pageable pageable);
+
+	Mono<Long> countMatching(Book filter);
+
+	Flux<Book> findMatchingAfter(Book filter, Integer after, int limit);
+
+}
@@ -0,0 +1,109 @@
+package br.com.tddspring.cursotddspringudemy.reactive.model.repository;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.r2dbc.core.DatabaseClient;
+import org.springframework.data.r2dbc.core.DatabaseClient.GenericExecuteSpec;
+import org.springframework.data.r2dbc.mapping.SettableValue;
+import org.springframework.util.StringUtils;
+
+import br.com.tddspring.cursotddspringudemy.reactive.model.entity.Book;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@RequiredArgsConstructor
+public class BookRepositoryCustomImpl implements BookRepositoryCustom {
+
+	private static final Map<String, String> SORT_COLUMNS = SqlPaging.columns("id", "title", "author", "isbn");
+
+	private final DatabaseClient databaseClient;
+
+	@Override
+	public Mono<Book> insert(Book book) {
+		return databaseClient.execute("select next value for book_seq")
+				.map(row -> row.get(0, Long.class).intValue())
+				.one()
+				.flatMap(id -> {
+					book.setId(id);
+					book.setVersion(0L);
+					return databaseClient.insert().into(Book.class).using(book).then().thenReturn(book);
+				});
+	}
+
+	@Override
+	public Mono<Book> update(Book book) {
+		return databaseClient.execute("update book set title = :title, author = :author, isbn = :isbn, "
+				+ " version = version + 1 where id = :id and version = :version")
+				.bind("title", SettableValue.fromOrEmpty(book.getTitle(), String.class))
+				.bind("author", SettableValue.fromOrEmpty(book.getAuthor(), String.class))
+				.bind("isbn", SettableValue.fromOrEmpty(book.getIsbn(), String.class))
+				.bind("id", book.getId())
+				.bind("version", SettableValue.fromOrEmpty(book.getVersion(), Long.class))
+				.fetch().rowsUpdated()
+				.handle((rows, sink) -> {
+					if (rows == 0) {
+						sink.error(new OptimisticLockingFailureException("Book " + book.getId() + " was modified"));
+					} else {
+						book.setVersion(book.getVersion() + 1);
+						sink.next(book);
+					}
+				});
+	}
+
+	@Override
+	public Flux<Book> findMatching(Book filter, Pageable pageable) {
+		Map<String, String> params = new LinkedHashMap<>();
+		String sql = "select * from book" + where(filter, params) + SqlPaging.orderBy(pageable.getSort(), SORT_COLUMNS)
+				+ SqlPaging.limit(pageable);
+		return bind(databaseClient.execute(sql), params).as(Book.class).fetch().all();
+	}
+
+	@Override
+	public Mono<Long> countMatching(Book filter) {
+		Map<String, String> params = new LinkedHashMap<>();
+		return bind(databaseClient.execute("select count(id) from book" + where(filter, params)), params)
+				.map(row -> row.get(0, Long.class))
+				.one();
+	}
+
+	@Override
+	public Flux<Book> findMatchingAfter(Book filter, Integer after, int limit) {
+		Map<String, String> params = new LinkedHashMap<>();
+		String where = where(filter, params);
+		String sql = "select * from book" + (where.isEmpty() ? " where" : where + " and")
+				+ " id > :after order by id limit :limit";
+		return bind(databaseClient.execute(sql), params)
+				.bind("after", after)
+				.bind("limit", limit)
+				.as(Book.class).fetch().all();
+	}
+
+	private String where(Book filter, Map<String, String> params) {
+		StringBuilder where = new StringBuilder();
+		contains(where, params, "title", filter.getTitle());
+		contains(where, params, "author", filter.getAuthor());
+		contains(where, params, "isbn", filter.getIsbn());
+		return where.toString();
+	}
+
+	private void contains(StringBuilder where, Map<String, String> params, String column, String value) {
+		if (!StringUtils.hasText(value)) {
+			return;
+		}
+		where.append(where.length() == 0 ? " where " : " and ")
+				.append("lower(").append(column).append(") like :").append(column);
+		params.put(column, "%" + value.toLowerCase() + "%");
+	}
+
+	private GenericExecuteSpec bind(GenericExecuteSpec spec, Map<String, String> params) {
+		for (Map.Entry<String, String> param : params.entrySet()) {
+			spec = spec.bind(param.getKey(), param.getValue());
+		}
+		return spec;
+	}
+
+}
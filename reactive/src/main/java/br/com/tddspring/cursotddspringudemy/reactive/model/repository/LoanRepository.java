@@ -0,0 +1,11 @@
+package br.com.tddspring.cursotddspringudemy.reactive.model.repository;
+
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.stereotype.Repository;
+
+import br.com.tddspring.cursotddspringudemy.reactive.model.entity.Loan;
+
+@Repository
+public interface LoanRepository extends ReactiveCrudRepository<Loan, Integer>, LoanRepositoryCustom {
+
+}
@@ -0,0 +1,38 @@
+package br.com.tddspring.cursotddspringudemy.reactive.model.repository;
+
+import org.springframework.data.domain.Pageable;
+
+import br.com.tddspring.cursotddspringudemy.api.dto.LoanFilterDTO;
+import br.com.tddspring.cursotddspringudemy.model.projection.LoanSummary;
+import br.com.tddspring.cursotddspringudemy.reactive.model.entity.Loan;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Versioned loan writes, and loan listings, read as {@link LoanSummary} rows
+ * joined with their book in a single statement.
+ */
+public interface LoanRepositoryCustom {
+
+	/** Inserts a new loan at version 0 and sets its generated id. */
+	Mono<Loan> insert(Loan loan);
+
+	/**
+	 * Updates a loan only if it still has the version it was read with; see
+	 * {@link BookRepositoryCustom#update}.
+	 */
+	Mono<Loan> update(Loan loan);
+
+	Flux<LoanSummary> findSummaries(LoanFilterDTO filter, Pageable pageable);
+
+	Mono<Long> countSummaries(LoanFilterDTO filter);
+
+	Flux<LoanSummary> findSummariesAfter(LoanFilterDTO filter, Integer after, int limit);
+
+	Flux<LoanSummary> findSummariesByBook(Integer bookId, Pageable pageable);
+
+	Mono<Long> countByBook(Integer bookId);
+
+	Flux<LoanSummary> findSummariesByBookAfter(Integer bookId, Integer after, int limit);
+
+}
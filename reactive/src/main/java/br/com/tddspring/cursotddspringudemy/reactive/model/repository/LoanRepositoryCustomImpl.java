@@ -0,0 +1,178 @@
+package br.com.tddspring.cursotddspringudemy.reactive.model.repository;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.r2dbc.core.DatabaseClient;
+import org.springframework.data.r2dbc.core.DatabaseClient.GenericExecuteSpec;
+import org.springframework.data.r2dbc.mapping.SettableValue;
+
+import br.com.tddspring.cursotddspringudemy.api.dto.LoanFilterDTO;
+import br.com.tddspring.cursotddspringudemy.model.projection.LoanSummary;
+import br.com.tddspring.cursotddspringudemy.reactive.model.entity.Loan;
+import io.r2dbc.spi.Row;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@RequiredArgsConstructor
+public class LoanRepositoryCustomImpl implements LoanRepositoryCustom {
+
+	private static final String SELECT_SUMMARY = "select l.id, l.customer, l.customer_email, b.id as book_id, "
+			+ " b.isbn, b.title, b.author from loan l join book b on b.id = l.id_book";
+
+	private static final String COUNT = "select count(l.id) from loan l join book b on b.id = l.id_book";
+
+	private static final Map<String, String> SORT_COLUMNS;
+
+	static {
+		Map<String, String> columns = new LinkedHashMap<>();
+		columns.put("id", "l.id");
+		columns.put("customer", "l.customer");
+		columns.put("customerEmail", "l.customer_email");
+		columns.put("loanDate", "l.loan_date");
+		columns.put("dueDate", "l.due_date");
+		SORT_COLUMNS = Collections.unmodifiableMap(columns);
+	}
+
+	private final DatabaseClient databaseClient;
+
+	@Override
+	public Mono<Loan> insert(Loan loan) {
+		loan.setVersion(0L);
+		return databaseClient.insert().into(Loan.class).using(loan)
+				.map(row -> row.get("id", Integer.class))
+				.first()
+				.map(id -> {
+					loan.setId(id);
+					return loan;
+				});
+	}
+
+	@Override
+	public Mono<Loan> update(Loan loan) {
+		return databaseClient.execute("update loan set customer = :customer, customer_email = :customerEmail, "
+				+ " id_book = :bookId, loan_date = :loanDate, due_date = :dueDate, returned = :returned, "
+				+ " active_book = :activeBook, version = version + 1 where id = :id and version = :version")
+				.bind("customer", SettableValue.fromOrEmpty(loan.getCustomer(), String.class))
+				.bind("customerEmail", SettableValue.fromOrEmpty(loan.getCustomerEmail(), String.class))
+				.bind("bookId", SettableValue.fromOrEmpty(loan.getBookId(), Integer.class))
+				.bind("loanDate", SettableValue.fromOrEmpty(loan.getLoanDate(), LocalDate.class))
+				.bind("dueDate", SettableValue.fromOrEmpty(loan.getDueDate(), LocalDate.class))
+				.bind("returned", SettableValue.fromOrEmpty(loan.getReturned(), Boolean.class))
+				.bind("activeBook", SettableValue.fromOrEmpty(loan.getActiveBook(), Integer.class))
+				.bind("id", loan.getId())
+				.bind("version", SettableValue.fromOrEmpty(loan.getVersion(), Long.class))
+				.fetch().rowsUpdated()
+				.handle((rows, sink) -> {
+					if (rows == 0) {
+						sink.error(new OptimisticLockingFailureException("Loan " + loan.getId() + " was modified"));
+					} else {
+						loan.setVersion(loan.getVersion() + 1);
+						sink.next(loan);
+					}
+				});
+	}
+
+	@Override
+	public Flux<LoanSummary> findSummaries(LoanFilterDTO filter, Pageable pageable) {
+		Map<String, Object> params = new LinkedHashMap<>();
+		String where = where(filter, params);
+		if (where == null) {
+			return Flux.empty();
+		}
+		return summaries(SELECT_SUMMARY + where + SqlPaging.orderBy(pageable.getSort(), SORT_COLUMNS)
+				+ SqlPaging.limit(pageable), params);
+	}
+
+	@Override
+	public Mono<Long> countSummaries(LoanFilterDTO filter) {
+		Map<String, Object> params = new LinkedHashMap<>();
+		String where = where(filter, params);
+		if (where == null) {
+			return Mono.just(0L);
+		}
+		return count(COUNT + where, params);
+	}
+
+	@Override
+	public Flux<LoanSummary> findSummariesAfter(LoanFilterDTO filter, Integer after, int limit) {
+		Map<String, Object> params = new LinkedHashMap<>();
+		String where = where(filter, params);
+		if (where == null) {
+			return Flux.empty();
+		}
+		params.put("after", after);
+		params.put("limit", limit);
+		return summaries(SELECT_SUMMARY + " where (" + where.substring(" where ".length()) + ") and l.id > :after "
+				+ " order by l.id limit :limit", params);
+	}
+
+	@Override
+	public Flux<LoanSummary> findSummariesByBook(Integer bookId, Pageable pageable) {
+		return summaries(SELECT_SUMMARY + " where l.id_book = :bookId" + SqlPaging.orderBy(pageable.getSort(), SORT_COLUMNS)
+				+ SqlPaging.limit(pageable), Collections.singletonMap("bookId", bookId));
+	}
+
+	@Override
+	public Mono<Long> countByBook(Integer bookId) {
+		return count(COUNT + " where l.id_book = :bookId", Collections.singletonMap("bookId", bookId));
+	}
+
+	@Override
+	public Flux<LoanSummary> findSummariesByBookAfter(Integer bookId, Integer after, int limit) {
+		Map<String, Object> params = new LinkedHashMap<>();
+		params.put("bookId", bookId);
+		params.put("after", after);
+		params.put("limit", limit);
+		return summaries(SELECT_SUMMARY + " where l.id_book = :bookId and l.id > :after order by l.id limit :limit",
+				params);
+	}
+
+	/**
+	 * Same matching as the servlet API: isbn or customer, each compared only
+	 * when given. Null when neither is, since nothing can match then.
+	 */
+	private String where(LoanFilterDTO filter, Map<String, Object> params) {
+		StringBuilder where = new StringBuilder();
+		if (filter.getIsbn() != null) {
+			where.append("b.isbn = :isbn");
+			params.put("isbn", filter.getIsbn());
+		}
+		if (filter.getCustomer() != null) {
+			where.append(where.length() == 0 ? "" : " or ").append("l.customer = :customer");
+			params.put("customer", filter.getCustomer());
+		}
+		return where.length() == 0 ? null : " where " + where;
+	}
+
+	private Flux<LoanSummary> summaries(String sql, Map<String, Object> params) {
+		return bind(databaseClient.execute(sql), params)
+				.map((row, metadata) -> toSummary(row))
+				.all();
+	}
+
+	private Mono<Long> count(String sql, Map<String, Object> params) {
+		return bind(databaseClient.execute(sql), params)
+				.map(row -> row.get(0, Long.class))
+				.one();
+	}
+
+	private LoanSummary toSummary(Row row) {
+		return new LoanSummary(row.get("id", Integer.class), row.get("customer", String.class),
+				row.get("customer_email", String.class), row.get("book_id", Integer.class),
+				row.get("isbn", String.class), row.get("title", String.class), row.get("author", String.class));
+	}
+
+	private GenericExecuteSpec bind(GenericExecuteSpec spec, Map<String, Object> params) {
+		for (Map.Entry<String, Object> param : params.entrySet()) {
+			spec = spec.bind(param.getKey(), param.getValue());
+		}
+		return spec;
+	}
+
+}
@@ -0,0 +1,49 @@
+package br.com.tddspring.cursotddspringudemy.reactive.model.repository;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * ORDER BY and LIMIT clauses for a {@link Pageable}. Sort properties go
+ * through a whitelist, since they end up in the SQL text.
+ */
+final class SqlPaging {
+
+	private SqlPaging() {
+	}
+
+	static Map<String, String> columns(String... properties) {
+		return Collections.unmodifiableMap(Arrays.stream(properties)
+				.collect(Collectors.toMap(property -> property, property -> property, (a, b) -> a, LinkedHashMap::new)));
+	}
+
+	static String orderBy(Sort sort, Map<String, String> columns) {
+		if (sort.isUnsorted()) {
+			return " order by " + columns.values().iterator().next();
+		}
+		return sort.stream()
+				.map(order -> column(order.getProperty(), columns) + (order.isAscending() ? " asc" : " desc"))
+				.collect(Collectors.joining(", ", " order by ", ""));
+	}
+
+	static String limit(Pageable pageable) {
+		return pageable.isPaged() ? " limit " + pageable.getPageSize() + " offset " + pageable.getOffset() : "";
+	}
+
+	private static String column(String property, Map<String, String> columns) {
+		String column = columns.get(property);
+		if (column == null) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid sort property " + property);
+		}
+		return column;
+	}
+
+}
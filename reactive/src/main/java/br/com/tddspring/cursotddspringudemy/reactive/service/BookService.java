@@ -0,0 +1,31 @@
+package br.com.tddspring.cursotddspringudemy.reactive.service;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+
+import br.com.tddspring.cursotddspringudemy.reactive.model.entity.Book;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Service
+public interface BookService {
+
+	Mono<Book> save(Book book);
+
+	Mono<Book> getById(Integer id);
+
+	Mono<Void> delete(Book book);
+
+	Mono<Book> update(Book book);
+
+	Mono<Page<Book>> find(Book filter, Pageable pageable);
+
+	Flux<Book> stream(Book filter);
+
+	Mono<Slice<Book>> findAfter(Book filter, Integer afterId, int size);
+
+	Mono<Book> getBookByIsbn(String isbn);
+
+}
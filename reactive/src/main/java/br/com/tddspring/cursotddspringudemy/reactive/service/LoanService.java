@@ -0,0 +1,33 @@
+package br.com.tddspring.cursotddspringudemy.reactive.service;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+
+import br.com.tddspring.cursotddspringudemy.api.dto.LoanFilterDTO;
+import br.com.tddspring.cursotddspringudemy.model.projection.LoanSummary;
+import br.com.tddspring.cursotddspringudemy.reactive.model.entity.Loan;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Service
+public interface LoanService {
+
+	Mono<Loan> save(Loan loan);
+
+	Mono<Loan> getById(Integer id);
+
+	Mono<Loan> update(Loan loan);
+
+	Mono<Page<LoanSummary>> findSummaries(LoanFilterDTO filter, Pageable pageable);
+
+	Flux<LoanSummary> streamSummaries(LoanFilterDTO filter);
+
+	Mono<Slice<LoanSummary>> findSummariesAfter(LoanFilterDTO filter, Integer afterId, int size);
+
+	Mono<Page<LoanSummary>> getLoansByBook(Integer bookId, Pageable pageable);
+
+	Mono<Slice<LoanSummary>> getLoansByBookAfter(Integer bookId, Integer afterId, int size);
+
+}
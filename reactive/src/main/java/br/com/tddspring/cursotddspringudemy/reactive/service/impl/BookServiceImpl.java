@@ -0,0 +1,72 @@
+package br.com.tddspring.cursotddspringudemy.reactive.service.impl;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+
+import br.com.tddspring.cursotddspringudemy.exception.BusinessException;
+import br.com.tddspring.cursotddspringudemy.reactive.model.entity.Book;
+import br.com.tddspring.cursotddspringudemy.reactive.model.repository.BookRepository;
+import br.com.tddspring.cursotddspringudemy.reactive.service.BookService;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Service
+@RequiredArgsConstructor
+public class BookServiceImpl implements BookService {
+
+	private final BookRepository repository;
+
+	@Override
+	public Mono<Book> save(Book book) {
+		return repository.existsByIsbn(book.getIsbn())
+				.flatMap(exists -> exists ? Mono.error(new BusinessException("Isbn já cadastrado."))
+						: repository.insert(book));
+	}
+
+	@Override
+	public Mono<Book> getById(Integer id) {
+		return repository.findById(id);
+	}
+
+	@Override
+	public Mono<Void> delete(Book book) {
+		if (book == null || book.getId() == null) {
+			return Mono.error(new IllegalArgumentException("sei la, exceção ai atoa pra deleção"));
+		}
+		return repository.delete(book);
+	}
+
+	@Override
+	public Mono<Book> update(Book book) {
+		if (book == null || book.getId() == null) {
+			return Mono.error(new IllegalArgumentException("sei la, exceção ai atoa pra deleção"));
+		}
+		return repository.update(book);
+	}
+
+	@Override
+	public Mono<Page<Book>> find(Book filter, Pageable pageable) {
+		return Mono.zip(repository.findMatching(filter, pageable).collectList(), repository.countMatching(filter))
+				.map(result -> new PageImpl<>(result.getT1(), pageable, result.getT2()));
+	}
+
+	@Override
+	public Flux<Book> stream(Book filter) {
+		return repository.findMatching(filter, Pageable.unpaged());
+	}
+
+	@Override
+	public Mono<Slice<Book>> findAfter(Book filter, Integer afterId, int size) {
+		return Slices.of(repository.findMatchingAfter(filter, afterId, size + 1), size);
+	}
+
+	@Override
+	public Mono<Book> getBookByIsbn(String isbn) {
+		return isbn == null ? Mono.empty() : repository.findByIsbn(isbn);
+	}
+
+}
@@ -0,0 +1,86 @@
+package br.com.tddspring.cursotddspringudemy.reactive.service.impl;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+
+import br.com.tddspring.cursotddspringudemy.api.dto.LoanFilterDTO;
+import br.com.tddspring.cursotddspringudemy.exception.BusinessException;
+import br.com.tddspring.cursotddspringudemy.model.projection.LoanSummary;
+import br.com.tddspring.cursotddspringudemy.reactive.model.entity.Loan;
+import br.com.tddspring.cursotddspringudemy.reactive.model.repository.LoanRepository;
+import br.com.tddspring.cursotddspringudemy.reactive.service.LoanService;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Service
+public class LoanServiceImpl implements LoanService {
+
+	private final LoanRepository repository;
+
+	private final int loanDays;
+
+	public LoanServiceImpl(LoanRepository repository, @Value("${application.loan.days}") int loanDays) {
+		this.repository = repository;
+		this.loanDays = loanDays;
+	}
+
+	@Override
+	public Mono<Loan> save(Loan loan) {
+		if (loan.getDueDate() == null && loan.getLoanDate() != null) {
+			loan.setDueDate(loan.getLoanDate().plusDays(loanDays));
+		}
+		loan.markReturned(loan.getReturned());
+		return repository.insert(loan)
+				.onErrorMap(this::isActiveBookViolation, e -> new BusinessException("book already loaned"));
+	}
+
+	private boolean isActiveBookViolation(Throwable e) {
+		return e instanceof DataIntegrityViolationException && e.getMessage() != null
+				&& e.getMessage().toLowerCase().contains(Loan.ACTIVE_BOOK_CONSTRAINT);
+	}
+
+	@Override
+	public Mono<Loan> getById(Integer id) {
+		return repository.findById(id);
+	}
+
+	@Override
+	public Mono<Loan> update(Loan loan) {
+		loan.markReturned(loan.getReturned());
+		return repository.update(loan)
+				.onErrorMap(this::isActiveBookViolation, e -> new BusinessException("book already loaned"));
+	}
+
+	@Override
+	public Mono<Page<LoanSummary>> findSummaries(LoanFilterDTO filter, Pageable pageable) {
+		return Mono.zip(repository.findSummaries(filter, pageable).collectList(), repository.countSummaries(filter))
+				.map(result -> new PageImpl<>(result.getT1(), pageable, result.getT2()));
+	}
+
+	@Override
+	public Flux<LoanSummary> streamSummaries(LoanFilterDTO filter) {
+		return repository.findSummaries(filter, Pageable.unpaged());
+	}
+
+	@Override
+	public Mono<Slice<LoanSummary>> findSummariesAfter(LoanFilterDTO filter, Integer afterId, int size) {
+		return Slices.of(repository.findSummariesAfter(filter, afterId, size + 1), size);
+	}
+
+	@Override
+	public Mono<Page<LoanSummary>> getLoansByBook(Integer bookId, Pageable pageable) {
+		return Mono.zip(repository.findSummariesByBook(bookId, pageable).collectList(), repository.countByBook(bookId))
+				.map(result -> new PageImpl<>(result.getT1(), pageable, result.getT2()));
+	}
+
+	@Override
+	public Mono<Slice<LoanSummary>> getLoansByBookAfter(Integer bookId, Integer afterId, int size) {
+		return Slices.of(repository.findSummariesByBookAfter(bookId, afterId, size + 1), size);
+	}
+
+}
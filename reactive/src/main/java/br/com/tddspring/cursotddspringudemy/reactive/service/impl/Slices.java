@@ -0,0 +1,30 @@
+package br.com.tddspring.cursotddspringudemy.reactive.service.impl;
+
+import java.util.List;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Keyset slices: the query asks for one row more than {@code size}, and that
+ * extra row only tells whether a next slice exists.
+ */
+final class Slices {
+
+	private Slices() {
+	}
+
+	static <T> Mono<Slice<T>> of(Flux<T> rows, int size) {
+		return rows.collectList().map(list -> slice(list, size));
+	}
+
+	private static <T> Slice<T> slice(List<T> rows, int size) {
+		boolean hasNext = rows.size() > size;
+		return new SliceImpl<>(hasNext ? rows.subList(0, size) : rows, PageRequest.of(0, size), hasNext);
+	}
+
+}
@@ -0,0 +1,200 @@
+package br.com.tddspring.cursotddspringudemy.reactive.api.resource;
+
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.r2dbc.core.DatabaseClient;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import br.com.tddspring.cursotddspringudemy.api.dto.BookDTO;
+import br.com.tddspring.cursotddspringudemy.reactive.model.entity.Book;
+import br.com.tddspring.cursotddspringudemy.reactive.model.repository.BookRepository;
+import reactor.test.StepVerifier;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+public class BookControllerTest {
+
+	static final String BOOK_API = "/api/books";
+
+	@Autowired
+	WebTestClient client;
+
+	@Autowired
+	DatabaseClient databaseClient;
+
+	@Autowired
+	BookRepository bookRepository;
+
+	@BeforeEach
+	public void setUp() {
+		clean(databaseClient);
+	}
+
+	static void clean(DatabaseClient databaseClient) {
+		databaseClient.execute("delete from loan").then()
+				.then(databaseClient.execute("delete from book").then())
+				.block();
+	}
+
+	@Test
+	@DisplayName("Deve criar um livro com sucesso")
+	public void createBookTest() {
+		client.post().uri(BOOK_API).bodyValue(createNewBook("123"))
+				.exchange()
+				.expectStatus().isCreated()
+				.expectBody()
+				.jsonPath("id").isNotEmpty()
+				.jsonPath("title").isEqualTo("As aventuras")
+				.jsonPath("author").isEqualTo("Arthur")
+				.jsonPath("isbn").isEqualTo("123");
+	}
+
+	@Test
+	@DisplayName("Deve lançar erro de validação com o mesmo formato da API servlet")
+	public void createInvalidBookTest() {
+		client.post().uri(BOOK_API).bodyValue(new BookDTO())
+				.exchange()
+				.expectStatus().isBadRequest()
+				.expectBody()
+				.jsonPath("errors").value(Matchers.hasSize(3));
+	}
+
+	@Test
+	@DisplayName("Deve lançar erro ao tentar cadastrar um livro com isbn já utilizado")
+	public void createBookWithDuplicatedIsbnTest() {
+		save(createNewBook("123"));
+
+		client.post().uri(BOOK_API).bodyValue(createNewBook("123"))
+				.exchange()
+				.expectStatus().isBadRequest()
+				.expectBody()
+				.jsonPath("errors").value(Matchers.hasSize(1))
+				.jsonPath("errors[0]").isEqualTo("Isbn já cadastrado.");
+	}
+
+	@Test
+	@DisplayName("Deve retornar resource not found quando o livro não existir")
+	public void bookNotFoundTest() {
+		client.get().uri(BOOK_API + "/1").exchange().expectStatus().isNotFound();
+	}
+
+	@Test
+	@DisplayName("Deve atualizar e deletar um livro")
+	public void updateAndDeleteBookTest() {
+		BookDTO book = save(createNewBook("123"));
+
+		client.put().uri(BOOK_API + "/" + book.getId())
+				.bodyValue(BookDTO.builder().title("Outro titulo").author("Outro autor").isbn("999").build())
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("title").isEqualTo("Outro titulo")
+				.jsonPath("isbn").isEqualTo("123");
+		client.delete().uri(BOOK_API + "/" + book.getId()).exchange().expectStatus().isNoContent();
+		client.get().uri(BOOK_API + "/" + book.getId()).exchange().expectStatus().isNotFound();
+	}
+
+	@Test
+	@DisplayName("Deve avancar a versao lida pela API servlet ao atualizar um livro")
+	public void updateBookVersionTest() {
+		// a book as the servlet application leaves it, three updates in
+		Integer id = databaseClient.execute("select next value for book_seq").map(row -> row.get(0, Long.class))
+				.one().block().intValue();
+		databaseClient.execute("insert into book (id, title, author, isbn, version) values (:id, 'Titulo', 'Autor', "
+				+ " '123', 3)").bind("id", id).then().block();
+
+		client.put().uri(BOOK_API + "/" + id)
+				.bodyValue(BookDTO.builder().title("Outro titulo").author("Outro autor").isbn("123").build())
+				.exchange()
+				.expectStatus().isOk();
+
+		org.assertj.core.api.Assertions.assertThat(version(id)).isEqualTo(4L);
+		Book stale = Book.builder().id(id).title("Titulo velho").author("Autor").isbn("123").version(3L).build();
+		StepVerifier.create(bookRepository.update(stale)).expectError(OptimisticLockingFailureException.class)
+				.verify();
+		org.assertj.core.api.Assertions.assertThat(version(id)).isEqualTo(4L);
+	}
+
+	@Test
+	@DisplayName("Deve filtrar livros paginados com o mesmo contrato da API servlet")
+	public void findBooksTest() {
+		save(createNewBook("123"));
+		save(BookDTO.builder().title("Outro livro").author("Fulano").isbn("456").build());
+
+		client.get().uri(BOOK_API + "?title=AVENTURAS&page=0&size=100").accept(MediaType.APPLICATION_JSON)
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("content").value(Matchers.hasSize(1))
+				.jsonPath("content[0].isbn").isEqualTo("123")
+				.jsonPath("totalElements").isEqualTo(1)
+				.jsonPath("pageable.pageSize").isEqualTo(100)
+				.jsonPath("pageable.pageNumber").isEqualTo(0);
+	}
+
+	@Test
+	@DisplayName("Deve transmitir os livros como stream JSON")
+	public void streamBooksTest() {
+		save(createNewBook("123"));
+		save(createNewBook("456"));
+
+		client.get().uri(BOOK_API + "?author=arthur").accept(MediaType.APPLICATION_STREAM_JSON)
+				.exchange()
+				.expectStatus().isOk()
+				.expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_STREAM_JSON)
+				.expectBodyList(BookDTO.class)
+				.value(books -> org.assertj.core.api.Assertions.assertThat(books).extracting(BookDTO::getIsbn)
+						.containsExactly("123", "456"));
+	}
+
+	@Test
+	@DisplayName("Deve paginar livros por keyset")
+	public void findBooksAfterTest() {
+		BookDTO first = save(createNewBook("123"));
+		BookDTO second = save(createNewBook("456"));
+
+		client.get().uri(BOOK_API + "?after=&size=1")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("content[0].id").isEqualTo(first.getId())
+				.jsonPath("hasNext").isEqualTo(true)
+				.jsonPath("next").isNotEmpty();
+		client.get().uri(BOOK_API + "?after=&size=0")
+				.exchange()
+				.expectStatus().isBadRequest()
+				.expectBody()
+				.jsonPath("errors[0]").isEqualTo("size must be between 1 and 1000");
+		org.assertj.core.api.Assertions.assertThat(second.getId()).isGreaterThan(first.getId());
+	}
+
+	private Long version(Integer id) {
+		return databaseClient.execute("select version from book where id = :id").bind("id", id)
+				.map(row -> row.get(0, Long.class)).one().block();
+	}
+
+	private BookDTO save(BookDTO book) {
+		return client.post().uri(BOOK_API).bodyValue(book)
+				.exchange()
+				.expectStatus().isCreated()
+				.expectBody(BookDTO.class)
+				.returnResult()
+				.getResponseBody();
+	}
+
+	static BookDTO createNewBook(String isbn) {
+		return BookDTO.builder().author("Arthur").title("As aventuras").isbn(isbn).build();
+	}
+
+}
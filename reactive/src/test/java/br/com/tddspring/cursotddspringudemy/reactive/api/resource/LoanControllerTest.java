@@ -0,0 +1,155 @@
+package br.com.tddspring.cursotddspringudemy.reactive.api.resource;
+
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.data.r2dbc.core.DatabaseClient;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import br.com.tddspring.cursotddspringudemy.api.dto.BookDTO;
+import br.com.tddspring.cursotddspringudemy.api.dto.LoanDTO;
+import br.com.tddspring.cursotddspringudemy.api.dto.ReturnedLoanDTO;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+public class LoanControllerTest {
+
+	static final String LOAN_API = "/api/loans";
+
+	@Autowired
+	WebTestClient client;
+
+	@Autowired
+	DatabaseClient databaseClient;
+
+	BookDTO book;
+
+	@BeforeEach
+	public void setUp() {
+		BookControllerTest.clean(databaseClient);
+		book = client.post().uri(BookControllerTest.BOOK_API).bodyValue(BookControllerTest.createNewBook("123"))
+				.exchange()
+				.expectBody(BookDTO.class)
+				.returnResult()
+				.getResponseBody();
+	}
+
+	@Test
+	@DisplayName("Deve realizar um emprestimo")
+	public void createLoanTest() {
+		client.post().uri(LOAN_API).bodyValue(LoanDTO.builder().isbn("123").customer("Fulano").build())
+				.exchange()
+				.expectStatus().isCreated()
+				.expectBody(Integer.class)
+				.value(id -> org.assertj.core.api.Assertions.assertThat(id).isPositive());
+	}
+
+	@Test
+	@DisplayName("Deve retornar erro ao tentar fazer emprestimo de um livro inexistente")
+	public void invalidIsbnCreateLoanTest() {
+		client.post().uri(LOAN_API).bodyValue(LoanDTO.builder().isbn("999").customer("Fulano").build())
+				.exchange()
+				.expectStatus().isBadRequest()
+				.expectBody()
+				.jsonPath("errors").value(Matchers.hasSize(1))
+				.jsonPath("errors[0]").isEqualTo("Book not found for passed isbn");
+	}
+
+	@Test
+	@DisplayName("Deve retornar erro ao tentar fazer emprestimo de um livro emprestado")
+	public void loanedBookErrorOnCreateLoanTest() {
+		createLoan("Fulano");
+
+		client.post().uri(LOAN_API).bodyValue(LoanDTO.builder().isbn("123").customer("Ciclano").build())
+				.exchange()
+				.expectStatus().isBadRequest()
+				.expectBody()
+				.jsonPath("errors[0]").isEqualTo("book already loaned");
+	}
+
+	@Test
+	@DisplayName("Deve devolver um livro e permitir um novo emprestimo")
+	public void returnBookTest() {
+		Integer id = createLoan("Fulano");
+
+		client.patch().uri(LOAN_API + "/" + id).bodyValue(ReturnedLoanDTO.builder().returned(true).build())
+				.exchange()
+				.expectStatus().isOk();
+		client.patch().uri(LOAN_API + "/999").bodyValue(ReturnedLoanDTO.builder().returned(true).build())
+				.exchange()
+				.expectStatus().isNotFound();
+
+		org.assertj.core.api.Assertions.assertThat(createLoan("Ciclano")).isGreaterThan(id);
+		org.assertj.core.api.Assertions.assertThat(databaseClient.execute("select version from loan where id = :id")
+				.bind("id", id).map(row -> row.get(0, Long.class)).one().block()).isEqualTo(1L);
+	}
+
+	@Test
+	@DisplayName("Deve retornar erro ao reabrir um emprestimo de um livro emprestado de novo")
+	public void loanedBookErrorOnReopenLoanTest() {
+		Integer id = createLoan("Fulano");
+		client.patch().uri(LOAN_API + "/" + id).bodyValue(ReturnedLoanDTO.builder().returned(true).build())
+				.exchange()
+				.expectStatus().isOk();
+		createLoan("Ciclano");
+
+		client.patch().uri(LOAN_API + "/" + id).bodyValue(ReturnedLoanDTO.builder().returned(false).build())
+				.exchange()
+				.expectStatus().isBadRequest()
+				.expectBody()
+				.jsonPath("errors[0]").isEqualTo("book already loaned");
+	}
+
+	@Test
+	@DisplayName("Deve filtrar emprestimos paginados, em stream e por livro")
+	public void findLoansTest() {
+		Integer id = createLoan("Fulano");
+
+		client.get().uri(LOAN_API + "?isbn=123&page=0&size=10").accept(MediaType.APPLICATION_JSON)
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("content").value(Matchers.hasSize(1))
+				.jsonPath("content[0].id").isEqualTo(id)
+				.jsonPath("content[0].book.isbn").isEqualTo("123")
+				.jsonPath("totalElements").isEqualTo(1);
+		client.get().uri(LOAN_API + "?customer=Fulano").accept(MediaType.APPLICATION_STREAM_JSON)
+				.exchange()
+				.expectStatus().isOk()
+				.expectBodyList(LoanDTO.class)
+				.hasSize(1);
+		client.get().uri(BookControllerTest.BOOK_API + "/" + book.getId() + "/loans?after=")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("content[0].customer").isEqualTo("Fulano")
+				.jsonPath("hasNext").isEqualTo(false);
+	}
+
+	@Test
+	@DisplayName("Deve criar o esquema com todas as migracoes, inclusive os indices do keyset")
+	public void schemaFromAllMigrationsTest() {
+		org.assertj.core.api.Assertions.assertThat(databaseClient
+				.execute("select count(*) from information_schema.indexes where lower(index_name) = 'idx_loan_customer'")
+				.map(row -> row.get(0, Long.class)).one().block()).isEqualTo(2L);
+	}
+
+	private Integer createLoan(String customer) {
+		return client.post().uri(LOAN_API).bodyValue(LoanDTO.builder().isbn("123").customer(customer).build())
+				.exchange()
+				.expectStatus().isCreated()
+				.expectBody(Integer.class)
+				.returnResult()
+				.getResponseBody();
+	}
+
+}
@@ -0,0 +1,171 @@
+package br.com.tddspring.cursotddspringudemy.reactive.load;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import br.com.tddspring.cursotddspringudemy.api.dto.BookDTO;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * Drives the servlet and the reactive applications, one after the other, at
+ * the same fixed request rate, and reports how many threads and database
+ * connections each one needed to keep up. Both applications must be running:
+ *
+ * <pre>
+ * java -jar target/curso-tdd-spring-udemy-0.0.1-SNAPSHOT.jar
+ * java -jar reactive/target/curso-tdd-spring-udemy-reactive-0.0.1-SNAPSHOT.jar
+ * mvn -f reactive/pom.xml -Pload test-compile exec:java
+ * </pre>
+ *
+ * The load is open: requests are sent on schedule whether or not earlier
+ * ones have answered, so a slow server shows up as latency and in-flight
+ * requests rather than as a lower offered rate.
+ */
+public class LoadComparison {
+
+	private static final ParameterizedTypeReference<Map<String, Object>> METRIC = new ParameterizedTypeReference<Map<String, Object>>() {
+	};
+
+	private final WebClient client;
+	private final int rate;
+	private final Duration duration;
+	private final String path;
+	private final int books;
+
+	LoadComparison(int rate, Duration duration, String path, int books) {
+		this.client = WebClient.builder()
+				.clientConnector(new ReactorClientHttpConnector(
+						HttpClient.create(ConnectionProvider.fixed("load", 2000, 60000))))
+				.build();
+		this.rate = rate;
+		this.duration = duration;
+		this.path = path;
+		this.books = books;
+	}
+
+	public static void main(String[] args) {
+		LoadComparison comparison = new LoadComparison(Integer.getInteger("load.rate", 500),
+				Duration.ofSeconds(Long.getLong("load.seconds", 30)),
+				System.getProperty("load.path", "/api/books?title=livro&page=0&size=20"),
+				Integer.getInteger("load.books", 500));
+		List<Result> results = new ArrayList<>();
+		results.add(comparison.run("servlet (Tomcat + JDBC)", System.getProperty("load.servlet", "http://localhost:8080"),
+				"hikaricp.connections.active"));
+		results.add(comparison.run("reactive (Netty + R2DBC)", System.getProperty("load.reactive", "http://localhost:8090"),
+				"r2dbc.pool.acquired"));
+
+		System.out.printf("%nGET %s at %d req/s for %ds%n", comparison.path, comparison.rate,
+				comparison.duration.getSeconds());
+		System.out.printf("%-26s %9s %7s %9s %9s %12s %12s %10s %10s%n", "stack", "req/s", "errors", "p50 ms",
+				"p99 ms", "threads max", "threads avg", "conns max", "conns avg");
+		results.forEach(result -> System.out.printf("%-26s %9.1f %7d %9.1f %9.1f %12.0f %12.1f %10.0f %10.1f%n",
+				result.name, result.throughput, result.errors, result.p50, result.p99, result.threadsMax,
+				result.threadsAvg, result.connectionsMax, result.connectionsAvg));
+	}
+
+	Result run(String name, String baseUrl, String connectionMetric) {
+		seed(baseUrl);
+		// warm-up, so JIT and pool growth do not count against either stack
+		fire(baseUrl, Duration.ofSeconds(5), new ArrayList<>(), new AtomicInteger());
+
+		List<double[]> samples = Collections.synchronizedList(new ArrayList<>());
+		Disposable sampler = Flux.interval(Duration.ofMillis(250))
+				.concatMap(tick -> Mono.zip(metric(baseUrl, "jvm.threads.live"), metric(baseUrl, connectionMetric)))
+				.subscribe(sample -> samples.add(new double[] { sample.getT1(), sample.getT2() }));
+
+		List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+		AtomicInteger errors = new AtomicInteger();
+		long started = System.nanoTime();
+		fire(baseUrl, duration, latencies, errors);
+		double elapsed = (System.nanoTime() - started) / 1e9;
+		sampler.dispose();
+
+		List<Long> sorted = new ArrayList<>(latencies);
+		Collections.sort(sorted);
+		Result result = new Result();
+		result.name = name;
+		result.throughput = sorted.size() / elapsed;
+		result.errors = errors.get();
+		result.p50 = percentile(sorted, 0.50);
+		result.p99 = percentile(sorted, 0.99);
+		result.threadsMax = samples.stream().mapToDouble(sample -> sample[0]).max().orElse(0);
+		result.threadsAvg = samples.stream().mapToDouble(sample -> sample[0]).average().orElse(0);
+		result.connectionsMax = samples.stream().mapToDouble(sample -> sample[1]).max().orElse(0);
+		result.connectionsAvg = samples.stream().mapToDouble(sample -> sample[1]).average().orElse(0);
+		return result;
+	}
+
+	private void fire(String baseUrl, Duration duration, List<Long> latencies, AtomicInteger errors) {
+		long requests = rate * duration.getSeconds();
+		Flux.interval(Duration.ofNanos(1_000_000_000L / rate))
+				.onBackpressureDrop(tick -> errors.incrementAndGet())
+				.take(requests)
+				.flatMap(tick -> {
+					long start = System.nanoTime();
+					return client.get().uri(baseUrl + path).accept(MediaType.APPLICATION_JSON)
+							.retrieve()
+							.bodyToMono(String.class)
+							.doOnSuccess(body -> latencies.add(System.nanoTime() - start))
+							.onErrorResume(e -> {
+								errors.incrementAndGet();
+								return Mono.empty();
+							});
+				}, 4096)
+				.blockLast();
+	}
+
+	private void seed(String baseUrl) {
+		Flux.range(0, books)
+				.flatMap(i -> client.post().uri(baseUrl + "/api/books")
+						.bodyValue(BookDTO.builder().title("Livro " + i).author("Autor " + i % 50)
+								.isbn("load-" + i).build())
+						.exchange()
+						.flatMap(response -> response.releaseBody()), 32)
+				.blockLast();
+	}
+
+	@SuppressWarnings("unchecked")
+	private Mono<Double> metric(String baseUrl, String name) {
+		return client.get().uri(baseUrl + "/actuator/metrics/" + name)
+				.retrieve()
+				.bodyToMono(METRIC)
+				.map(body -> ((List<Map<String, Object>>) body.get("measurements")).stream()
+						.filter(measurement -> "VALUE".equals(measurement.get("statistic")))
+						.mapToDouble(measurement -> ((Number) measurement.get("value")).doubleValue())
+						.sum())
+				.onErrorReturn(-1d);
+	}
+
+	private static double percentile(List<Long> sorted, double quantile) {
+		if (sorted.isEmpty()) {
+			return 0;
+		}
+		return sorted.get((int) Math.min(sorted.size() - 1, Math.ceil(quantile * sorted.size()) - 1)) / 1e6;
+	}
+
+	static class Result {
+		String name;
+		double throughput;
+		int errors;
+		double p50;
+		double p99;
+		double threadsMax;
+		double threadsAvg;
+		double connectionsMax;
+		double connectionsAvg;
+	}
+
+}
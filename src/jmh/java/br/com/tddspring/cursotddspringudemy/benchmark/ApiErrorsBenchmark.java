@@ -0,0 +1,64 @@
+package br.com.tddspring.cursotddspringudemy.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpStatus;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.BindingResult;
+import org.springframework.web.server.ResponseStatusException;
+
+import br.com.tddspring.cursotddspringudemy.api.dto.BookDTO;
+import br.com.tddspring.cursotddspringudemy.api.exception.ApiErrors;
+import br.com.tddspring.cursotddspringudemy.exception.BusinessException;
+
+/**
+ * Construction of the {@link ApiErrors} body for each exception handler in
+ * {@code ApplicationControllerAdvice}; the exceptions themselves are built once.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ApiErrorsBenchmark {
+
+	private BindingResult bindingResult;
+	private final BusinessException businessException = new BusinessException("Isbn já cadastrado.");
+	private final ResponseStatusException statusException = new ResponseStatusException(HttpStatus.NOT_FOUND,
+			"Book not found");
+
+	@Setup
+	public void setup() {
+		bindingResult = new BeanPropertyBindingResult(new BookDTO(), "bookDTO");
+		bindingResult.rejectValue("title", "NotEmpty", "must not be empty");
+		bindingResult.rejectValue("author", "NotEmpty", "must not be empty");
+		bindingResult.rejectValue("isbn", "NotEmpty", "must not be empty");
+	}
+
+	@Benchmark
+	public ApiErrors fromBindingResult() {
+		return new ApiErrors(bindingResult);
+	}
+
+	@Benchmark
+	public ApiErrors fromBusinessException() {
+		return new ApiErrors(businessException);
+	}
+
+	@Benchmark
+	public ApiErrors fromResponseStatusException() {
+		return new ApiErrors(statusException);
+	}
+
+}
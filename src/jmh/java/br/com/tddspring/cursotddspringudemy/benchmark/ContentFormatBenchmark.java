@@ -0,0 +1,93 @@
+package br.com.tddspring.cursotddspringudemy.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import br.com.tddspring.cursotddspringudemy.api.dto.LoanDTO;
+import br.com.tddspring.cursotddspringudemy.api.mapper.BookMapper;
+import br.com.tddspring.cursotddspringudemy.api.mapper.LoanMapper;
+
+/**
+ * Cost of each {@code Accept} format on a page of loans, the largest body the
+ * API serves: time to serialize it, and bytes on the wire, raw and
+ * gzipped. The sizes do not depend on timing, so setup prints them once per
+ * trial and they are kept next to the scores in the baseline.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ContentFormatBenchmark {
+
+	@Param({ "json", "cbor", "smile" })
+	String format;
+
+	@Param({ "20", "1000" })
+	int size;
+
+	private ObjectMapper objectMapper;
+	private Page<LoanDTO> loans;
+
+	@Setup
+	public void setup() throws IOException {
+		objectMapper = Jackson2ObjectMapperBuilder.json().factory(factory(format)).build();
+		LoanMapper loanMapper = new LoanMapper(new BookMapper());
+		List<LoanDTO> dtos = Fixtures.loans(size).stream().map(loanMapper::toDto).collect(Collectors.toList());
+		loans = new PageImpl<>(dtos, PageRequest.of(0, size), size * 10L);
+		byte[] serialized = objectMapper.writeValueAsBytes(loans);
+		System.out.printf("%n%s, %d loans: %d bytes, %d gzipped%n", format, size, serialized.length,
+				gzip(serialized).length);
+	}
+
+	@Benchmark
+	public byte[] write() throws IOException {
+		return objectMapper.writeValueAsBytes(loans);
+	}
+
+	private static JsonFactory factory(String format) {
+		switch (format) {
+		case "cbor":
+			return new CBORFactory();
+		case "smile":
+			return new SmileFactory();
+		default:
+			return new JsonFactory();
+		}
+	}
+
+	private static byte[] gzip(byte[] content) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+			gzip.write(content);
+		}
+		return out.toByteArray();
+	}
+
+}
@@ -0,0 +1,84 @@
+package br.com.tddspring.cursotddspringudemy.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import br.com.tddspring.cursotddspringudemy.api.dto.BookDTO;
+import br.com.tddspring.cursotddspringudemy.api.dto.LoanDTO;
+import br.com.tddspring.cursotddspringudemy.api.dto.LoanFilterDTO;
+import br.com.tddspring.cursotddspringudemy.api.mapper.BookMapper;
+import br.com.tddspring.cursotddspringudemy.api.mapper.LoanMapper;
+import br.com.tddspring.cursotddspringudemy.api.resource.BookController;
+import br.com.tddspring.cursotddspringudemy.api.resource.LoanController;
+import br.com.tddspring.cursotddspringudemy.service.BookService;
+import br.com.tddspring.cursotddspringudemy.service.LoanService;
+
+/**
+ * In-JVM cost of {@code GET /api/books} and {@code GET /api/loans} past the
+ * repository: filter mapping, the page ETag, entity to DTO mapping and the
+ * result page.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ControllerFindBenchmark {
+
+	@Param({ "20", "100", "1000" })
+	int size;
+
+	private BookController bookController;
+	private LoanController loanController;
+	private Pageable pageable;
+	private final WebRequest request = new ServletWebRequest(new MockHttpServletRequest(),
+			new MockHttpServletResponse());
+	private final BookDTO bookFilter = BookDTO.builder().title("Title").build();
+	private final LoanFilterDTO loanFilter = LoanFilterDTO.builder().customer("Customer").build();
+
+	@Setup
+	public void setup() {
+		pageable = PageRequest.of(0, size);
+		BookMapper bookMapper = new BookMapper();
+		LoanMapper loanMapper = new LoanMapper(bookMapper);
+
+		BookService bookService = Fixtures.returning(BookService.class, "find",
+				new PageImpl<>(Fixtures.books(size), pageable, size * 10L));
+		LoanService loanService = Fixtures.returning(LoanService.class, "findSummaries",
+				new PageImpl<>(Fixtures.loanSummaries(size), pageable, size * 10L));
+
+		bookController = new BookController(bookService, bookMapper, loanMapper, null, null);
+		loanController = new LoanController(loanService, bookService, loanMapper);
+	}
+
+	@Benchmark
+	public Page<BookDTO> findBooks() {
+		return bookController.find(bookFilter, pageable, request);
+	}
+
+	@Benchmark
+	public Page<LoanDTO> findLoans() {
+		return loanController.find(loanFilter, pageable);
+	}
+
+}
@@ -0,0 +1,60 @@
+package br.com.tddspring.cursotddspringudemy.benchmark;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import br.com.tddspring.cursotddspringudemy.model.entity.Book;
+import br.com.tddspring.cursotddspringudemy.model.entity.Loan;
+import br.com.tddspring.cursotddspringudemy.model.projection.LoanSummary;
+
+/**
+ * Entity pages and service stubs shared by the benchmarks. Stubs are plain
+ * proxies so that Mockito's invocation bookkeeping stays out of the numbers.
+ */
+final class Fixtures {
+
+	private Fixtures() {
+	}
+
+	static List<Book> books(int size) {
+		List<Book> books = new ArrayList<>(size);
+		for (int i = 1; i <= size; i++) {
+			books.add(Book.builder().id(i).title("Title " + i).author("Author " + i).isbn("isbn-" + i).build());
+		}
+		return books;
+	}
+
+	static List<Loan> loans(int size) {
+		List<Loan> loans = new ArrayList<>(size);
+		for (Book book : books(size)) {
+			loans.add(Loan.builder().id(book.getId()).customer("Customer " + book.getId())
+					.customerEmail("customer" + book.getId() + "@email.com").book(book)
+					.loanDate(LocalDate.of(2020, 1, 1)).build());
+		}
+		return loans;
+	}
+
+	static List<LoanSummary> loanSummaries(int size) {
+		List<LoanSummary> summaries = new ArrayList<>(size);
+		for (Loan loan : loans(size)) {
+			Book book = loan.getBook();
+			summaries.add(new LoanSummary(loan.getId(), loan.getCustomer(), loan.getCustomerEmail(), book.getId(),
+					book.getIsbn(), book.getTitle(), book.getAuthor()));
+		}
+		return summaries;
+	}
+
+	/** A service stub whose {@code method} always returns {@code value}; any other call fails. */
+	static <T> T returning(Class<T> type, String method, Object value) {
+		Object stub = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, (proxy, m, args) -> {
+			if (m.getName().equals(method)) {
+				return value;
+			}
+			throw new UnsupportedOperationException(m.getName());
+		});
+		return type.cast(stub);
+	}
+
+}
@@ -0,0 +1,78 @@
+package br.com.tddspring.cursotddspringudemy.benchmark;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import br.com.tddspring.cursotddspringudemy.api.dto.BookDTO;
+import br.com.tddspring.cursotddspringudemy.api.dto.LoanDTO;
+import br.com.tddspring.cursotddspringudemy.api.mapper.BookMapper;
+import br.com.tddspring.cursotddspringudemy.api.mapper.LoanMapper;
+import br.com.tddspring.cursotddspringudemy.model.entity.Book;
+import br.com.tddspring.cursotddspringudemy.model.entity.Loan;
+
+/**
+ * Hand-written mappers against the ModelMapper bean they replaced, mapping the
+ * way the controllers did (a loan and then its book separately).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MapperBenchmark {
+
+	private final ModelMapper modelMapper = new ModelMapper();
+	private final BookMapper bookMapper = new BookMapper();
+	private final LoanMapper loanMapper = new LoanMapper(bookMapper);
+
+	private final Book book = Book.builder().id(1).title("As aventuras").author("Fulano").isbn("123").build();
+	private final BookDTO bookDto = BookDTO.builder().title("As aventuras").author("Fulano").isbn("123").build();
+	private final Loan loan = Loan.builder().id(2).customer("Ciclano").customerEmail("ciclano@email.com").book(book)
+			.loanDate(LocalDate.now()).build();
+
+	@Benchmark
+	public BookDTO modelMapperBookToDto() {
+		return modelMapper.map(book, BookDTO.class);
+	}
+
+	@Benchmark
+	public BookDTO bookMapperToDto() {
+		return bookMapper.toDto(book);
+	}
+
+	@Benchmark
+	public Book modelMapperDtoToBook() {
+		return modelMapper.map(bookDto, Book.class);
+	}
+
+	@Benchmark
+	public Book bookMapperToEntity() {
+		return bookMapper.toEntity(bookDto);
+	}
+
+	@Benchmark
+	public LoanDTO modelMapperLoanToDto() {
+		BookDTO dto = modelMapper.map(loan.getBook(), BookDTO.class);
+		LoanDTO loanDto = modelMapper.map(loan, LoanDTO.class);
+		loanDto.setBook(dto);
+		return loanDto;
+	}
+
+	@Benchmark
+	public LoanDTO loanMapperToDto() {
+		return loanMapper.toDto(loan);
+	}
+
+}
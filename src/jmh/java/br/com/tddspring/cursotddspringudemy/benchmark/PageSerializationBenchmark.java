@@ -0,0 +1,72 @@
+package br.com.tddspring.cursotddspringudemy.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import br.com.tddspring.cursotddspringudemy.api.dto.BookDTO;
+import br.com.tddspring.cursotddspringudemy.api.dto.LoanDTO;
+import br.com.tddspring.cursotddspringudemy.api.mapper.BookMapper;
+import br.com.tddspring.cursotddspringudemy.api.mapper.LoanMapper;
+
+/**
+ * Jackson serialization of the {@link PageImpl} the find endpoints return,
+ * with an {@link ObjectMapper} built the way Spring MVC builds its own.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PageSerializationBenchmark {
+
+	@Param({ "20", "100", "1000" })
+	int size;
+
+	private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+	private Page<BookDTO> books;
+	private Page<LoanDTO> loans;
+
+	@Setup
+	public void setup() {
+		BookMapper bookMapper = new BookMapper();
+		LoanMapper loanMapper = new LoanMapper(bookMapper);
+		PageRequest pageable = PageRequest.of(0, size);
+
+		List<BookDTO> bookDtos = Fixtures.books(size).stream().map(bookMapper::toDto).collect(Collectors.toList());
+		List<LoanDTO> loanDtos = Fixtures.loans(size).stream().map(loanMapper::toDto).collect(Collectors.toList());
+		books = new PageImpl<>(bookDtos, pageable, size * 10L);
+		loans = new PageImpl<>(loanDtos, pageable, size * 10L);
+	}
+
+	@Benchmark
+	public byte[] serializeBooks() throws JsonProcessingException {
+		return objectMapper.writeValueAsBytes(books);
+	}
+
+	@Benchmark
+	public byte[] serializeLoans() throws JsonProcessingException {
+		return objectMapper.writeValueAsBytes(loans);
+	}
+
+}
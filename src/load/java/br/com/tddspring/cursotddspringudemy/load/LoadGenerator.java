@@ -0,0 +1,286 @@
+package br.com.tddspring.cursotddspringudemy.load;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.sql.DataSource;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.client.RestTemplate;
+
+import br.com.tddspring.cursotddspringudemy.CursoTddSpringUdemyApplication;
+import br.com.tddspring.cursotddspringudemy.api.dto.BookDTO;
+import br.com.tddspring.cursotddspringudemy.api.dto.LoanDTO;
+import br.com.tddspring.cursotddspringudemy.api.dto.ReturnedLoanDTO;
+import br.com.tddspring.cursotddspringudemy.dataset.DatasetGenerator;
+import br.com.tddspring.cursotddspringudemy.dataset.DatasetGenerator.Dataset;
+import br.com.tddspring.cursotddspringudemy.service.impl.IsbnBloomFilter;
+
+/**
+ * Boots the application on an in-memory H2 database, seeds it, and drives
+ * the REST API with a weighted mix of operations from a pool of concurrent
+ * clients, then prints latency percentiles and throughput per operation:
+ *
+ * <pre>
+ * mvn -Pload test-compile exec:java [-Dload.rate=200 -Dload.seconds=30 ...]
+ * </pre>
+ *
+ * The load is open: arrivals are scheduled at {@code load.rate} per second
+ * whether or not earlier requests have answered, and latency is measured from
+ * the scheduled start. When the server (or the {@code load.clients} pool)
+ * falls behind, the queueing shows up in the percentiles instead of silently
+ * lowering the offered rate.
+ *
+ * Knobs, as system properties: {@code load.rate}, {@code load.seconds},
+ * {@code load.warmup-seconds}, {@code load.clients}, {@code load.books},
+ * {@code load.loans} (all loans seeded, see {@link DatasetGenerator} for the
+ * share left open) and {@code load.mix}, e.g.
+ * {@code searchBooks=40,loansByBook=25,createBook=10,createLoan=15,returnLoan=10}.
+ */
+public class LoadGenerator {
+
+	static final String DEFAULT_MIX = "searchBooks=40,loansByBook=25,createBook=10,createLoan=15,returnLoan=10";
+
+	private static final long HIGHEST_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+	private final RestTemplate rest;
+	private final String baseUrl;
+	private final List<Integer> bookIds;
+	private final ConcurrentLinkedQueue<String> availableIsbns;
+	private final ConcurrentLinkedQueue<OpenLoan> openLoans;
+	private final AtomicLong newIsbns = new AtomicLong();
+
+	LoadGenerator(String baseUrl, int clients, List<Integer> bookIds, List<String> availableIsbns,
+			List<OpenLoan> openLoans) {
+		PoolingHttpClientConnectionManager connections = new PoolingHttpClientConnectionManager();
+		connections.setMaxTotal(clients);
+		connections.setDefaultMaxPerRoute(clients);
+		this.rest = new RestTemplate(new HttpComponentsClientHttpRequestFactory(
+				HttpClients.custom().setConnectionManager(connections).build()));
+		this.baseUrl = baseUrl;
+		this.bookIds = bookIds;
+		this.availableIsbns = new ConcurrentLinkedQueue<>(availableIsbns);
+		this.openLoans = new ConcurrentLinkedQueue<>(openLoans);
+	}
+
+	public static void main(String[] args) throws InterruptedException, SQLException {
+		int rate = Integer.getInteger("load.rate", 200);
+		Duration duration = Duration.ofSeconds(Long.getLong("load.seconds", 30));
+		Duration warmup = Duration.ofSeconds(Long.getLong("load.warmup-seconds", 10));
+		int clients = Integer.getInteger("load.clients", 64);
+		int books = Integer.getInteger("load.books", 5000);
+		int loans = Integer.getInteger("load.loans", 20000);
+		Map<String, Integer> mix = parseMix(System.getProperty("load.mix", DEFAULT_MIX));
+
+		// command-line arguments, so they win over application.properties
+		String[] overrides = { "--server.port=0",
+				"--spring.datasource.url=jdbc:h2:mem:load;DB_CLOSE_DELAY=-1",
+				"--logging.file=target/load.log",
+				"--logging.level.root=WARN",
+				"--spring.main.banner-mode=off" };
+		ConfigurableApplicationContext context = new SpringApplicationBuilder(CursoTddSpringUdemyApplication.class)
+				.run(concat(overrides, args));
+		try {
+			LoadGenerator generator = seed(context, clients, books, loans);
+			System.out.printf("seeded %d books, %d loans (%d open); warming up for %ds%n", books, loans,
+					generator.openLoans.size(), warmup.getSeconds());
+			generator.run(rate, warmup, clients, mix);
+			System.out.printf("measuring %d req/s for %ds with %d clients, mix %s%n", rate, duration.getSeconds(),
+					clients, mix);
+			Map<String, Stats> stats = generator.run(rate, duration, clients, mix);
+			report(stats, duration);
+		} finally {
+			SpringApplication.exit(context);
+		}
+	}
+
+	static LoadGenerator seed(ConfigurableApplicationContext context, int clients, int books, int loans)
+			throws SQLException {
+		DataSource dataSource = context.getBean(DataSource.class);
+		Dataset dataset = DatasetGenerator.builder().books(books).loans(loans).customers(Math.max(1, books / 2))
+				.build().load(dataSource);
+		System.out.printf("%nloaded %d books and %d loans in %d ms%n", dataset.getBooks(), dataset.getLoans(),
+				dataset.getElapsedMillis());
+		context.getBean(IsbnBloomFilter.class).rebuild();
+
+		JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+		List<Integer> bookIds = jdbc.queryForList("select id from book order by id", Integer.class);
+		List<String> available = jdbc.queryForList(
+				"select b.isbn from book b left join loan l on l.active_book = b.id where l.id is null",
+				String.class);
+		List<OpenLoan> openLoans = jdbc.query(
+				"select l.id, b.isbn from loan l join book b on b.id = l.active_book",
+				(row, index) -> new OpenLoan(row.getInt(1), row.getString(2)));
+		String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+		return new LoadGenerator(baseUrl, clients, bookIds, available, openLoans);
+	}
+
+	Map<String, Stats> run(int rate, Duration duration, int clients, Map<String, Integer> mix)
+			throws InterruptedException {
+		Map<String, Stats> stats = new LinkedHashMap<>();
+		mix.keySet().forEach(operation -> stats.put(operation, new Stats()));
+		String[] wheel = wheel(mix);
+
+		ExecutorService pool = Executors.newFixedThreadPool(clients);
+		long interval = TimeUnit.SECONDS.toNanos(1) / rate;
+		long arrivals = rate * duration.getSeconds();
+		long start = System.nanoTime();
+		for (long i = 0; i < arrivals; i++) {
+			long intended = start + i * interval;
+			long wait = intended - System.nanoTime();
+			if (wait > 0) {
+				LockSupport.parkNanos(wait);
+			}
+			String operation = wheel[ThreadLocalRandom.current().nextInt(wheel.length)];
+			pool.execute(() -> execute(operation, intended, stats.get(operation)));
+		}
+		pool.shutdown();
+		pool.awaitTermination(1, TimeUnit.MINUTES);
+		return stats;
+	}
+
+	private void execute(String operation, long intended, Stats stats) {
+		try {
+			if (perform(operation)) {
+				stats.latencies.recordValue(
+						Math.min(HIGHEST_MICROS, TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intended)));
+			} else {
+				stats.skipped.incrementAndGet();
+			}
+		} catch (RuntimeException e) {
+			stats.errors.incrementAndGet();
+		}
+	}
+
+	/** Sends one request; false when the dataset has nothing to act on, e.g. no open loan to return. */
+	boolean perform(String operation) {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		switch (operation) {
+		case "searchBooks":
+			rest.getForObject(baseUrl + "/api/books?title=Livro {title}&page=0&size=20", String.class,
+					random.nextInt(100));
+			return true;
+		case "loansByBook":
+			rest.getForObject(baseUrl + "/api/books/{id}/loans?page=0&size=10", String.class,
+					bookIds.get(random.nextInt(bookIds.size())));
+			return true;
+		case "createBook":
+			long n = newIsbns.incrementAndGet();
+			rest.postForObject(baseUrl + "/api/books",
+					BookDTO.builder().title("Novo " + n).author("Autor " + n % 100).isbn("load-" + n).build(),
+					String.class);
+			return true;
+		case "createLoan":
+			String isbn = availableIsbns.poll();
+			if (isbn == null) {
+				return false;
+			}
+			Integer id = rest.postForObject(baseUrl + "/api/loans",
+					LoanDTO.builder().isbn(isbn).customer("Cliente").email("cliente@email.com").build(),
+					Integer.class);
+			openLoans.add(new OpenLoan(id, isbn));
+			return true;
+		case "returnLoan":
+			OpenLoan loan = openLoans.poll();
+			if (loan == null) {
+				return false;
+			}
+			rest.patchForObject(baseUrl + "/api/loans/{id}", new ReturnedLoanDTO(true), Void.class, loan.id);
+			availableIsbns.add(loan.isbn);
+			return true;
+		default:
+			throw new IllegalArgumentException("Unknown operation " + operation);
+		}
+	}
+
+	private static String[] concat(String[] first, String[] second) {
+		String[] all = Arrays.copyOf(first, first.length + second.length);
+		System.arraycopy(second, 0, all, first.length, second.length);
+		return all;
+	}
+
+	static Map<String, Integer> parseMix(String mix) {
+		Map<String, Integer> weights = new LinkedHashMap<>();
+		for (String entry : mix.split(",")) {
+			String[] parts = entry.trim().split("=");
+			weights.put(parts[0].trim(), Integer.valueOf(parts[1].trim()));
+		}
+		return weights;
+	}
+
+	private static String[] wheel(Map<String, Integer> mix) {
+		List<String> wheel = new ArrayList<>();
+		mix.forEach((operation, weight) -> {
+			for (int i = 0; i < weight; i++) {
+				wheel.add(operation);
+			}
+		});
+		return wheel.toArray(new String[0]);
+	}
+
+	static void report(Map<String, Stats> stats, Duration duration) {
+		System.out.printf("%n%-12s %8s %7s %7s %9s %9s %9s %9s %9s %9s%n", "operation", "count", "errors",
+				"skipped", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+		Histogram total = new Histogram(HIGHEST_MICROS, 3);
+		int errors = 0;
+		int skipped = 0;
+		for (Map.Entry<String, Stats> entry : stats.entrySet()) {
+			Stats operation = entry.getValue();
+			total.add(operation.latencies);
+			errors += operation.errors.get();
+			skipped += operation.skipped.get();
+			print(entry.getKey(), operation.latencies, operation.errors.get(), operation.skipped.get(), duration);
+		}
+		print("total", total, errors, skipped, duration);
+	}
+
+	private static void print(String name, Histogram latencies, int errors, int skipped, Duration duration) {
+		System.out.printf("%-12s %8d %7d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n", name,
+				latencies.getTotalCount(), errors, skipped, latencies.getTotalCount() / (double) duration.getSeconds(),
+				millis(latencies.getValueAtPercentile(50)), millis(latencies.getValueAtPercentile(90)),
+				millis(latencies.getValueAtPercentile(99)), millis(latencies.getValueAtPercentile(99.9)),
+				millis(latencies.getMaxValue()));
+	}
+
+	private static double millis(long micros) {
+		return micros / 1000.0;
+	}
+
+	static class OpenLoan {
+		final Integer id;
+		final String isbn;
+
+		OpenLoan(Integer id, String isbn) {
+			this.id = id;
+			this.isbn = isbn;
+		}
+	}
+
+	static class Stats {
+		final Histogram latencies = new ConcurrentHistogram(HIGHEST_MICROS, 3);
+		final AtomicInteger errors = new AtomicInteger();
+		final AtomicInteger skipped = new AtomicInteger();
+	}
+
+}
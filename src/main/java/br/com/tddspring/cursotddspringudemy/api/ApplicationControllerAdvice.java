@@ -2,6 +2,7 @@ package br.com.tddspring.cursotddspringudemy.api;
 
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -28,6 +29,12 @@ public class ApplicationControllerAdvice {
 		return new ApiErrors(ex);
 	}
 	
+	@ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+	@ResponseStatus(HttpStatus.CONFLICT)
+	public ApiErrors handleOptimisticLockingFailure(ObjectOptimisticLockingFailureException ex) {
+		return new ApiErrors(new ResponseStatusException(HttpStatus.CONFLICT, "Resource was modified concurrently"));
+	}
+
 	@ExceptionHandler(ResponseStatusException.class)
 	public ResponseEntity handleReponseStatusException(ResponseStatusException ex) {
 		return new ResponseEntity(new ApiErrors(ex), ex.getStatus());
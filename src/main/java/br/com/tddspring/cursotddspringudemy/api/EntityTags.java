@@ -0,0 +1,106 @@
+package br.com.tddspring.cursotddspringudemy.api;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.data.domain.Page;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.StringUtils;
+
+import br.com.tddspring.cursotddspringudemy.model.entity.Book;
+
+/**
+ * ETags computed from entity versions, so a request can be answered with 304
+ * or 412 before anything is mapped or serialized. A book's tag is its id and
+ * version; a page's tag digests the tags of its books and the total, which
+ * together determine the whole response for a given URL.
+ *
+ * JSON, CBOR and Smile bodies of the same resource are different
+ * representations, so every tag also names the media type the request
+ * negotiates, and tagged responses vary on {@code Accept}.
+ *
+ * The tags are weak. Tomcat may gzip a response after the tag is set, and a
+ * strong tag would then name two different byte sequences, which RFC 7232
+ * does not allow. Tomcat leaves strongly tagged responses uncompressed for
+ * that reason.
+ */
+public final class EntityTags {
+
+	public static final MediaType APPLICATION_SMILE = new MediaType("application", "x-jackson-smile");
+
+	/** The bodies the message converters write, in the order they are picked. */
+	public static final List<MediaType> REPRESENTATIONS = Collections.unmodifiableList(
+			Arrays.asList(MediaType.APPLICATION_JSON, MediaType.APPLICATION_CBOR, APPLICATION_SMILE));
+
+	private static final String WEAK_PREFIX = "W/";
+
+	private EntityTags() {
+	}
+
+	public static String of(Book book, MediaType representation) {
+		return weakTag(book.getId() + "-" + (book.getVersion() == null ? 0 : book.getVersion()) + "-"
+				+ representation.getSubtype());
+	}
+
+	public static String of(Page<Book> page, MediaType representation) {
+		StringBuilder content = new StringBuilder().append(page.getTotalElements());
+		page.getContent().forEach(book -> content.append(',').append(of(book, representation)));
+		return weakTag(DigestUtils.md5DigestAsHex(content.toString().getBytes(StandardCharsets.UTF_8)) + "-"
+				+ representation.getSubtype());
+	}
+
+	/**
+	 * The representation an {@code Accept} header gets, negotiated the way the
+	 * message converters do it: the most specific, highest quality type first,
+	 * JSON for wildcards, a missing header or one nothing here satisfies.
+	 */
+	public static MediaType representation(String accept) {
+		List<MediaType> accepted;
+		try {
+			accepted = StringUtils.hasText(accept) ? MediaType.parseMediaTypes(accept)
+					: Collections.singletonList(MediaType.ALL);
+		} catch (InvalidMediaTypeException e) {
+			return MediaType.APPLICATION_JSON;
+		}
+		MediaType.sortBySpecificityAndQuality(accepted);
+		for (MediaType type : accepted) {
+			if (type.getQualityValue() == 0) {
+				continue;
+			}
+			for (MediaType representation : REPRESENTATIONS) {
+				if (type.isCompatibleWith(representation)) {
+					return representation;
+				}
+			}
+		}
+		return MediaType.APPLICATION_JSON;
+	}
+
+	/**
+	 * Whether an {@code If-Match} header allows changing {@code book}: it
+	 * must hold the tag of its current version, in any representation. RFC
+	 * 7232 compares If-Match strongly, so weak tags would never match. These
+	 * tags are weak only because of the content coding; each one still names
+	 * a single entity version. They are therefore compared with or without
+	 * the {@code W/} prefix.
+	 */
+	public static boolean matches(String ifMatch, Book book) {
+		return Arrays.stream(ifMatch.split(","))
+				.map(String::trim)
+				.anyMatch(candidate -> candidate.equals("*") || REPRESENTATIONS.stream()
+						.anyMatch(type -> opaque(candidate).equals(opaque(of(book, type)))));
+	}
+
+	private static String weakTag(String value) {
+		return WEAK_PREFIX + "\"" + value + "\"";
+	}
+
+	private static String opaque(String tag) {
+		return tag.startsWith(WEAK_PREFIX) ? tag.substring(WEAK_PREFIX.length()) : tag;
+	}
+
+}
@@ -0,0 +1,51 @@
+package br.com.tddspring.cursotddspringudemy.api;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Opaque cursor for keyset pagination. It wraps the id of the last row of a
+ * slice, and the next slice starts right after it. A blank cursor starts from
+ * the first row.
+ */
+public final class KeysetCursor {
+
+	public static final int MAX_SIZE = 1000;
+
+	private static final String PREFIX = "id:";
+
+	private KeysetCursor() {
+	}
+
+	public static String encode(Integer lastId) {
+		return Base64.getUrlEncoder().withoutPadding()
+				.encodeToString(PREFIX.concat(lastId.toString()).getBytes(StandardCharsets.UTF_8));
+	}
+
+	public static int checkSize(Integer size) {
+		if (size == null || size < 1 || size > MAX_SIZE) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "size must be between 1 and " + MAX_SIZE);
+		}
+		return size;
+	}
+
+	public static Integer decode(String cursor) {
+		if (!StringUtils.hasText(cursor)) {
+			return 0;
+		}
+		try {
+			String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+			if (!value.startsWith(PREFIX)) {
+				throw new IllegalArgumentException(value);
+			}
+			return Integer.valueOf(value.substring(PREFIX.length()));
+		} catch (IllegalArgumentException e) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+		}
+	}
+
+}
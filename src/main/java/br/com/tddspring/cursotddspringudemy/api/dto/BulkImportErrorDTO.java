@@ -0,0 +1,18 @@
+package br.com.tddspring.cursotddspringudemy.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkImportErrorDTO {
+
+	private int line;
+	private String isbn;
+	private String message;
+
+}
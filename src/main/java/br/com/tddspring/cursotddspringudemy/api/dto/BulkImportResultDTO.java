@@ -0,0 +1,23 @@
+package br.com.tddspring.cursotddspringudemy.api.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkImportResultDTO {
+
+	private int read;
+	private int created;
+	private int rejected;
+	@Builder.Default
+	private List<BulkImportErrorDTO> errors = new ArrayList<>();
+
+}
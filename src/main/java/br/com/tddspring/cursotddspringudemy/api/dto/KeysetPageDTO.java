@@ -0,0 +1,31 @@
+package br.com.tddspring.cursotddspringudemy.api.dto;
+
+import java.util.List;
+import java.util.function.Function;
+
+import org.springframework.data.domain.Slice;
+
+import br.com.tddspring.cursotddspringudemy.api.KeysetCursor;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class KeysetPageDTO<T> {
+
+	private List<T> content;
+	private Integer size;
+	private Boolean hasNext;
+	private String next;
+
+	public static <T> KeysetPageDTO<T> of(List<T> content, Slice<?> slice, Function<T, Integer> idOf) {
+		String next = slice.hasNext() ? KeysetCursor.encode(idOf.apply(content.get(content.size() - 1))) : null;
+		return new KeysetPageDTO<T>(content, slice.getSize(), slice.hasNext(), next);
+	}
+
+}
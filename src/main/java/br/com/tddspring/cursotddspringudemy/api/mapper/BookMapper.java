@@ -0,0 +1,19 @@
+package br.com.tddspring.cursotddspringudemy.api.mapper;
+
+import org.springframework.stereotype.Component;
+
+import br.com.tddspring.cursotddspringudemy.api.dto.BookDTO;
+import br.com.tddspring.cursotddspringudemy.model.entity.Book;
+
+@Component
+public class BookMapper {
+
+	public BookDTO toDto(Book book) {
+		return new BookDTO(book.getId(), book.getTitle(), book.getAuthor(), book.getIsbn());
+	}
+
+	public Book toEntity(BookDTO dto) {
+		return Book.builder().id(dto.getId()).title(dto.getTitle()).author(dto.getAuthor()).isbn(dto.getIsbn()).build();
+	}
+
+}
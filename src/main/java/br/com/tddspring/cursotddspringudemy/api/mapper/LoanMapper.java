@@ -0,0 +1,37 @@
+package br.com.tddspring.cursotddspringudemy.api.mapper;
+
+import org.springframework.stereotype.Component;
+
+import br.com.tddspring.cursotddspringudemy.api.dto.BookDTO;
+import br.com.tddspring.cursotddspringudemy.api.dto.LoanDTO;
+import br.com.tddspring.cursotddspringudemy.model.entity.Loan;
+import br.com.tddspring.cursotddspringudemy.model.projection.LoanSummary;
+import lombok.RequiredArgsConstructor;
+
+@Component
+@RequiredArgsConstructor
+public class LoanMapper {
+
+	private final BookMapper bookMapper;
+
+	public LoanDTO toDto(Loan loan) {
+		LoanDTO dto = new LoanDTO();
+		dto.setId(loan.getId());
+		dto.setCustomer(loan.getCustomer());
+		dto.setEmail(loan.getCustomerEmail());
+		if (loan.getBook() != null) {
+			dto.setBook(bookMapper.toDto(loan.getBook()));
+		}
+		return dto;
+	}
+
+	public LoanDTO toDto(LoanSummary summary) {
+		LoanDTO dto = new LoanDTO();
+		dto.setId(summary.getId());
+		dto.setCustomer(summary.getCustomer());
+		dto.setEmail(summary.getEmail());
+		dto.setBook(new BookDTO(summary.getBookId(), summary.getTitle(), summary.getAuthor(), summary.getIsbn()));
+		return dto;
+	}
+
+}
@@ -1,30 +1,48 @@
 package br.com.tddspring.cursotddspringudemy.api.resource;
 
+import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 
-import org.modelmapper.ModelMapper;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
 
+import br.com.tddspring.cursotddspringudemy.api.EntityTags;
+import br.com.tddspring.cursotddspringudemy.api.KeysetCursor;
 import br.com.tddspring.cursotddspringudemy.api.dto.BookDTO;
+import br.com.tddspring.cursotddspringudemy.api.dto.BulkImportResultDTO;
+import br.com.tddspring.cursotddspringudemy.api.dto.KeysetPageDTO;
 import br.com.tddspring.cursotddspringudemy.api.dto.LoanDTO;
+import br.com.tddspring.cursotddspringudemy.api.mapper.BookMapper;
+import br.com.tddspring.cursotddspringudemy.api.mapper.LoanMapper;
 import br.com.tddspring.cursotddspringudemy.model.entity.Book;
 import br.com.tddspring.cursotddspringudemy.model.entity.Loan;
+import br.com.tddspring.cursotddspringudemy.service.BookCatalogService;
+import br.com.tddspring.cursotddspringudemy.service.BookCatalogService.ExportFormat;
 import br.com.tddspring.cursotddspringudemy.service.BookService;
 import br.com.tddspring.cursotddspringudemy.service.LoanService;
 import io.swagger.annotations.Api;
@@ -38,22 +56,46 @@ import lombok.RequiredArgsConstructor;
 public class BookController {
 
 	private final BookService service;
-	private final ModelMapper modelMapper;
+	private final BookMapper bookMapper;
+	private final LoanMapper loanMapper;
 	private final LoanService loanService;
+	private final BookCatalogService catalogService;
 
 	@GetMapping("{id}")
-	@ApiOperation("Get a book")
-	public BookDTO get(@PathVariable Integer id) {
-		return service.getById(id).map(book -> modelMapper.map(book, BookDTO.class))
-				.orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+	@ApiOperation("Get a book; answers 304 when If-None-Match holds its current ETag")
+	public BookDTO get(@PathVariable Integer id, WebRequest request) {
+		Book book = service.getById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+		if (request.checkNotModified(EntityTags.of(book, representation(request)))) {
+			return null;
+		}
+		return bookMapper.toDto(book);
 	}
 
 	@PostMapping
 	@ResponseStatus(HttpStatus.CREATED)
 	public BookDTO create(@Valid @RequestBody BookDTO bookDTO) {
-		Book entity = modelMapper.map(bookDTO, Book.class);
+		Book entity = bookMapper.toEntity(bookDTO);
 		entity = service.save(entity);
-		return modelMapper.map(entity, BookDTO.class);
+		return bookMapper.toDto(entity);
+	}
+
+	@PostMapping(value = "bulk", consumes = "application/x-ndjson")
+	@ApiOperation("Import books from a NDJSON feed, one book per line")
+	public BulkImportResultDTO bulkImport(HttpServletRequest request) throws IOException {
+		return catalogService.importBooks(request.getInputStream());
+	}
+
+	@GetMapping("export")
+	@ApiOperation("Export the whole catalog as CSV or NDJSON")
+	public void export(@RequestParam(defaultValue = "ndjson") String format, HttpServletResponse response)
+			throws IOException {
+		ExportFormat exportFormat = Arrays.stream(ExportFormat.values())
+				.filter(value -> value.getExtension().equalsIgnoreCase(format))
+				.findFirst()
+				.orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported export format"));
+		response.setContentType(exportFormat.getContentType() + ";charset=UTF-8");
+		response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=books." + exportFormat.getExtension());
+		catalogService.exportBooks(exportFormat, response.getOutputStream());
 	}
 
 	@DeleteMapping("{id}")
@@ -64,38 +106,69 @@ public class BookController {
 	}
 
 	@PutMapping("{id}")
-	public BookDTO update(@PathVariable Integer id, @RequestBody @Valid BookDTO dto) {
-		return service.getById(id).map(book -> {
-			book.setAuthor(dto.getAuthor());
-			book.setTitle(dto.getTitle());
-			book = service.update(book);
-			return modelMapper.map(book, BookDTO.class);
-		}).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+	@ApiOperation("Update a book; with If-Match, only while it still holds the given ETag")
+	public BookDTO update(@PathVariable Integer id, @RequestBody @Valid BookDTO dto,
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+			WebRequest request, HttpServletResponse response) {
+		Book book = service.getById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+		if (ifMatch != null && !EntityTags.matches(ifMatch, book)) {
+			throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "Book was modified");
+		}
+		book.setAuthor(dto.getAuthor());
+		book.setTitle(dto.getTitle());
+		book = service.update(book);
+		response.setHeader(HttpHeaders.ETAG, EntityTags.of(book, representation(request)));
+		return bookMapper.toDto(book);
 	}
 	
 	@GetMapping
-	public Page<BookDTO> find(BookDTO bookDto, Pageable pageRequest){
-		Book filter = modelMapper.map(bookDto, Book.class);
+	public Page<BookDTO> find(BookDTO bookDto, Pageable pageRequest, WebRequest request){
+		Book filter = bookMapper.toEntity(bookDto);
 		Page<Book> result = service.find(filter, pageRequest);
-		List<BookDTO> list = result.getContent().stream().map(entity -> modelMapper.map(entity, BookDTO.class)).collect(Collectors.toList());
+		if (request.checkNotModified(EntityTags.of(result, representation(request)))) {
+			return null;
+		}
+		List<BookDTO> list = result.getContent().stream().map(bookMapper::toDto).collect(Collectors.toList());
 		return new PageImpl<BookDTO>(list, pageRequest, result.getTotalElements());
 	}
 
+	@GetMapping(params = "after")
+	@ApiOperation("Find books by keyset, ordered by id")
+	public KeysetPageDTO<BookDTO> findAfter(BookDTO bookDto, @RequestParam String after,
+			@RequestParam(defaultValue = "20") Integer size) {
+		Book filter = bookMapper.toEntity(bookDto);
+		Slice<Book> result = service.findAfter(filter, KeysetCursor.decode(after), KeysetCursor.checkSize(size));
+		List<BookDTO> list = result.getContent().stream().map(bookMapper::toDto).collect(Collectors.toList());
+		return KeysetPageDTO.of(list, result, BookDTO::getId);
+	}
+
 	@GetMapping("{id}/loans")
 	public Page<LoanDTO> loansByBook(@PathVariable Integer id, Pageable pageable){
 		Book book = service.getById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
 		Page<Loan> result =  loanService.getLoansByBook(book, pageable);
-		List<LoanDTO> list = result.getContent()
-				.stream()
-				.map(loan -> {
-					Book loanBook = loan.getBook();
-					BookDTO bookDto = modelMapper.map(loanBook, BookDTO.class);
-					LoanDTO loanDto = modelMapper.map(loan, LoanDTO.class);
-					loanDto.setBook(bookDto);
-					return loanDto;
-		}).collect(Collectors.toList());
+		List<LoanDTO> list = result.getContent().stream().map(loanMapper::toDto).collect(Collectors.toList());
         return new PageImpl<LoanDTO>(list, pageable, result.getTotalElements());
 	}
-	
+
+	@GetMapping(value = "{id}/loans", params = "after")
+	@ApiOperation("Find the loans of a book by keyset, ordered by id")
+	public KeysetPageDTO<LoanDTO> loansByBookAfter(@PathVariable Integer id, @RequestParam String after,
+			@RequestParam(defaultValue = "20") Integer size) {
+		Book book = service.getById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+		Slice<Loan> result = loanService.getLoansByBookAfter(book, KeysetCursor.decode(after), KeysetCursor.checkSize(size));
+		List<LoanDTO> list = result.getContent().stream().map(loanMapper::toDto).collect(Collectors.toList());
+		return KeysetPageDTO.of(list, result, LoanDTO::getId);
+	}
+
+	/** The representation the request negotiates; the response varies on it. */
+	private static MediaType representation(WebRequest request) {
+		if (request instanceof NativeWebRequest) {
+			HttpServletResponse response = ((NativeWebRequest) request).getNativeResponse(HttpServletResponse.class);
+			if (response != null) {
+				response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+			}
+		}
+		return EntityTags.representation(request.getHeader(HttpHeaders.ACCEPT));
+	}
 
 }
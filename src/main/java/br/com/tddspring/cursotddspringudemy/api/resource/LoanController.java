@@ -4,10 +4,10 @@ import java.time.LocalDate;
 import java.util.List;
 import java.util.stream.Collectors;
 
-import org.modelmapper.ModelMapper;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
@@ -15,16 +15,20 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
 
-import br.com.tddspring.cursotddspringudemy.api.dto.BookDTO;
+import br.com.tddspring.cursotddspringudemy.api.KeysetCursor;
+import br.com.tddspring.cursotddspringudemy.api.dto.KeysetPageDTO;
 import br.com.tddspring.cursotddspringudemy.api.dto.LoanDTO;
 import br.com.tddspring.cursotddspringudemy.api.dto.LoanFilterDTO;
 import br.com.tddspring.cursotddspringudemy.api.dto.ReturnedLoanDTO;
+import br.com.tddspring.cursotddspringudemy.api.mapper.LoanMapper;
 import br.com.tddspring.cursotddspringudemy.model.entity.Book;
 import br.com.tddspring.cursotddspringudemy.model.entity.Loan;
+import br.com.tddspring.cursotddspringudemy.model.projection.LoanSummary;
 import br.com.tddspring.cursotddspringudemy.service.BookService;
 import br.com.tddspring.cursotddspringudemy.service.LoanService;
 import lombok.RequiredArgsConstructor;
@@ -36,7 +40,7 @@ public class LoanController {
 
 	private final LoanService service;
 	private final BookService bookService;
-	private final ModelMapper modelMapper;
+	private final LoanMapper loanMapper;
 	
 	@PostMapping
 	@ResponseStatus(HttpStatus.CREATED)
@@ -56,17 +60,17 @@ public class LoanController {
 	
 	@GetMapping
 	public Page<LoanDTO> find(LoanFilterDTO dto, Pageable pageRequest){
-		Page<Loan> result = service.find(dto, pageRequest);
-		List<LoanDTO> loans =result.getContent()
-		.stream()
-		.map(entity -> {
-			Book book = entity.getBook();
-			BookDTO bookDto = modelMapper.map(book, BookDTO.class);
-			LoanDTO loanDto = modelMapper.map(entity, LoanDTO.class);
-			loanDto.setBook(bookDto);
-			return loanDto;
-			}).collect(Collectors.toList());
+		Page<LoanSummary> result = service.findSummaries(dto, pageRequest);
+		List<LoanDTO> loans = result.getContent().stream().map(loanMapper::toDto).collect(Collectors.toList());
 		return new PageImpl<LoanDTO>(loans, pageRequest, result.getTotalElements());
 	}
 	
+	@GetMapping(params = "after")
+	public KeysetPageDTO<LoanDTO> findAfter(LoanFilterDTO dto, @RequestParam String after,
+			@RequestParam(defaultValue = "20") Integer size) {
+		Slice<Loan> result = service.findAfter(dto, KeysetCursor.decode(after), KeysetCursor.checkSize(size));
+		List<LoanDTO> loans = result.getContent().stream().map(loanMapper::toDto).collect(Collectors.toList());
+		return KeysetPageDTO.of(loans, result, LoanDTO::getId);
+	}
+	
 }
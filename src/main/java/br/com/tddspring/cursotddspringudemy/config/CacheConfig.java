@@ -0,0 +1,12 @@
+package br.com.tddspring.cursotddspringudemy.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+	public static final String BOOKS_BY_ISBN = "booksByIsbn";
+
+}
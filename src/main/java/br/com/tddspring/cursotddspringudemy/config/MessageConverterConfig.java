@@ -0,0 +1,40 @@
+package br.com.tddspring.cursotddspringudemy.config;
+
+import java.util.List;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/**
+ * Binary renditions of the API bodies, picked by {@code Accept}:
+ * {@code application/cbor} and {@code application/x-jackson-smile}. They are
+ * appended after the default converters, so JSON still answers wildcard or
+ * missing {@code Accept} headers. Both mappers come from the
+ * application's builder and share its {@code spring.jackson.*} settings.
+ */
+@Configuration
+public class MessageConverterConfig implements WebMvcConfigurer {
+
+	private final ObjectProvider<Jackson2ObjectMapperBuilder> builders;
+
+	public MessageConverterConfig(ObjectProvider<Jackson2ObjectMapperBuilder> builders) {
+		this.builders = builders;
+	}
+
+	@Override
+	public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+		converters.add(new MappingJackson2CborHttpMessageConverter(
+				builders.getObject().factory(new CBORFactory()).build()));
+		converters.add(new MappingJackson2SmileHttpMessageConverter(
+				builders.getObject().factory(new SmileFactory()).build()));
+	}
+
+}
@@ -0,0 +1,91 @@
+package br.com.tddspring.cursotddspringudemy.config;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Times every public service method and every repository call, tagged by
+ * class, method and outcome: {@code success}, or the simple name of the
+ * exception thrown ({@code BusinessException} for rule violations).
+ *
+ * Percentiles and max are computed over a sliding window of
+ * {@code application.metrics.window}, which is what
+ * {@link SlowOperationsEndpoint} reports; counts and totals are cumulative.
+ */
+@Aspect
+@Component
+public class OperationTimingAspect {
+
+	public static final String SERVICE_TIMER = "service.calls";
+	public static final String REPOSITORY_TIMER = "repository.calls";
+	static final String SUCCESS = "success";
+
+	private final MeterRegistry registry;
+	private final Duration window;
+	private final Map<String, Timer> successTimers = new ConcurrentHashMap<>();
+	private final Map<Class<?>, String> repositoryNames = new ConcurrentHashMap<>();
+
+	public OperationTimingAspect(MeterRegistry registry, @Value("${application.metrics.window}") Duration window) {
+		this.registry = registry;
+		this.window = window;
+	}
+
+	@Around("within(br.com.tddspring.cursotddspringudemy.service.impl..*) && execution(public * *(..))")
+	public Object timeService(ProceedingJoinPoint call) throws Throwable {
+		return time(SERVICE_TIMER, AopUtils.getTargetClass(call.getTarget()).getSimpleName(), call);
+	}
+
+	@Around("execution(* org.springframework.data.repository.Repository+.*(..))")
+	public Object timeRepository(ProceedingJoinPoint call) throws Throwable {
+		return time(REPOSITORY_TIMER, repositoryNames.computeIfAbsent(call.getTarget().getClass(),
+				OperationTimingAspect::repositoryName), call);
+	}
+
+	private Object time(String name, String type, ProceedingJoinPoint call) throws Throwable {
+		String method = call.getSignature().getName();
+		Timer.Sample sample = Timer.start(registry);
+		try {
+			Object result = call.proceed();
+			sample.stop(successTimers.computeIfAbsent(name + ':' + type + '.' + method,
+					key -> timer(name, type, method, SUCCESS)));
+			return result;
+		} catch (Throwable e) {
+			sample.stop(timer(name, type, method, e.getClass().getSimpleName()));
+			throw e;
+		}
+	}
+
+	private Timer timer(String name, String type, String method, String outcome) {
+		return Timer.builder(name)
+				.tag("class", type)
+				.tag("method", method)
+				.tag("outcome", outcome)
+				.publishPercentiles(0.5, 0.95, 0.99)
+				.publishPercentileHistogram()
+				.distributionStatisticExpiry(window)
+				.register(registry);
+	}
+
+	/** The application interface behind a Spring Data proxy, e.g. {@code BookRepository}. */
+	private static String repositoryName(Class<?> proxyClass) {
+		return Arrays.stream(proxyClass.getInterfaces())
+				.filter(Repository.class::isAssignableFrom)
+				.findFirst()
+				.map(Class::getSimpleName)
+				.orElse(proxyClass.getSimpleName());
+	}
+
+}
@@ -0,0 +1,89 @@
+package br.com.tddspring.cursotddspringudemy.config;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+
+import br.com.tddspring.cursotddspringudemy.config.ReplicaRoutingDataSource.Target;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Primary and read replica pools, switched on by setting
+ * {@code application.datasource.replica.url}. The application keeps a single
+ * {@link DataSource} that sends read-only transactions to the replica; each
+ * pool reports its own {@code hikaricp.*} metrics, tagged by pool name.
+ *
+ * The pools are not beans themselves: Boot's datasource initializer runs for
+ * every {@link DataSource} bean and asks for the primary one, which is the
+ * routing datasource still being built from these pools.
+ */
+@Configuration
+@ConditionalOnProperty("application.datasource.replica.url")
+public class ReadReplicaConfig {
+
+	private final HikariDataSource primary;
+	private final HikariDataSource replica;
+
+	public ReadReplicaConfig(DataSourceProperties properties, Environment environment,
+			MeterRegistry registry) {
+		Binder binder = Binder.get(environment);
+		this.primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+		binder.bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+		this.primary.setPoolName("primary");
+		this.primary.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+
+		this.replica = DataSourceBuilder.create().type(HikariDataSource.class)
+				.url(environment.getRequiredProperty("application.datasource.replica.url"))
+				.username(environment.getProperty("application.datasource.replica.username", "sa"))
+				.password(environment.getProperty("application.datasource.replica.password", ""))
+				.build();
+		binder.bind("application.datasource.replica.hikari", Bindable.ofInstance(replica));
+		this.replica.setPoolName("replica");
+		this.replica.setReadOnly(true);
+		this.replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+	}
+
+	@Bean
+	public ReplicaLagMonitor replicaLagMonitor(@Value("${application.datasource.replica.max-lag}") Duration maxLag,
+			MeterRegistry registry) {
+		return new ReplicaLagMonitor(primary, replica, maxLag, registry);
+	}
+
+	@Bean
+	@Primary
+	public DataSource dataSource(ReplicaLagMonitor lagMonitor, MeterRegistry registry) {
+		Map<Object, Object> targets = new HashMap<>();
+		targets.put(Target.PRIMARY, primary);
+		targets.put(Target.REPLICA, replica);
+		ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(lagMonitor, registry);
+		routing.setTargetDataSources(targets);
+		routing.setDefaultTargetDataSource(primary);
+		routing.afterPropertiesSet();
+		return new LazyConnectionDataSourceProxy(routing);
+	}
+
+	@PreDestroy
+	public void close() {
+		replica.close();
+		primary.close();
+	}
+
+}
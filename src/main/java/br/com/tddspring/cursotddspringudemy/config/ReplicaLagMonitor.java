@@ -0,0 +1,75 @@
+package br.com.tddspring.cursotddspringudemy.config;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Measures replica lag with a heartbeat row: every check reads the replica's
+ * copy of the row, then stamps the primary's with the current time. The lag
+ * is how old the replica's copy is, so it includes the check interval;
+ * {@code max-lag} should be larger than that interval.
+ *
+ * The replica counts as stale, and reads fall back to the primary, when the
+ * lag exceeds {@code max-lag} or the last check failed.
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+
+	static final String HEARTBEAT_SOURCE = "primary";
+
+	private final JdbcTemplate primary;
+	private final JdbcTemplate replica;
+	private final Duration maxLag;
+
+	private volatile Duration lag;
+
+	public ReplicaLagMonitor(DataSource primary, DataSource replica, Duration maxLag, MeterRegistry registry) {
+		this.primary = new JdbcTemplate(primary);
+		this.replica = new JdbcTemplate(replica);
+		this.maxLag = maxLag;
+		Gauge.builder("datasource.replica.lag", this, monitor -> {
+			Duration current = monitor.lag;
+			return current == null ? Double.NaN : current.toMillis() / 1000.0;
+		}).description("Age of the replica's heartbeat copy").baseUnit("seconds").register(registry);
+	}
+
+	@Scheduled(fixedDelayString = "${application.datasource.replica.lag-check-ms}")
+	public void check() {
+		LocalDateTime now = LocalDateTime.now();
+		try {
+			List<Timestamp> seen = replica.queryForList("select beat_at from replica_heartbeat where source = ?",
+					Timestamp.class, HEARTBEAT_SOURCE);
+			lag = seen.isEmpty() ? null : Duration.between(seen.get(0).toLocalDateTime(), now);
+		} catch (DataAccessException e) {
+			log.warn("Could not read the replica heartbeat: {}", e.getMessage());
+			lag = null;
+		}
+		try {
+			if (primary.update("update replica_heartbeat set beat_at = ? where source = ?", now,
+					HEARTBEAT_SOURCE) == 0) {
+				primary.update("insert into replica_heartbeat (source, beat_at) values (?, ?)", HEARTBEAT_SOURCE,
+						now);
+			}
+		} catch (DataAccessException e) {
+			log.warn("Could not write the primary heartbeat: {}", e.getMessage());
+		}
+	}
+
+	public boolean isReplicaFresh() {
+		Duration current = lag;
+		return current != null && current.compareTo(maxLag) <= 0;
+	}
+
+}
@@ -0,0 +1,55 @@
+package br.com.tddspring.cursotddspringudemy.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Hands out replica connections inside read-only transactions while the
+ * replica is fresh enough, and primary connections otherwise. Must sit behind
+ * a {@code LazyConnectionDataSourceProxy}: the read-only flag is only set
+ * once the transaction has begun, after the connection was asked for.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+	public enum Target {
+		PRIMARY, REPLICA
+	}
+
+	private final ReplicaLagMonitor lagMonitor;
+	private final Counter writes;
+	private final Counter reads;
+	private final Counter staleReads;
+
+	public ReplicaRoutingDataSource(ReplicaLagMonitor lagMonitor, MeterRegistry registry) {
+		this.lagMonitor = lagMonitor;
+		this.writes = counter(registry, Target.PRIMARY, "write");
+		this.reads = counter(registry, Target.REPLICA, "read");
+		this.staleReads = counter(registry, Target.PRIMARY, "stale");
+	}
+
+	private static Counter counter(MeterRegistry registry, Target target, String reason) {
+		return Counter.builder("datasource.routing")
+				.description("Connections handed out by the replica routing datasource")
+				.tag("target", target.name().toLowerCase())
+				.tag("reason", reason)
+				.register(registry);
+	}
+
+	@Override
+	protected Object determineCurrentLookupKey() {
+		if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+			writes.increment();
+			return Target.PRIMARY;
+		}
+		if (!lagMonitor.isReplicaFresh()) {
+			staleReads.increment();
+			return Target.PRIMARY;
+		}
+		reads.increment();
+		return Target.REPLICA;
+	}
+
+}
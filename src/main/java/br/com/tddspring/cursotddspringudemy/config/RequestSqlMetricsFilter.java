@@ -0,0 +1,57 @@
+package br.com.tddspring.cursotddspringudemy.config;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.boot.actuate.metrics.web.servlet.WebMvcTags;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import br.com.tddspring.cursotddspringudemy.config.SqlStatementRecorder.SqlCount;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Counts the statements each request runs and the time spent in JDBC, next
+ * to {@code http.server.requests} and with the same method and uri tags:
+ * {@code http.server.requests.sql.statements} and
+ * {@code http.server.requests.sql.time}. Registered by {@link SqlMonitoringConfig}.
+ */
+public class RequestSqlMetricsFilter extends OncePerRequestFilter {
+
+	public static final String STATEMENTS = "http.server.requests.sql.statements";
+	public static final String TIME = "http.server.requests.sql.time";
+
+	private final SqlStatementRecorder recorder;
+	private final MeterRegistry registry;
+
+	public RequestSqlMetricsFilter(SqlStatementRecorder recorder, MeterRegistry registry) {
+		this.recorder = recorder;
+		this.registry = registry;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+			throws ServletException, IOException {
+		recorder.begin();
+		try {
+			chain.doFilter(request, response);
+		} finally {
+			SqlCount count = recorder.end();
+			Tags tags = Tags.of(WebMvcTags.method(request), WebMvcTags.uri(request, response));
+			DistributionSummary.builder(STATEMENTS).tags(tags).baseUnit("statements")
+					.description("SQL statements run by a request")
+					.register(registry).record(count.getStatements());
+			Timer.builder(TIME).tags(tags)
+					.description("Time a request spent in JDBC calls")
+					.register(registry).record(count.getNanos(), TimeUnit.NANOSECONDS);
+		}
+	}
+
+}
@@ -0,0 +1,171 @@
+package br.com.tddspring.cursotddspringudemy.config;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import javax.persistence.metamodel.EntityType;
+import javax.sql.DataSource;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Fails startup when the database lacks an index or unique constraint the
+ * entities declare in {@link Table @Table}. Hibernate's schema validation
+ * checks tables and columns only, and the queries depend on the indexes as
+ * much: without them they still answer, just by scanning.
+ *
+ * An index counts as present when some index of the table starts with the
+ * declared columns, in order; a unique constraint needs a unique index on
+ * exactly its columns. Names are not compared, since databases name the
+ * indexes behind constraints their own way.
+ */
+@Slf4j
+@Component
+public class SchemaIndexVerifier {
+
+	private final EntityManagerFactory entityManagerFactory;
+	private final DataSource dataSource;
+
+	public SchemaIndexVerifier(EntityManagerFactory entityManagerFactory, DataSource dataSource) {
+		this.entityManagerFactory = entityManagerFactory;
+		this.dataSource = dataSource;
+	}
+
+	@PostConstruct
+	public void verify() throws SQLException {
+		List<RequiredIndex> required = requiredIndexes();
+		List<String> missing = new ArrayList<>();
+		try (Connection connection = dataSource.getConnection()) {
+			DatabaseMetaData metaData = connection.getMetaData();
+			Map<String, Collection<IndexColumns>> indexesByTable = new HashMap<>();
+			for (RequiredIndex index : required) {
+				Collection<IndexColumns> indexes = indexesByTable.get(index.table);
+				if (indexes == null) {
+					indexes = indexes(metaData, index.table);
+					indexesByTable.put(index.table, indexes);
+				}
+				if (indexes.stream().noneMatch(index::isSatisfiedBy)) {
+					missing.add(index.toString());
+				}
+			}
+		}
+		if (!missing.isEmpty()) {
+			throw new IllegalStateException("Database schema is missing indexes: " + String.join(", ", missing));
+		}
+		log.info("Verified {} indexes and unique constraints", required.size());
+	}
+
+	private List<RequiredIndex> requiredIndexes() {
+		SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+		List<RequiredIndex> required = new ArrayList<>();
+		for (EntityType<?> entity : entityManagerFactory.getMetamodel().getEntities()) {
+			Table table = entity.getJavaType().getAnnotation(Table.class);
+			if (table == null) {
+				continue;
+			}
+			String tableName = ((AbstractEntityPersister) sessionFactory.getMetamodel()
+					.entityPersister(entity.getJavaType())).getTableName();
+			for (Index index : table.indexes()) {
+				required.add(new RequiredIndex(tableName, index.name(), index.unique(),
+						Arrays.asList(index.columnList().split(","))));
+			}
+			for (UniqueConstraint constraint : table.uniqueConstraints()) {
+				required.add(new RequiredIndex(tableName, constraint.name(), true,
+						Arrays.asList(constraint.columnNames())));
+			}
+		}
+		return required;
+	}
+
+	private static Collection<IndexColumns> indexes(DatabaseMetaData metaData, String table) throws SQLException {
+		String name = metaData.storesUpperCaseIdentifiers() ? table.toUpperCase(Locale.ROOT)
+				: metaData.storesLowerCaseIdentifiers() ? table.toLowerCase(Locale.ROOT) : table;
+		Map<String, IndexColumns> indexes = new HashMap<>();
+		try (ResultSet rows = metaData.getIndexInfo(null, null, name, false, false)) {
+			while (rows.next()) {
+				String indexName = rows.getString("INDEX_NAME");
+				String column = rows.getString("COLUMN_NAME");
+				if (indexName == null || column == null) {
+					continue;
+				}
+				IndexColumns index = indexes.get(indexName);
+				if (index == null) {
+					index = new IndexColumns(!rows.getBoolean("NON_UNIQUE"));
+					indexes.put(indexName, index);
+				}
+				index.put(rows.getShort("ORDINAL_POSITION"), column);
+			}
+		}
+		return indexes.values();
+	}
+
+	private static class RequiredIndex {
+
+		private final String table;
+		private final String name;
+		private final boolean unique;
+		private final List<String> columns;
+
+		RequiredIndex(String table, String name, boolean unique, List<String> columns) {
+			this.table = table;
+			this.name = name;
+			this.unique = unique;
+			this.columns = columns.stream().map(column -> column.trim().toLowerCase(Locale.ROOT))
+					.collect(Collectors.toList());
+		}
+
+		boolean isSatisfiedBy(IndexColumns index) {
+			List<String> actual = index.columns();
+			if (unique) {
+				return index.unique && actual.equals(columns);
+			}
+			return actual.size() >= columns.size() && actual.subList(0, columns.size()).equals(columns);
+		}
+
+		@Override
+		public String toString() {
+			return name + (unique ? " unique" : "") + " on " + table + " (" + String.join(", ", columns) + ")";
+		}
+
+	}
+
+	private static class IndexColumns {
+
+		private final boolean unique;
+		private final Map<Short, String> byPosition = new TreeMap<>();
+
+		IndexColumns(boolean unique) {
+			this.unique = unique;
+		}
+
+		void put(short position, String column) {
+			byPosition.put(position, column.toLowerCase(Locale.ROOT));
+		}
+
+		List<String> columns() {
+			return new ArrayList<>(byPosition.values());
+		}
+
+	}
+
+}
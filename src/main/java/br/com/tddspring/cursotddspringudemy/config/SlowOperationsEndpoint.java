@@ -0,0 +1,109 @@
+package br.com.tddspring.cursotddspringudemy.config;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * {@code /actuator/slowops}: the operations timed by
+ * {@link OperationTimingAspect}, slowest p99 first, over the last
+ * {@code application.metrics.window}. Operations without calls in the window
+ * are left out.
+ */
+@Component
+@Endpoint(id = "slowops")
+public class SlowOperationsEndpoint {
+
+	static final int DEFAULT_LIMIT = 20;
+
+	private final MeterRegistry registry;
+	private final Duration window;
+
+	public SlowOperationsEndpoint(MeterRegistry registry, @Value("${application.metrics.window}") Duration window) {
+		this.registry = registry;
+		this.window = window;
+	}
+
+	@ReadOperation
+	public SlowOperations slowest(@Nullable Integer limit) {
+		List<SlowOperation> operations = Stream
+				.concat(registry.find(OperationTimingAspect.SERVICE_TIMER).timers().stream(),
+						registry.find(OperationTimingAspect.REPOSITORY_TIMER).timers().stream())
+				.map(this::summarize)
+				.filter(operation -> operation.getMaxMs() > 0)
+				.sorted(Comparator.comparingDouble(SlowOperation::getP99Ms).thenComparingDouble(SlowOperation::getMaxMs)
+						.reversed())
+				.limit(limit == null ? DEFAULT_LIMIT : limit)
+				.collect(Collectors.toList());
+		return new SlowOperations(window.toString(), operations);
+	}
+
+	private SlowOperation summarize(Timer timer) {
+		HistogramSnapshot snapshot = timer.takeSnapshot();
+		SlowOperation operation = SlowOperation.builder()
+				.kind(timer.getId().getName())
+				.operation(timer.getId().getTag("class") + "." + timer.getId().getTag("method"))
+				.outcome(timer.getId().getTag("outcome"))
+				.count(snapshot.count())
+				.maxMs(snapshot.max(TimeUnit.MILLISECONDS))
+				.build();
+		for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+			double millis = percentile.value(TimeUnit.MILLISECONDS);
+			if (percentile.percentile() == 0.5) {
+				operation.setP50Ms(millis);
+			} else if (percentile.percentile() == 0.95) {
+				operation.setP95Ms(millis);
+			} else if (percentile.percentile() == 0.99) {
+				operation.setP99Ms(millis);
+			}
+		}
+		return operation;
+	}
+
+	@Data
+	@AllArgsConstructor
+	@NoArgsConstructor
+	public static class SlowOperations {
+
+		private String window;
+		private List<SlowOperation> operations;
+
+	}
+
+	@Data
+	@Builder
+	@AllArgsConstructor
+	@NoArgsConstructor
+	public static class SlowOperation {
+
+		private String kind;
+		private String operation;
+		private String outcome;
+		/** Calls since startup; the latencies cover the window only. */
+		private long count;
+		private double p50Ms;
+		private double p95Ms;
+		private double p99Ms;
+		private double maxMs;
+
+	}
+
+}
@@ -0,0 +1,78 @@
+package br.com.tddspring.cursotddspringudemy.config;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The last {@code application.sql.slow-query-log-size} statements slower than
+ * {@code application.sql.slow-query-ms}, in a fixed ring: once full, each new
+ * entry replaces the oldest, so memory stays bounded however many statements
+ * are slow. Statements are stored normalized, literals replaced by {@code ?},
+ * so bound values never end up in the log.
+ */
+@Component
+public class SlowQueryLog {
+
+	static final int MAX_SQL_LENGTH = 2000;
+
+	private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+	private static final Pattern LITERALS = Pattern.compile("'(?:[^']|'')*'|\\b\\d+(?:\\.\\d+)?\\b");
+
+	private final AtomicReferenceArray<SlowQuery> entries;
+	private final AtomicLong next = new AtomicLong();
+
+	public SlowQueryLog(@Value("${application.sql.slow-query-log-size}") int size) {
+		this.entries = new AtomicReferenceArray<>(size);
+	}
+
+	public void add(SlowQuery query) {
+		entries.set((int) (next.getAndIncrement() % entries.length()), query);
+	}
+
+	/** The logged statements, newest first. */
+	public List<SlowQuery> entries() {
+		List<SlowQuery> result = new ArrayList<>(entries.length());
+		for (int i = 0; i < entries.length(); i++) {
+			SlowQuery query = entries.get(i);
+			if (query != null) {
+				result.add(query);
+			}
+		}
+		result.sort(Comparator.comparing(SlowQuery::getAt).reversed());
+		return result;
+	}
+
+	public static String normalize(String sql) {
+		String normalized = LITERALS.matcher(WHITESPACE.matcher(sql.trim()).replaceAll(" ")).replaceAll("?");
+		return normalized.length() > MAX_SQL_LENGTH ? normalized.substring(0, MAX_SQL_LENGTH) + "..." : normalized;
+	}
+
+	@Data
+	@Builder
+	@NoArgsConstructor
+	@AllArgsConstructor
+	public static class SlowQuery {
+
+		private Instant at;
+		private String sql;
+		private int binds;
+		private int batchSize;
+		private double durationMs;
+		private boolean success;
+
+	}
+
+}
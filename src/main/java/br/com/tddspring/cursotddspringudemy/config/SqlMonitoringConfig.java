@@ -0,0 +1,83 @@
+package br.com.tddspring.cursotddspringudemy.config;
+
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+
+/**
+ * Wraps the application's {@link DataSource} in a datasource-proxy that
+ * reports every statement to the {@link SqlStatementRecorder}. The recorder is
+ * looked up on the first statement: post-processors are created before
+ * ordinary beans, and asking for it here would create it, and its
+ * dependencies, too early.
+ *
+ * The request filter is declared here, not scanned, so that web slice tests
+ * do not pick it up without the recorder.
+ */
+@Configuration
+public class SqlMonitoringConfig {
+
+	@Bean
+	public static BeanPostProcessor sqlRecordingDataSourcePostProcessor(ObjectProvider<SqlStatementRecorder> recorder) {
+		QueryExecutionListener listener = new RecorderListener(recorder);
+		return new BeanPostProcessor() {
+
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				if (bean instanceof DataSource && !(bean instanceof ProxyDataSource)) {
+					return ProxyDataSourceBuilder.create((DataSource) bean).name(beanName).listener(listener).build();
+				}
+				return bean;
+			}
+
+		};
+	}
+
+	@Bean
+	public RequestSqlMetricsFilter requestSqlMetricsFilter(SqlStatementRecorder recorder, MeterRegistry registry) {
+		return new RequestSqlMetricsFilter(recorder, registry);
+	}
+
+	private static class RecorderListener implements QueryExecutionListener {
+
+		private final ObjectProvider<SqlStatementRecorder> provider;
+		private volatile SqlStatementRecorder recorder;
+
+		RecorderListener(ObjectProvider<SqlStatementRecorder> provider) {
+			this.provider = provider;
+		}
+
+		@Override
+		public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+			recorder().beforeQuery(execInfo, queryInfoList);
+		}
+
+		@Override
+		public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+			recorder().afterQuery(execInfo, queryInfoList);
+		}
+
+		private SqlStatementRecorder recorder() {
+			SqlStatementRecorder current = recorder;
+			if (current == null) {
+				current = provider.getObject();
+				recorder = current;
+			}
+			return current;
+		}
+
+	}
+
+}
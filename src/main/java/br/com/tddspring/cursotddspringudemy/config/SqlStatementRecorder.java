@@ -0,0 +1,101 @@
+package br.com.tddspring.cursotddspringudemy.config;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import br.com.tddspring.cursotddspringudemy.config.SlowQueryLog.SlowQuery;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+/**
+ * Sees every JDBC execution through the datasource proxy. Executions on a
+ * thread that called {@link #begin()} are added to that thread's
+ * {@link SqlCount}, which is how a request learns its statement count and
+ * JDBC time; slow ones also go to the {@link SlowQueryLog}.
+ *
+ * A batch counts as one statement: it is one round trip.
+ */
+@Component
+public class SqlStatementRecorder implements QueryExecutionListener {
+
+	private static final String START = SqlStatementRecorder.class.getName() + ".start";
+
+	private final SlowQueryLog slowQueryLog;
+	private final long slowQueryNanos;
+	private final ThreadLocal<SqlCount> current = new ThreadLocal<>();
+
+	public SqlStatementRecorder(SlowQueryLog slowQueryLog,
+			@Value("${application.sql.slow-query-ms}") long slowQueryMillis) {
+		this.slowQueryLog = slowQueryLog;
+		this.slowQueryNanos = TimeUnit.MILLISECONDS.toNanos(slowQueryMillis);
+	}
+
+	public void begin() {
+		current.set(new SqlCount());
+	}
+
+	/** Stops counting on this thread and returns what was counted since {@link #begin()}. */
+	public SqlCount end() {
+		SqlCount count = current.get();
+		current.remove();
+		return count == null ? new SqlCount() : count;
+	}
+
+	@Override
+	public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+		execInfo.addCustomValue(START, System.nanoTime());
+	}
+
+	@Override
+	public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+		Long start = execInfo.getCustomValue(START, Long.class);
+		long elapsed = start == null ? TimeUnit.MILLISECONDS.toNanos(execInfo.getElapsedTime())
+				: System.nanoTime() - start;
+		SqlCount count = current.get();
+		if (count != null) {
+			count.statements++;
+			count.nanos += elapsed;
+		}
+		if (elapsed >= slowQueryNanos) {
+			slowQueryLog.add(SlowQuery.builder()
+					.at(Instant.now())
+					.sql(queryInfoList.isEmpty() ? "" : SlowQueryLog.normalize(queryInfoList.get(0).getQuery()))
+					.binds(binds(queryInfoList))
+					.batchSize(execInfo.isBatch() ? execInfo.getBatchSize() : 1)
+					.durationMs(elapsed / 1_000_000.0)
+					.success(execInfo.isSuccess())
+					.build());
+		}
+	}
+
+	private static int binds(List<QueryInfo> queryInfoList) {
+		int binds = 0;
+		for (QueryInfo query : queryInfoList) {
+			for (List<?> parameters : query.getParametersList()) {
+				binds += parameters.size();
+			}
+		}
+		return binds;
+	}
+
+	public static class SqlCount {
+
+		private int statements;
+		private long nanos;
+
+		public int getStatements() {
+			return statements;
+		}
+
+		public long getNanos() {
+			return nanos;
+		}
+
+	}
+
+}
@@ -0,0 +1,117 @@
+package br.com.tddspring.cursotddspringudemy.config;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import br.com.tddspring.cursotddspringudemy.config.SlowQueryLog.SlowQuery;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * {@code /actuator/sqlstats}: statements per request by endpoint, most
+ * statements first, the slow-query log, newest first, and Hibernate's own
+ * counters. The fetch counters are the ones that grow with lazy or eager
+ * associations loaded one row at a time.
+ */
+@Component
+@Endpoint(id = "sqlstats")
+public class SqlStatsEndpoint {
+
+	private final MeterRegistry registry;
+	private final SlowQueryLog slowQueryLog;
+	private final Statistics statistics;
+
+	public SqlStatsEndpoint(MeterRegistry registry, SlowQueryLog slowQueryLog,
+			EntityManagerFactory entityManagerFactory) {
+		this.registry = registry;
+		this.slowQueryLog = slowQueryLog;
+		this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+	}
+
+	@ReadOperation
+	public SqlStats sqlStats() {
+		return new SqlStats(requests(), slowQueryLog.entries(), hibernate());
+	}
+
+	private List<RequestSql> requests() {
+		return registry.find(RequestSqlMetricsFilter.STATEMENTS).summaries().stream()
+				.map(this::summarize)
+				.sorted(Comparator.comparingDouble(RequestSql::getStatementsMax).reversed())
+				.collect(Collectors.toList());
+	}
+
+	private RequestSql summarize(DistributionSummary statements) {
+		String method = statements.getId().getTag("method");
+		String uri = statements.getId().getTag("uri");
+		Timer time = registry.find(RequestSqlMetricsFilter.TIME).tag("method", method).tag("uri", uri).timer();
+		return RequestSql.builder()
+				.method(method)
+				.uri(uri)
+				.requests(statements.count())
+				.statementsMean(statements.mean())
+				.statementsMax(statements.max())
+				.jdbcTimeMeanMs(time == null ? 0 : time.mean(TimeUnit.MILLISECONDS))
+				.jdbcTimeMaxMs(time == null ? 0 : time.max(TimeUnit.MILLISECONDS))
+				.build();
+	}
+
+	private Map<String, Object> hibernate() {
+		Map<String, Object> hibernate = new LinkedHashMap<>();
+		hibernate.put("enabled", statistics.isStatisticsEnabled());
+		hibernate.put("preparedStatements", statistics.getPrepareStatementCount());
+		hibernate.put("queryExecutions", statistics.getQueryExecutionCount());
+		hibernate.put("queryExecutionMaxTimeMs", statistics.getQueryExecutionMaxTime());
+		hibernate.put("slowestQuery", statistics.getQueryExecutionMaxTimeQueryString());
+		hibernate.put("entityLoads", statistics.getEntityLoadCount());
+		hibernate.put("entityFetches", statistics.getEntityFetchCount());
+		hibernate.put("collectionLoads", statistics.getCollectionLoadCount());
+		hibernate.put("collectionFetches", statistics.getCollectionFetchCount());
+		return hibernate;
+	}
+
+	@Data
+	@AllArgsConstructor
+	@NoArgsConstructor
+	public static class SqlStats {
+
+		private List<RequestSql> requests;
+		private List<SlowQuery> slowQueries;
+		private Map<String, Object> hibernate;
+
+	}
+
+	@Data
+	@Builder
+	@AllArgsConstructor
+	@NoArgsConstructor
+	public static class RequestSql {
+
+		private String method;
+		private String uri;
+		private long requests;
+		private double statementsMean;
+		/** Over the last couple of minutes, like every Micrometer max. */
+		private double statementsMax;
+		private double jdbcTimeMeanMs;
+		private double jdbcTimeMaxMs;
+
+	}
+
+}
@@ -9,7 +9,10 @@ import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.OneToMany;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import javax.persistence.Version;
 
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -22,11 +25,14 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
-@Table
+@Table(uniqueConstraints = @UniqueConstraint(name = Book.ISBN_CONSTRAINT, columnNames = "isbn"))
 public class Book {
+
+	public static final String ISBN_CONSTRAINT = "uk_book_isbn";
 	
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "book_seq")
+	@SequenceGenerator(name = "book_seq", sequenceName = "book_seq", allocationSize = 50)
 	private Integer id;
 	@Column
 	private String title;
@@ -36,5 +42,12 @@ public class Book {
 	private String isbn;
 	@OneToMany(mappedBy = "book")
 	private List<Loan> loans;
+	/**
+	 * Bumped on every update; backs the ETags of the book resources and the
+	 * optimistic lock on concurrent updates.
+	 */
+	@Version
+	@Column
+	private Long version;
 	
 }
@@ -0,0 +1,48 @@
+package br.com.tddspring.cursotddspringudemy.model.entity;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Progress of a chunked batch job: the last id processed in the run of
+ * {@code runDate}, so a run that dies halfway resumes after that id. The
+ * {@code watermark} is where the run starts from: everything up to it was
+ * handled by earlier runs.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table
+public class JobCheckpoint {
+
+	@Id
+	private String job;
+
+	@Column
+	private LocalDate runDate;
+
+	@Column
+	private LocalDate watermark;
+
+	@Column
+	private Integer lastId;
+
+	@Column
+	private Boolean completed;
+
+	@Column
+	private LocalDateTime updatedAt;
+
+}
@@ -0,0 +1,36 @@
+package br.com.tddspring.cursotddspringudemy.model.entity;
+
+import java.time.LocalDateTime;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Cluster-wide lock on a scheduled job, held by one instance until
+ * {@code lockedUntil}. An instance that dies simply lets its lease lapse.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table
+public class JobLease {
+
+	@Id
+	private String name;
+
+	@Column
+	private String owner;
+
+	@Column
+	private LocalDateTime lockedUntil;
+
+}
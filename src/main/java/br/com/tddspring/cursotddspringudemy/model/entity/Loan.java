@@ -4,25 +4,39 @@ import java.time.LocalDate;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.ForeignKey;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
 import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import javax.persistence.Version;
 
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
 
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table
+@Table(uniqueConstraints = @UniqueConstraint(name = Loan.ACTIVE_BOOK_CONSTRAINT, columnNames = "active_book"),
+		indexes = { @Index(name = "idx_loan_book", columnList = "id_book, id"),
+				@Index(name = "idx_loan_customer", columnList = "customer, id"),
+				@Index(name = "idx_loan_due_date_returned", columnList = "due_date, returned") })
 public class Loan {
+
+	public static final String ACTIVE_BOOK_CONSTRAINT = "uk_loan_active_book";
 	
 	@Id
 	@GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -34,15 +48,45 @@ public class Loan {
 	@Column(name = "customer_email")
 	private String customerEmail;
 	
-	@JoinColumn(name = "id_book")
+	@JoinColumn(name = "id_book", foreignKey = @ForeignKey(name = "fk_loan_book"))
 	@ManyToOne
 	private Book book;
 	
 	@Column
 	private LocalDate loanDate;
+
+	/**
+	 * Last day of the loan; the loan is overdue from this day on while not
+	 * returned. Indexed with {@code returned} for the late-loan scan.
+	 */
+	@Column(name = "due_date", nullable = false)
+	private LocalDate dueDate;
 	
 	@Column
 	private Boolean returned;
+
+	/**
+	 * The book id while the loan is open, null once returned. Unique, so the
+	 * database allows a single open loan per book.
+	 */
+	@Column(name = "active_book")
+	@Setter(AccessLevel.NONE)
+	@EqualsAndHashCode.Exclude
+	private Integer activeBook;
+
+	/**
+	 * Bumped on every update, so two concurrent returns of the same loan
+	 * cannot both succeed.
+	 */
+	@Version
+	@Column
+	private Long version;
+
+	@PrePersist
+	@PreUpdate
+	void updateActiveBook() {
+		this.activeBook = book == null || Boolean.TRUE.equals(returned) ? null : book.getId();
+	}
 	
 
 }
@@ -0,0 +1,81 @@
+package br.com.tddspring.cursotddspringudemy.model.entity;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outbox row for a notification still to be sent. At most one per loan, type
+ * and period, so enqueueing the same overdue loan again is a no-op.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_notification_loan_period", columnNames = { "loan_id", "type", "period" }),
+		indexes = @Index(name = "idx_notification_status", columnList = "status, id"))
+public class Notification {
+
+	public enum Type {
+		LATE_LOAN
+	}
+
+	public enum Status {
+		PENDING, CLAIMED, SENT, FAILED
+	}
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notification_seq")
+	@SequenceGenerator(name = "notification_seq", sequenceName = "notification_seq", allocationSize = 50)
+	private Long id;
+
+	@Column(name = "loan_id")
+	private Integer loanId;
+
+	@Column
+	@Enumerated(EnumType.STRING)
+	private Type type;
+
+	@Column
+	private LocalDate period;
+
+	@Column
+	private String email;
+
+	@Column
+	@Enumerated(EnumType.STRING)
+	private Status status;
+
+	@Column
+	private Integer attempts;
+
+	@Column
+	private String claimToken;
+
+	@Column
+	private LocalDateTime claimedUntil;
+
+	@Column
+	private LocalDateTime createdAt;
+
+	@Column
+	private LocalDateTime sentAt;
+
+}
@@ -0,0 +1,33 @@
+package br.com.tddspring.cursotddspringudemy.model.entity;
+
+import java.time.LocalDateTime;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Written on the primary and read back from the read replica; how far behind
+ * the replica copy is tells how stale the replica is.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table
+public class ReplicaHeartbeat {
+
+	@Id
+	private String source;
+
+	@Column
+	private LocalDateTime beatAt;
+
+}
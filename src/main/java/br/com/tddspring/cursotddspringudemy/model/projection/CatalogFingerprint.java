@@ -0,0 +1,21 @@
+package br.com.tddspring.cursotddspringudemy.model.projection;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The number of books and the sums of their ids and versions. Inserting,
+ * deleting or updating any book changes it, so the search index compares its
+ * own with the database's to tell whether it missed writes.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogFingerprint {
+
+	private Long count;
+	private Long idSum;
+	private Long versionSum;
+
+}
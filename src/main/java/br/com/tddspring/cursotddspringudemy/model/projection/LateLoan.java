@@ -0,0 +1,22 @@
+package br.com.tddspring.cursotddspringudemy.model.projection;
+
+import java.time.LocalDate;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * What the late-loan job needs from an overdue loan: its id, to advance the
+ * scan, the address to warn and the due date it missed.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LateLoan {
+
+	private Integer id;
+	private String email;
+	private LocalDate dueDate;
+
+}
@@ -0,0 +1,24 @@
+package br.com.tddspring.cursotddspringudemy.model.projection;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Flat, read-only view of a loan and its book, built by a JPQL constructor
+ * expression so no {@code Loan} or {@code Book} entity gets managed.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoanSummary {
+
+	private Integer id;
+	private String customer;
+	private String email;
+	private Integer bookId;
+	private String isbn;
+	private String title;
+	private String author;
+
+}
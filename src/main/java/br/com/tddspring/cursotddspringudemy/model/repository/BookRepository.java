@@ -1,11 +1,22 @@
 package br.com.tddspring.cursotddspringudemy.model.repository;
 
+import java.util.Collection;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
+import javax.persistence.QueryHint;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import br.com.tddspring.cursotddspringudemy.model.entity.Book;
+import br.com.tddspring.cursotddspringudemy.model.projection.CatalogFingerprint;
 
 @Repository
 public interface BookRepository extends JpaRepository<Book, Integer> {
@@ -14,4 +25,31 @@ public interface BookRepository extends JpaRepository<Book, Integer> {
 
 	Optional<Book> findByIsbn(String isbn);
 
+	@QueryHints({ @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "1000"),
+			@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true"),
+			@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "false") })
+	@Query(value = "select b from Book b order by b.id")
+	Stream<Book> streamAll();
+
+	@QueryHints({ @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "1000") })
+	@Query(value = "select b.isbn from Book b")
+	Stream<String> streamAllIsbns();
+
+	@Query(value = "select new br.com.tddspring.cursotddspringudemy.model.projection.CatalogFingerprint("
+			+ " count(b), coalesce(sum(b.id), 0), coalesce(sum(b.version), 0)) from Book b")
+	CatalogFingerprint fingerprint();
+
+	Slice<Book> findByIdGreaterThanOrderByIdAsc(Integer after, Pageable pageable);
+
+	@Query(value = "select b.isbn from Book b where b.isbn in :isbns")
+	Set<String> findExistingIsbns(@Param("isbns") Collection<String> isbns);
+
+	@Query(value = "select b from Book b where b.id > :after"
+			+ " and (:title is null or lower(b.title) like lower(concat('%', :title, '%')))"
+			+ " and (:author is null or lower(b.author) like lower(concat('%', :author, '%')))"
+			+ " and (:isbn is null or lower(b.isbn) like lower(concat('%', :isbn, '%')))"
+			+ " order by b.id")
+	Slice<Book> findByFilterAfter(@Param("after") Integer after, @Param("title") String title,
+			@Param("author") String author, @Param("isbn") String isbn, Pageable pageable);
+
 }
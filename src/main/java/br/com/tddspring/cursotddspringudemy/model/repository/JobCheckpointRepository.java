@@ -0,0 +1,11 @@
+package br.com.tddspring.cursotddspringudemy.model.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import br.com.tddspring.cursotddspringudemy.model.entity.JobCheckpoint;
+
+@Repository
+public interface JobCheckpointRepository extends JpaRepository<JobCheckpoint, String> {
+
+}
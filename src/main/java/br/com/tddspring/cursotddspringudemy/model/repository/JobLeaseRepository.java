@@ -0,0 +1,36 @@
+package br.com.tddspring.cursotddspringudemy.model.repository;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import br.com.tddspring.cursotddspringudemy.model.entity.JobLease;
+
+@Repository
+public interface JobLeaseRepository extends JpaRepository<JobLease, String> {
+
+	/** Takes the lease when it is free, lapsed or already ours. */
+	@Transactional
+	@Modifying
+	@Query("update JobLease l set l.owner = :owner, l.lockedUntil = :until "
+			+ " where l.name = :name and (l.lockedUntil < :now or l.owner = :owner)")
+	int takeOver(@Param("name") String name, @Param("owner") String owner, @Param("until") LocalDateTime until,
+			@Param("now") LocalDateTime now);
+
+	/** Plain insert, so that two instances racing for a new lease cannot both win. */
+	@Transactional
+	@Modifying
+	@Query(value = "insert into job_lease (name, owner, locked_until) values (:name, :owner, :until)", nativeQuery = true)
+	int insert(@Param("name") String name, @Param("owner") String owner, @Param("until") LocalDateTime until);
+
+	@Transactional
+	@Modifying
+	@Query("update JobLease l set l.lockedUntil = :until where l.name = :name and l.owner = :owner")
+	int extend(@Param("name") String name, @Param("owner") String owner, @Param("until") LocalDateTime until);
+
+}
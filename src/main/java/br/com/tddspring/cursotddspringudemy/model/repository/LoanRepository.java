@@ -5,6 +5,7 @@ import java.util.List;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -12,20 +13,25 @@ import org.springframework.stereotype.Repository;
 
 import br.com.tddspring.cursotddspringudemy.model.entity.Book;
 import br.com.tddspring.cursotddspringudemy.model.entity.Loan;
+import br.com.tddspring.cursotddspringudemy.model.projection.LateLoan;
 
 @Repository
-public interface LoanRepository extends JpaRepository<Loan, Integer> {
-
-	@Query(value = "select case when (count(id) > 0) then true else false end from Loan where book = :book and (returned is null or returned is false)")
-	boolean existsByBookAndNotReturned(@Param("book") Book book);
-
-	@Query(value = " select l from Loan as l join l.book as b where b.isbn = :isbn or l.customer =:customer ")
-	Page<Loan> findByBookIsbnOrCustomer(@Param("isbn") String isbn, @Param("customer") String customer,
-			Pageable pageRequest);
+public interface LoanRepository extends JpaRepository<Loan, Integer>, LoanRepositoryCustom {
 
 	Page<Loan> findByBook(Book book, Pageable pageable);
 
-	@Query("select l from Loan l where l.loanDate <= :threeDaysAgo and (l.returned is null or l.returned is false)")
-	List<Loan> findByLoanDateLessThanAndNotReturned(@Param("threeDaysAgo") LocalDate threeDaysAgo);
+	Slice<Loan> findByBookAndIdGreaterThanOrderByIdAsc(Book book, Integer after, Pageable pageable);
+
+	/**
+	 * Open loans whose due date fell in {@code (dueAfter, dueUntil]}, in id
+	 * order after {@code after}; served by the (due_date, returned) index.
+	 */
+	@Query(" select new br.com.tddspring.cursotddspringudemy.model.projection.LateLoan(l.id, l.customerEmail, l.dueDate) "
+			+ " from Loan l where l.dueDate > :dueAfter and l.dueDate <= :dueUntil "
+			+ " and (l.returned is null or l.returned is false) "
+			+ " and l.id > :after and mod(l.id, :partitions) = :partition order by l.id ")
+	List<LateLoan> findLateLoansAfter(@Param("dueAfter") LocalDate dueAfter, @Param("dueUntil") LocalDate dueUntil,
+			@Param("after") Integer after, @Param("partition") int partition, @Param("partitions") int partitions,
+			Pageable pageable);
 
 }
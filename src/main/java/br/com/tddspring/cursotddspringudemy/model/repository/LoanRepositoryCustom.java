@@ -0,0 +1,25 @@
+package br.com.tddspring.cursotddspringudemy.model.repository;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import br.com.tddspring.cursotddspringudemy.model.entity.Loan;
+import br.com.tddspring.cursotddspringudemy.model.projection.LoanSummary;
+
+/**
+ * Loans of the book with an isbn or of a customer. Sorts accept id,
+ * customer, customerEmail, loanDate and dueDate; any other property is a bad
+ * request.
+ */
+public interface LoanRepositoryCustom {
+
+	Page<Loan> findByBookIsbnOrCustomer(String isbn, String customer, Pageable pageable);
+
+	/** As {@link #findByBookIsbnOrCustomer}, without loading the entities. */
+	Page<LoanSummary> findSummariesByBookIsbnOrCustomer(String isbn, String customer, Pageable pageable);
+
+	/** The next page after the loan {@code after}, in id order; the sort of {@code pageable} is ignored. */
+	Slice<Loan> findByBookIsbnOrCustomerAfter(String isbn, String customer, Integer after, Pageable pageable);
+
+}
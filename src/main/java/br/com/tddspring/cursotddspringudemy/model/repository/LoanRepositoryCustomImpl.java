@@ -0,0 +1,144 @@
+package br.com.tddspring.cursotddspringudemy.model.repository;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.repository.support.PageableExecutionUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import br.com.tddspring.cursotddspringudemy.model.entity.Loan;
+import br.com.tddspring.cursotddspringudemy.model.projection.LoanSummary;
+
+/**
+ * An {@code or} across the loan/book join cannot use either index, so the
+ * matching ids come from a {@code union} of two indexed lookups: the book's
+ * loans through {@code uk_book_isbn} then {@code idx_loan_book}, and the
+ * customer's through {@code idx_loan_customer}. A page of ids is read first,
+ * then its rows. JPQL has no {@code union}, so the id queries are native and
+ * the sort properties are mapped to columns here.
+ */
+public class LoanRepositoryCustomImpl implements LoanRepositoryCustom {
+
+	private static final String IDS = " select l.id from loan l join book b on b.id = l.id_book where b.isbn = :isbn "
+			+ " union select l.id from loan l where l.customer = :customer ";
+
+	// each side reads its (id_book, id) or (customer, id) index from the cursor
+	// and stops at the page, so the union only merges two pages
+	private static final String IDS_AFTER = " (select l.id from loan l where l.id_book = (select b.id from book b where b.isbn = :isbn) "
+			+ " and l.id > :after order by l.id_book, l.id limit :limit) "
+			+ " union (select l.id from loan l where l.customer = :customer and l.id > :after order by l.customer, l.id limit :limit) ";
+
+	private static final Map<String, String> SORT_COLUMNS;
+
+	static {
+		Map<String, String> columns = new LinkedHashMap<>();
+		columns.put("id", "l.id");
+		columns.put("customer", "l.customer");
+		columns.put("customerEmail", "l.customer_email");
+		columns.put("loanDate", "l.loan_date");
+		columns.put("dueDate", "l.due_date");
+		SORT_COLUMNS = Collections.unmodifiableMap(columns);
+	}
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Override
+	public Page<Loan> findByBookIsbnOrCustomer(String isbn, String customer, Pageable pageable) {
+		List<Integer> ids = findIds(isbn, customer, pageable);
+		return PageableExecutionUtils.getPage(loans(ids), pageable, () -> count(isbn, customer));
+	}
+
+	@Override
+	public Page<LoanSummary> findSummariesByBookIsbnOrCustomer(String isbn, String customer, Pageable pageable) {
+		List<Integer> ids = findIds(isbn, customer, pageable);
+		List<LoanSummary> summaries = ids.isEmpty() ? Collections.emptyList()
+				: inOrder(ids, entityManager.createQuery(" select new br.com.tddspring.cursotddspringudemy.model.projection.LoanSummary("
+						+ " l.id, l.customer, l.customerEmail, b.id, b.isbn, b.title, b.author) "
+						+ " from Loan l join l.book b where l.id in :ids ", LoanSummary.class)
+						.setParameter("ids", ids).getResultList(), LoanSummary::getId);
+		return PageableExecutionUtils.getPage(summaries, pageable, () -> count(isbn, customer));
+	}
+
+	@Override
+	public Slice<Loan> findByBookIsbnOrCustomerAfter(String isbn, String customer, Integer after, Pageable pageable) {
+		int size = pageable.getPageSize();
+		List<Integer> ids = ids(entityManager.createNativeQuery(" select ids.id from (" + IDS_AFTER + ") ids order by ids.id ")
+				.setParameter("isbn", isbn).setParameter("customer", customer).setParameter("after", after)
+				.setParameter("limit", size + 1).setMaxResults(size + 1));
+		boolean hasNext = ids.size() > size;
+		return new SliceImpl<>(loans(hasNext ? ids.subList(0, size) : ids), pageable, hasNext);
+	}
+
+	private List<Integer> findIds(String isbn, String customer, Pageable pageable) {
+		Query query = entityManager.createNativeQuery(idsQuery(pageable.getSort()))
+				.setParameter("isbn", isbn).setParameter("customer", customer);
+		if (pageable.isPaged()) {
+			query.setFirstResult((int) pageable.getOffset()).setMaxResults(pageable.getPageSize());
+		}
+		return ids(query);
+	}
+
+	private String idsQuery(Sort sort) {
+		if (sort.isUnsorted()) {
+			return " select ids.id from (" + IDS + ") ids order by ids.id ";
+		}
+		// ties broken by id, so pages do not overlap
+		return " select l.id from (" + IDS + ") ids join loan l on l.id = ids.id order by "
+				+ sort.stream().map(order -> column(order.getProperty()) + (order.isAscending() ? " asc" : " desc"))
+						.collect(Collectors.joining(", "))
+				+ ", l.id ";
+	}
+
+	private long count(String isbn, String customer) {
+		return ((Number) entityManager.createNativeQuery(" select count(*) from (" + IDS + ") ids ")
+				.setParameter("isbn", isbn).setParameter("customer", customer).getSingleResult()).longValue();
+	}
+
+	private List<Loan> loans(List<Integer> ids) {
+		if (ids.isEmpty()) {
+			return Collections.emptyList();
+		}
+		return inOrder(ids, entityManager.createQuery(" select l from Loan l join fetch l.book where l.id in :ids ",
+				Loan.class).setParameter("ids", ids).getResultList(), Loan::getId);
+	}
+
+	private static <T> List<T> inOrder(List<Integer> ids, List<T> rows, Function<T, Integer> id) {
+		Map<Integer, Integer> positions = new HashMap<>();
+		for (int i = 0; i < ids.size(); i++) {
+			positions.put(ids.get(i), i);
+		}
+		rows.sort(Comparator.comparing(row -> positions.get(id.apply(row))));
+		return rows;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<Integer> ids(Query query) {
+		return ((List<Number>) query.getResultList()).stream().map(Number::intValue).collect(Collectors.toList());
+	}
+
+	private static String column(String property) {
+		String column = SORT_COLUMNS.get(property);
+		if (column == null) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid sort property " + property);
+		}
+		return column;
+	}
+
+}
@@ -0,0 +1,57 @@
+package br.com.tddspring.cursotddspringudemy.model.repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import br.com.tddspring.cursotddspringudemy.model.entity.Notification;
+import br.com.tddspring.cursotddspringudemy.model.entity.Notification.Status;
+import br.com.tddspring.cursotddspringudemy.model.entity.Notification.Type;
+
+@Repository
+public interface NotificationRepository extends JpaRepository<Notification, Long> {
+
+	@Query("select n.loanId from Notification n where n.type = :type and n.period = :period and n.loanId in :loanIds")
+	Set<Integer> findNotifiedLoanIds(@Param("type") Type type, @Param("period") LocalDate period,
+			@Param("loanIds") Collection<Integer> loanIds);
+
+	@Query("select n.id from Notification n where n.status = :pending "
+			+ " or (n.status = :claimed and n.claimedUntil < :now) order by n.id")
+	List<Long> findClaimableIds(@Param("pending") Status pending, @Param("claimed") Status claimed,
+			@Param("now") LocalDateTime now, Pageable pageable);
+
+	/**
+	 * Claims the given rows for {@code token}, skipping any another relay has
+	 * claimed in the meantime; the claim lapses at {@code until}.
+	 */
+	@Modifying
+	@Query("update Notification n set n.status = :claimed, n.claimToken = :token, n.claimedUntil = :until "
+			+ " where n.id in :ids and (n.status = :pending or (n.status = :claimed and n.claimedUntil < :now))")
+	int claim(@Param("ids") Collection<Long> ids, @Param("token") String token, @Param("until") LocalDateTime until,
+			@Param("now") LocalDateTime now, @Param("pending") Status pending, @Param("claimed") Status claimed);
+
+	List<Notification> findByClaimTokenOrderById(String claimToken);
+
+	boolean existsByIdAndClaimTokenAndClaimedUntilAfter(Long id, String claimToken, LocalDateTime now);
+
+	@Modifying
+	@Query("update Notification n set n.status = :status, n.sentAt = :sentAt, n.claimToken = null, n.claimedUntil = null "
+			+ " where n.id = :id and n.claimToken = :token")
+	int complete(@Param("id") Long id, @Param("token") String token, @Param("status") Status status,
+			@Param("sentAt") LocalDateTime sentAt);
+
+	@Modifying
+	@Query("update Notification n set n.status = :status, n.attempts = n.attempts + 1, n.claimToken = null, "
+			+ " n.claimedUntil = null where n.id = :id and n.claimToken = :token")
+	int release(@Param("id") Long id, @Param("token") String token, @Param("status") Status status);
+
+}
@@ -0,0 +1,41 @@
+package br.com.tddspring.cursotddspringudemy.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.springframework.stereotype.Service;
+
+import br.com.tddspring.cursotddspringudemy.api.dto.BulkImportResultDTO;
+
+@Service
+public interface BookCatalogService {
+
+	BulkImportResultDTO importBooks(InputStream ndjson) throws IOException;
+
+	void exportBooks(ExportFormat format, OutputStream out) throws IOException;
+
+	enum ExportFormat {
+
+		CSV("text/csv", "csv"),
+		NDJSON("application/x-ndjson", "ndjson");
+
+		private final String contentType;
+		private final String extension;
+
+		ExportFormat(String contentType, String extension) {
+			this.contentType = contentType;
+			this.extension = extension;
+		}
+
+		public String getContentType() {
+			return contentType;
+		}
+
+		public String getExtension() {
+			return extension;
+		}
+
+	}
+
+}
@@ -0,0 +1,26 @@
+package br.com.tddspring.cursotddspringudemy.service;
+
+import java.util.List;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import br.com.tddspring.cursotddspringudemy.model.entity.Book;
+
+public interface BookSearchIndex {
+
+	boolean isEnabled();
+
+	void index(Book book);
+
+	void indexAll(List<Book> books);
+
+	void remove(Book book);
+
+	/**
+	 * Ranked search by the title, author and isbn of the filter. Returns the
+	 * matching book ids, best match first.
+	 */
+	Page<Integer> search(Book filter, Pageable pageRequest);
+
+}
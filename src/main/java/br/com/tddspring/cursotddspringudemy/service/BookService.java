@@ -1,9 +1,13 @@
 package br.com.tddspring.cursotddspringudemy.service;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 
 import br.com.tddspring.cursotddspringudemy.model.entity.Book;
@@ -12,6 +16,8 @@ import br.com.tddspring.cursotddspringudemy.model.entity.Book;
 public interface BookService {
 
 	Book save(Book any);
+
+	List<Book> saveAll(List<Book> books);
 	
 	Optional<Book> getById(Integer id);
 
@@ -21,6 +27,10 @@ public interface BookService {
 	
 	Page<Book> find(Book filter, Pageable pageRequest);
 
+	Slice<Book> findAfter(Book filter, Integer afterId, int size);
+
 	Optional<Book> getBookByIsbn(String isbn);
 
+	Set<String> getExistingIsbns(Collection<String> isbns);
+
 }
@@ -1,6 +1,8 @@
 package br.com.tddspring.cursotddspringudemy.service;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BooleanSupplier;
 
 import org.springframework.stereotype.Service;
 
@@ -9,4 +11,8 @@ public interface EmailService {
 
 	void sendMails(String message, List<String> mailList);
 
+	CompletableFuture<Void> sendMail(String message, String mail);
+
+	CompletableFuture<Void> offerMail(String message, String mail, BooleanSupplier stillWanted);
+
 }
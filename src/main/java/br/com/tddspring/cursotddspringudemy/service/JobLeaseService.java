@@ -0,0 +1,18 @@
+package br.com.tddspring.cursotddspringudemy.service;
+
+import java.time.Duration;
+
+import org.springframework.stereotype.Service;
+
+@Service
+public interface JobLeaseService {
+
+	String owner();
+
+	boolean tryAcquire(String job, Duration ttl);
+
+	boolean renew(String job, Duration ttl);
+
+	void release(String job);
+
+}
@@ -1,15 +1,19 @@
 package br.com.tddspring.cursotddspringudemy.service;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 
 import br.com.tddspring.cursotddspringudemy.api.dto.LoanFilterDTO;
 import br.com.tddspring.cursotddspringudemy.model.entity.Book;
 import br.com.tddspring.cursotddspringudemy.model.entity.Loan;
+import br.com.tddspring.cursotddspringudemy.model.projection.LateLoan;
+import br.com.tddspring.cursotddspringudemy.model.projection.LoanSummary;
 
 @Service
 public interface LoanService {
@@ -21,9 +25,16 @@ public interface LoanService {
 	Loan update(Loan loan);
 
 	Page<Loan> find(LoanFilterDTO filter, Pageable pageable);
+
+	Page<LoanSummary> findSummaries(LoanFilterDTO filter, Pageable pageable);
+
+	Slice<Loan> findAfter(LoanFilterDTO filter, Integer afterId, int size);
 	
 	Page<Loan> getLoansByBook(Book book, Pageable pageable);
+
+	Slice<Loan> getLoansByBookAfter(Book book, Integer afterId, int size);
 	
-	List<Loan> getAllLateLoans();
+	List<LateLoan> getLateLoansAfter(LocalDate dueAfter, LocalDate dueUntil, Integer afterId, int size, int partition,
+			int partitions);
 
 }
@@ -0,0 +1,23 @@
+package br.com.tddspring.cursotddspringudemy.service;
+
+import java.util.List;
+
+import org.springframework.stereotype.Service;
+
+import br.com.tddspring.cursotddspringudemy.model.entity.Notification;
+import br.com.tddspring.cursotddspringudemy.model.projection.LateLoan;
+
+@Service
+public interface NotificationService {
+
+	int enqueueLateLoans(List<LateLoan> lateLoans);
+
+	List<Notification> claim(int size);
+
+	boolean isClaimed(Notification notification);
+
+	void ack(Notification notification);
+
+	void release(Notification notification);
+
+}
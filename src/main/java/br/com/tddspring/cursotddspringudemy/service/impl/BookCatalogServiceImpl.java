@@ -0,0 +1,253 @@
+package br.com.tddspring.cursotddspringudemy.service.impl;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import br.com.tddspring.cursotddspringudemy.api.dto.BookDTO;
+import br.com.tddspring.cursotddspringudemy.api.dto.BulkImportErrorDTO;
+import br.com.tddspring.cursotddspringudemy.api.dto.BulkImportResultDTO;
+import br.com.tddspring.cursotddspringudemy.exception.BusinessException;
+import br.com.tddspring.cursotddspringudemy.model.entity.Book;
+import br.com.tddspring.cursotddspringudemy.model.repository.BookRepository;
+import br.com.tddspring.cursotddspringudemy.service.BookCatalogService;
+import br.com.tddspring.cursotddspringudemy.service.BookService;
+
+/**
+ * Reads a NDJSON feed one line at a time and saves it in chunks. Each chunk
+ * costs one existence query for all of its isbns and one batched insert, in a
+ * transaction of its own, so the persistence context ends with the chunk and
+ * memory does not grow with the size of the feed. Exports go the other way: a
+ * forward-only cursor over the book table, each row detached once it is
+ * written to the response.
+ */
+@Service
+public class BookCatalogServiceImpl implements BookCatalogService {
+
+	public static final String DUPLICATED_ISBN = "Isbn já cadastrado.";
+	public static final String INVALID_JSON = "Invalid JSON";
+	public static final String REFUSED_BY_DATABASE = "Refused by the database";
+	public static final int MAX_REPORTED_ERRORS = 1000;
+
+	private final BookService bookService;
+	private final BookRepository bookRepository;
+	private final ObjectMapper objectMapper;
+	private final Validator validator;
+	private final EntityManager entityManager;
+	private final TransactionTemplate transactionTemplate;
+	private final int chunkSize;
+
+	public BookCatalogServiceImpl(BookService bookService, BookRepository bookRepository, ObjectMapper objectMapper,
+			Validator validator, EntityManager entityManager, PlatformTransactionManager transactionManager,
+			@Value("${application.books.import.chunk-size}") int chunkSize) {
+		this.bookService = bookService;
+		this.bookRepository = bookRepository;
+		this.objectMapper = objectMapper;
+		this.validator = validator;
+		this.entityManager = entityManager;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.chunkSize = chunkSize;
+	}
+
+	@Override
+	public BulkImportResultDTO importBooks(InputStream ndjson) throws IOException {
+		BulkImportResultDTO result = new BulkImportResultDTO();
+		BufferedReader reader = new BufferedReader(new InputStreamReader(ndjson, StandardCharsets.UTF_8));
+		List<ImportLine> chunk = new ArrayList<>(chunkSize);
+		int lineNumber = 0;
+		String text;
+		while ((text = reader.readLine()) != null) {
+			lineNumber++;
+			if (!StringUtils.hasText(text)) {
+				continue;
+			}
+			result.setRead(result.getRead() + 1);
+			BookDTO dto;
+			try {
+				dto = objectMapper.readValue(text, BookDTO.class);
+			} catch (JsonProcessingException e) {
+				reject(result, lineNumber, null, INVALID_JSON);
+				continue;
+			}
+			Set<ConstraintViolation<BookDTO>> violations = validator.validate(dto);
+			if (!violations.isEmpty()) {
+				reject(result, lineNumber, dto.getIsbn(), violations.stream()
+						.map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+						.sorted()
+						.collect(Collectors.joining(", ")));
+				continue;
+			}
+			chunk.add(new ImportLine(lineNumber,
+					Book.builder().title(dto.getTitle()).author(dto.getAuthor()).isbn(dto.getIsbn()).build()));
+			if (chunk.size() == chunkSize) {
+				saveChunk(chunk, result);
+				chunk.clear();
+			}
+		}
+		saveChunk(chunk, result);
+		return result;
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public void exportBooks(ExportFormat format, OutputStream out) throws IOException {
+		Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+		try (Stream<Book> books = bookRepository.streamAll()) {
+			if (format == ExportFormat.CSV) {
+				exportCsv(books, writer);
+			} else {
+				exportNdjson(books, writer);
+			}
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+		writer.flush();
+	}
+
+	private void exportCsv(Stream<Book> books, Writer writer) throws IOException {
+		writer.write("id,title,author,isbn\n");
+		books.forEach(book -> {
+			try {
+				writer.write(book.getId().toString());
+				writer.write(',');
+				writer.write(csv(book.getTitle()));
+				writer.write(',');
+				writer.write(csv(book.getAuthor()));
+				writer.write(',');
+				writer.write(csv(book.getIsbn()));
+				writer.write('\n');
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			entityManager.detach(book);
+		});
+	}
+
+	private void exportNdjson(Stream<Book> books, Writer writer) throws IOException {
+		JsonGenerator generator = objectMapper.getFactory().createGenerator(writer);
+		generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+		generator.setRootValueSeparator(null);
+		books.forEach(book -> {
+			try {
+				generator.writeStartObject();
+				generator.writeNumberField("id", book.getId());
+				generator.writeStringField("title", book.getTitle());
+				generator.writeStringField("author", book.getAuthor());
+				generator.writeStringField("isbn", book.getIsbn());
+				generator.writeEndObject();
+				generator.writeRaw('\n');
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			entityManager.detach(book);
+		});
+		generator.flush();
+	}
+
+	private String csv(String value) {
+		if (value == null) {
+			return "";
+		}
+		if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+			return value;
+		}
+		return '"' + value.replace("\"", "\"\"") + '"';
+	}
+
+	private void saveChunk(List<ImportLine> chunk, BulkImportResultDTO result) {
+		if (chunk.isEmpty()) {
+			return;
+		}
+		List<ImportLine> accepted = new ArrayList<>(chunk.size());
+		try {
+			// read-write, so the existence query reads the primary rather than a replica
+			transactionTemplate.execute(status -> {
+				Set<String> isbns = chunk.stream().map(line -> line.book.getIsbn()).collect(Collectors.toSet());
+				Set<String> existingIsbns = bookService.getExistingIsbns(isbns);
+				Set<String> acceptedIsbns = new HashSet<>();
+				for (ImportLine line : chunk) {
+					String isbn = line.book.getIsbn();
+					if (existingIsbns.contains(isbn) || !acceptedIsbns.add(isbn)) {
+						reject(result, line.number, isbn, DUPLICATED_ISBN);
+					} else {
+						accepted.add(line);
+					}
+				}
+				return bookService.saveAll(accepted.stream().map(line -> line.book).collect(Collectors.toList()));
+			});
+			result.setCreated(result.getCreated() + accepted.size());
+		} catch (DataIntegrityViolationException | BusinessException e) {
+			// an isbn saved elsewhere since the existence check: the constraint
+			// refused the whole chunk, so save its lines one by one
+			saveEach(accepted, result);
+		}
+	}
+
+	private void saveEach(List<ImportLine> lines, BulkImportResultDTO result) {
+		for (ImportLine line : lines) {
+			// the failed batch already assigned them
+			line.book.setId(null);
+			line.book.setVersion(null);
+			try {
+				// in a transaction of its own, which the service turns into a
+				// BusinessException when the constraint refuses it
+				bookService.save(line.book);
+				result.setCreated(result.getCreated() + 1);
+			} catch (BusinessException e) {
+				reject(result, line.number, line.book.getIsbn(), e.getMessage());
+			} catch (DataIntegrityViolationException e) {
+				// a value the schema does not take, such as text longer than its column
+				reject(result, line.number, line.book.getIsbn(), REFUSED_BY_DATABASE);
+			}
+		}
+	}
+
+	private void reject(BulkImportResultDTO result, int lineNumber, String isbn, String message) {
+		result.setRejected(result.getRejected() + 1);
+		if (result.getErrors().size() < MAX_REPORTED_ERRORS) {
+			result.getErrors().add(BulkImportErrorDTO.builder().line(lineNumber).isbn(isbn).message(message).build());
+		}
+	}
+
+	private static class ImportLine {
+
+		private final int number;
+		private final Book book;
+
+		ImportLine(int number, Book book) {
+			this.number = number;
+			this.book = book;
+		}
+
+	}
+
+}
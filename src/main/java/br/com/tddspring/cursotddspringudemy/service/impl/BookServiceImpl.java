@@ -1,33 +1,114 @@
 package br.com.tddspring.cursotddspringudemy.service.impl;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.ExampleMatcher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
 
+import br.com.tddspring.cursotddspringudemy.config.CacheConfig;
 import br.com.tddspring.cursotddspringudemy.exception.BusinessException;
 import br.com.tddspring.cursotddspringudemy.model.entity.Book;
 import br.com.tddspring.cursotddspringudemy.model.repository.BookRepository;
+import br.com.tddspring.cursotddspringudemy.service.BookSearchIndex;
 import br.com.tddspring.cursotddspringudemy.service.BookService;
 
 @Service
 public class BookServiceImpl implements BookService{
 
+	private static final String DUPLICATED_ISBN = "Isbn já cadastrado.";
+
 	private BookRepository bookRepository;
+	private BookSearchIndex searchIndex;
+	private IsbnBloomFilter isbnFilter;
 	
-	public BookServiceImpl(BookRepository bookRepository) {
+	public BookServiceImpl(BookRepository bookRepository, BookSearchIndex searchIndex, IsbnBloomFilter isbnFilter) {
 		this.bookRepository = bookRepository;
+		this.searchIndex = searchIndex;
+		this.isbnFilter = isbnFilter;
 	}
 	
+	/**
+	 * The filter only knows the isbns this instance has seen, so its "absent"
+	 * skips the existence query but not the {@code uk_book_isbn} constraint,
+	 * which turns away isbns saved elsewhere in the meantime.
+	 */
 	@Override
 	public Book save(Book book) {
-		if(bookRepository.existsByIsbn(book.getIsbn())) {
-			throw new BusinessException("Isbn já cadastrado.");
+		if(isbnFilter.mightContain(book.getIsbn()) && bookRepository.existsByIsbn(book.getIsbn())) {
+			throw new BusinessException(DUPLICATED_ISBN);
+		}
+		Book savedBook;
+		try {
+			savedBook = bookRepository.save(book);
+		} catch (DataIntegrityViolationException e) {
+			throw translate(e);
+		}
+		isbnFilter.put(savedBook.getIsbn());
+		searchIndex.index(savedBook);
+		return savedBook;
+	}
+
+	@Override
+	public List<Book> saveAll(List<Book> books) {
+		List<Book> savedBooks;
+		try {
+			savedBooks = bookRepository.saveAll(books);
+		} catch (DataIntegrityViolationException e) {
+			throw translate(e);
+		}
+		afterCommit(() -> {
+			savedBooks.forEach(book -> isbnFilter.put(book.getIsbn()));
+			searchIndex.indexAll(savedBooks);
+		});
+		return savedBooks;
+	}
+
+	// inside a caller's transaction the rows are only written at its commit,
+	// which may still fail and leave the search index pointing at nothing
+	private void afterCommit(Runnable action) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			action.run();
+			return;
 		}
-		return bookRepository.save(book);
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+			@Override
+			public void afterCommit() {
+				action.run();
+			}
+		});
+	}
+
+	private RuntimeException translate(DataIntegrityViolationException e) {
+		return isIsbnViolation(e) ? new BusinessException(DUPLICATED_ISBN) : e;
+	}
+
+	private boolean isIsbnViolation(DataIntegrityViolationException e) {
+		Throwable cause = e.getCause();
+		return cause instanceof ConstraintViolationException
+				&& ((ConstraintViolationException) cause).getConstraintName() != null
+				&& ((ConstraintViolationException) cause).getConstraintName().toLowerCase()
+						.contains(Book.ISBN_CONSTRAINT);
 	}
 
 	@Override
@@ -36,24 +117,34 @@ public class BookServiceImpl implements BookService{
 	}
 
 	@Override
+	@CacheEvict(cacheNames = CacheConfig.BOOKS_BY_ISBN, key = "#book.isbn", condition = "#book != null && #book.isbn != null")
 	public void delete(Book book) {
 		if(book == null || book.getId() == null) {
 			throw new IllegalArgumentException("sei la, exceção ai atoa pra deleção");
 		}
 		this.bookRepository.delete(book);
+		isbnFilter.recordRemoval(book.getIsbn());
+		searchIndex.remove(book);
 	}
 	
 
 	@Override
+	@CacheEvict(cacheNames = CacheConfig.BOOKS_BY_ISBN, key = "#book.isbn", condition = "#book != null && #book.isbn != null")
 	public Book update(Book book) {
 		if(book == null || book.getId() == null) {
 			throw new IllegalArgumentException("sei la, exceção ai atoa pra deleção");
 		}
-		return this.bookRepository.save(book);
+		Book updatedBook = this.bookRepository.save(book);
+		searchIndex.index(updatedBook);
+		return updatedBook;
 	}
 
 	@Override
+	@Transactional(readOnly = true)
 	public Page<Book> find(Book filter, Pageable pageRequest) {
+		if(searchIndex.isEnabled() && hasTextFilter(filter)) {
+			return findInSearchIndex(filter, pageRequest);
+		}
 		   Example<Book> example = Example.of(filter,
                    ExampleMatcher
                            .matching()
@@ -66,8 +157,42 @@ public class BookServiceImpl implements BookService{
 	}
 
 	@Override
+	@Transactional(readOnly = true)
+	public Slice<Book> findAfter(Book filter, Integer afterId, int size) {
+		return bookRepository.findByFilterAfter(afterId, emptyToNull(filter.getTitle()),
+				emptyToNull(filter.getAuthor()), emptyToNull(filter.getIsbn()), PageRequest.of(0, size));
+	}
+
+	private String emptyToNull(String value) {
+		return StringUtils.hasText(value) ? value : null;
+	}
+
+	private Page<Book> findInSearchIndex(Book filter, Pageable pageRequest) {
+		Page<Integer> ids = searchIndex.search(filter, pageRequest);
+		List<Integer> ranking = ids.getContent();
+		List<Book> books = new ArrayList<>(bookRepository.findAllById(ranking));
+		books.sort(Comparator.comparingInt(book -> ranking.indexOf(book.getId())));
+		return new PageImpl<Book>(books, pageRequest, ids.getTotalElements());
+	}
+
+	private boolean hasTextFilter(Book filter) {
+		return StringUtils.hasText(filter.getTitle()) || StringUtils.hasText(filter.getAuthor())
+				|| StringUtils.hasText(filter.getIsbn());
+	}
+
+	@Override
+	@Cacheable(cacheNames = CacheConfig.BOOKS_BY_ISBN, key = "#isbn", condition = "#isbn != null", unless = "#result == null")
 	public Optional<Book> getBookByIsbn(String isbn) {
 		return bookRepository.findByIsbn(isbn);
 	}
 
+	@Override
+	public Set<String> getExistingIsbns(Collection<String> isbns) {
+		List<String> candidates = isbns.stream().filter(isbnFilter::mightContain).collect(Collectors.toList());
+		if(candidates.isEmpty()) {
+			return Collections.emptySet();
+		}
+		return bookRepository.findExistingIsbns(candidates);
+	}
+
 }
@@ -0,0 +1,45 @@
+package br.com.tddspring.cursotddspringudemy.service.impl;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import br.com.tddspring.cursotddspringudemy.model.entity.Book;
+import br.com.tddspring.cursotddspringudemy.service.BookSearchIndex;
+
+@Component
+@ConditionalOnProperty(name = "application.search.enabled", havingValue = "false", matchIfMissing = true)
+public class DisabledBookSearchIndex implements BookSearchIndex {
+
+	@Override
+	public boolean isEnabled() {
+		return false;
+	}
+
+	@Override
+	public void index(Book book) {
+	}
+
+	@Override
+	public void indexAll(List<Book> books) {
+	}
+
+	@Override
+	public void remove(Book book) {
+	}
+
+	/**
+	 * Nothing is indexed, so nothing matches; callers check
+	 * {@link #isEnabled()} and query the repository instead.
+	 */
+	@Override
+	public Page<Integer> search(Book filter, Pageable pageRequest) {
+		return new PageImpl<Integer>(Collections.emptyList(), pageRequest, 0);
+	}
+
+}
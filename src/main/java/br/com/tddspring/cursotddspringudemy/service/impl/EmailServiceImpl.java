@@ -1,10 +1,12 @@
 package br.com.tddspring.cursotddspringudemy.service.impl;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BooleanSupplier;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
 
 import br.com.tddspring.cursotddspringudemy.service.EmailService;
@@ -17,20 +19,49 @@ public class EmailServiceImpl implements EmailService{
 	@Value("${application.mail.default-remetent}")
 	private String remetent;
 	
-	private final JavaMailSender javaMailSender;
+	private final MailDispatcher mailDispatcher;
 	
 	@Override
 	public void sendMails(String message, List<String> mailList) {
-		String[] mail = mailList.toArray(new String[mailList.size()]);
-		
+		for (String mail : mailList) {
+			sendMail(message, mail);
+		}
+	}
+
+	@Override
+	public CompletableFuture<Void> sendMail(String message, String mail) {
+		try {
+			CompletableFuture<Void> result = mailDispatcher.submit(mailMessage(message, mail));
+			if (result == null) {
+				throw new MailSendException("Mail queue is full");
+			}
+			return result;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new MailSendException("Interrupted while queueing mail", e);
+		}
+	}
+
+	/**
+	 * Like {@link #sendMail} but never waits for room in the queue, and skips
+	 * the message if {@code stillWanted} turns false before it goes out.
+	 */
+	@Override
+	public CompletableFuture<Void> offerMail(String message, String mail, BooleanSupplier stillWanted) {
+		CompletableFuture<Void> result = mailDispatcher.offer(mailMessage(message, mail), stillWanted);
+		if (result == null) {
+			throw new MailSendException("Mail queue is full");
+		}
+		return result;
+	}
+
+	private SimpleMailMessage mailMessage(String message, String mail) {
 		SimpleMailMessage mailMessage = new SimpleMailMessage();
 		mailMessage.setFrom(remetent);
 		mailMessage.setSubject("Livro atrasado");
 		mailMessage.setText(message);
 		mailMessage.setTo(mail);
-		
-		javaMailSender.send(mailMessage);
-		
+		return mailMessage;
 	}
 
 }
@@ -0,0 +1,202 @@
+package br.com.tddspring.cursotddspringudemy.service.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import br.com.tddspring.cursotddspringudemy.model.repository.BookRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * In-memory Bloom filter of the isbns in the book table, so the database only
+ * has to be asked when the filter answers "maybe". Until the first build
+ * finishes every isbn is a "maybe".
+ *
+ * The filter sees the table as of its last rebuild plus the books this
+ * instance saved since. Books written by other instances, the reactive module
+ * or bulk loads are missed until the next rebuild, so a negative answer is a
+ * shortcut, not a guarantee: the {@code uk_book_isbn} constraint still refuses
+ * those duplicates.
+ *
+ * Bits cannot be cleared, so deleted isbns stay "maybe" until the next
+ * rebuild; they only cost the extra query the filter would have saved.
+ */
+@Component
+public class IsbnBloomFilter {
+
+	private final BookRepository bookRepository;
+	private final long expectedInsertions;
+	private final double fpp;
+
+	private final Counter absentChecks;
+	private final Counter maybeChecks;
+	private final Counter removals;
+	private final Timer rebuildTimer;
+
+	private volatile Bits current;
+	// isbns put while a rebuild streams the table, replayed into its bits; the
+	// stream may have started before they were committed
+	private List<String> putsDuringRebuild;
+	private final Object putLock = new Object();
+
+	public IsbnBloomFilter(BookRepository bookRepository, MeterRegistry meterRegistry,
+			@Value("${application.books.isbn-filter.expected-insertions}") long expectedInsertions,
+			@Value("${application.books.isbn-filter.fpp}") double fpp) {
+		this.bookRepository = bookRepository;
+		this.expectedInsertions = expectedInsertions;
+		this.fpp = fpp;
+		this.absentChecks = meterRegistry.counter("books.isbn.filter.checks", "result", "absent");
+		this.maybeChecks = meterRegistry.counter("books.isbn.filter.checks", "result", "maybe");
+		this.removals = meterRegistry.counter("books.isbn.filter.removals");
+		this.rebuildTimer = meterRegistry.timer("books.isbn.filter.rebuild");
+		Gauge.builder("books.isbn.filter.size", this, filter -> filter.size()).register(meterRegistry);
+		Gauge.builder("books.isbn.filter.fpp", this, filter -> filter.expectedFpp()).register(meterRegistry);
+	}
+
+	public boolean mightContain(String isbn) {
+		Bits bits = current;
+		boolean maybe = isbn == null || bits == null || bits.mightContain(isbn);
+		(maybe ? maybeChecks : absentChecks).increment();
+		return maybe;
+	}
+
+	public void put(String isbn) {
+		if (isbn == null) {
+			return;
+		}
+		synchronized (putLock) {
+			Bits bits = current;
+			if (bits != null) {
+				bits.put(isbn);
+			}
+			if (putsDuringRebuild != null) {
+				putsDuringRebuild.add(isbn);
+			}
+		}
+	}
+
+	public void recordRemoval(String isbn) {
+		removals.increment();
+	}
+
+	// not read-only: those may be served by a lagging replica, and a filter
+	// missing recent isbns would leave more duplicates to the constraint
+	@EventListener(ApplicationReadyEvent.class)
+	@Scheduled(cron = "${application.books.isbn-filter.rebuild-cron}")
+	@Transactional
+	public synchronized void rebuild() {
+		long startTime = System.nanoTime();
+		synchronized (putLock) {
+			putsDuringRebuild = new ArrayList<>();
+		}
+		try {
+			Bits next = new Bits(Math.max(expectedInsertions, bookRepository.count() * 2), fpp);
+			try (Stream<String> isbns = bookRepository.streamAllIsbns()) {
+				isbns.forEach(next::put);
+			}
+			synchronized (putLock) {
+				putsDuringRebuild.forEach(next::put);
+				current = next;
+			}
+		} finally {
+			synchronized (putLock) {
+				putsDuringRebuild = null;
+			}
+		}
+		rebuildTimer.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+	}
+
+	public long size() {
+		Bits bits = current;
+		return bits == null ? 0 : bits.insertions.get();
+	}
+
+	/**
+	 * False positive rate for the bits currently set.
+	 */
+	public double expectedFpp() {
+		Bits bits = current;
+		return bits == null ? 1.0 : bits.expectedFpp();
+	}
+
+	private static final class Bits {
+
+		private final AtomicLongArray words;
+		private final long bitSize;
+		private final int hashFunctions;
+		private final AtomicLong insertions = new AtomicLong();
+
+		Bits(long expectedInsertions, double fpp) {
+			long bits = (long) Math.ceil(-expectedInsertions * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+			this.words = new AtomicLongArray((int) ((bits + 63) / 64));
+			this.bitSize = words.length() * 64L;
+			this.hashFunctions = Math.max(1, (int) Math.round((double) bitSize / expectedInsertions * Math.log(2)));
+		}
+
+		void put(String isbn) {
+			long hash1 = hash(isbn);
+			long hash2 = mix(hash1);
+			for (int i = 0; i < hashFunctions; i++) {
+				long index = ((hash1 + i * hash2) & Long.MAX_VALUE) % bitSize;
+				long mask = 1L << index;
+				words.getAndAccumulate((int) (index >>> 6), mask, (word, bit) -> word | bit);
+			}
+			insertions.incrementAndGet();
+		}
+
+		boolean mightContain(String isbn) {
+			long hash1 = hash(isbn);
+			long hash2 = mix(hash1);
+			for (int i = 0; i < hashFunctions; i++) {
+				long index = ((hash1 + i * hash2) & Long.MAX_VALUE) % bitSize;
+				if ((words.get((int) (index >>> 6)) & (1L << index)) == 0) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		double expectedFpp() {
+			long bitCount = 0;
+			for (int i = 0; i < words.length(); i++) {
+				bitCount += Long.bitCount(words.get(i));
+			}
+			return Math.pow((double) bitCount / bitSize, hashFunctions);
+		}
+
+		// FNV-1a
+		private static long hash(String value) {
+			long hash = 0xcbf29ce484222325L;
+			for (int i = 0; i < value.length(); i++) {
+				hash ^= value.charAt(i);
+				hash *= 0x100000001b3L;
+			}
+			return hash;
+		}
+
+		// murmur3 fmix64
+		private static long mix(long hash) {
+			hash ^= hash >>> 33;
+			hash *= 0xff51afd7ed558ccdL;
+			hash ^= hash >>> 33;
+			hash *= 0xc4ceb9fe1a85ec53L;
+			hash ^= hash >>> 33;
+			return hash | 1;
+		}
+
+	}
+
+}
@@ -0,0 +1,62 @@
+package br.com.tddspring.cursotddspringudemy.service.impl;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import br.com.tddspring.cursotddspringudemy.model.repository.JobLeaseRepository;
+import br.com.tddspring.cursotddspringudemy.service.JobLeaseService;
+
+/**
+ * Job leases kept in the job_lease table, so every instance sharing the
+ * database agrees on who runs what. Each statement commits on its own, which
+ * is what makes a lease visible to the other instances right away.
+ */
+@Service
+public class JobLeaseServiceImpl implements JobLeaseService {
+
+	private final JobLeaseRepository repository;
+	private final String owner;
+
+	public JobLeaseServiceImpl(JobLeaseRepository repository,
+			@Value("${application.scheduling.instance-id}") String owner) {
+		this.repository = repository;
+		this.owner = owner;
+	}
+
+	@Override
+	public String owner() {
+		return owner;
+	}
+
+	@Override
+	public boolean tryAcquire(String job, Duration ttl) {
+		LocalDateTime now = LocalDateTime.now();
+		LocalDateTime until = now.plus(ttl);
+		if (repository.takeOver(job, owner, until, now) == 1) {
+			return true;
+		}
+		if (repository.existsById(job)) {
+			return false;
+		}
+		try {
+			return repository.insert(job, owner, until) == 1;
+		} catch (DataIntegrityViolationException e) {
+			return false;
+		}
+	}
+
+	@Override
+	public boolean renew(String job, Duration ttl) {
+		return repository.extend(job, owner, LocalDateTime.now().plus(ttl)) == 1;
+	}
+
+	@Override
+	public void release(String job) {
+		repository.extend(job, owner, LocalDateTime.now());
+	}
+
+}
@@ -4,14 +4,22 @@ import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import br.com.tddspring.cursotddspringudemy.api.dto.LoanFilterDTO;
 import br.com.tddspring.cursotddspringudemy.exception.BusinessException;
 import br.com.tddspring.cursotddspringudemy.model.entity.Book;
 import br.com.tddspring.cursotddspringudemy.model.entity.Loan;
+import br.com.tddspring.cursotddspringudemy.model.projection.LateLoan;
+import br.com.tddspring.cursotddspringudemy.model.projection.LoanSummary;
 import br.com.tddspring.cursotddspringudemy.model.repository.LoanRepository;
 import br.com.tddspring.cursotddspringudemy.service.LoanService;
 
@@ -19,17 +27,43 @@ import br.com.tddspring.cursotddspringudemy.service.LoanService;
 public class LoanServiceImpl implements LoanService {
 
 	private LoanRepository repository;
+
+	private int loanDays;
 	
-	public LoanServiceImpl(LoanRepository repository) {
+	public LoanServiceImpl(LoanRepository repository, @Value("${application.loan.days}") int loanDays) {
 		this.repository = repository;
+		this.loanDays = loanDays;
 	}
 
 	@Override
 	public Loan save(Loan loan) {
-		if(repository.existsByBookAndNotReturned(loan.getBook())) {
-			throw new BusinessException("book already loaned");
+		if (loan.getDueDate() == null && loan.getLoanDate() != null) {
+			loan.setDueDate(loan.getLoanDate().plusDays(loanDays));
+		}
+		return saveAndFlush(loan);
+	}
+
+	/**
+	 * Flushes so that uk_loan_active_book is checked here, where a second open
+	 * loan of the book becomes a business error, rather than at commit.
+	 */
+	private Loan saveAndFlush(Loan loan) {
+		try {
+			return repository.saveAndFlush(loan);
+		} catch (DataIntegrityViolationException e) {
+			if (isActiveBookViolation(e)) {
+				throw new BusinessException("book already loaned");
+			}
+			throw e;
 		}
-		return repository.save(loan);
+	}
+
+	private boolean isActiveBookViolation(DataIntegrityViolationException e) {
+		Throwable cause = e.getCause();
+		return cause instanceof ConstraintViolationException
+				&& ((ConstraintViolationException) cause).getConstraintName() != null
+				&& ((ConstraintViolationException) cause).getConstraintName().toLowerCase()
+						.contains(Loan.ACTIVE_BOOK_CONSTRAINT);
 	}
 
 	@Override
@@ -39,23 +73,44 @@ public class LoanServiceImpl implements LoanService {
 
 	@Override
 	public Loan update(Loan loan) {
-		return repository.save(loan);
+		return saveAndFlush(loan);
 	}
 
 	@Override
+	@Transactional(readOnly = true)
 	public Page<Loan> find(LoanFilterDTO filter, Pageable pageable) {
 		return repository.findByBookIsbnOrCustomer(filter.getIsbn(), filter.getCustomer(), pageable);
 	}
 
 	@Override
+	@Transactional(readOnly = true)
+	public Page<LoanSummary> findSummaries(LoanFilterDTO filter, Pageable pageable) {
+		return repository.findSummariesByBookIsbnOrCustomer(filter.getIsbn(), filter.getCustomer(), pageable);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public Slice<Loan> findAfter(LoanFilterDTO filter, Integer afterId, int size) {
+		return repository.findByBookIsbnOrCustomerAfter(filter.getIsbn(), filter.getCustomer(), afterId,
+				PageRequest.of(0, size));
+	}
+
+	@Override
+	@Transactional(readOnly = true)
 	public Page<Loan> getLoansByBook(Book book, Pageable pageable) {
 		return repository.findByBook(book, pageable);
 	}
 
 	@Override
-	public List<Loan> getAllLateLoans() {
-		final Integer loanDays = 4;
-		LocalDate threeDaysAgo = LocalDate.now().minusDays(loanDays);
-		return repository.findByLoanDateLessThanAndNotReturned(threeDaysAgo);
+	@Transactional(readOnly = true)
+	public Slice<Loan> getLoansByBookAfter(Book book, Integer afterId, int size) {
+		return repository.findByBookAndIdGreaterThanOrderByIdAsc(book, afterId, PageRequest.of(0, size));
+	}
+
+	@Override
+	public List<LateLoan> getLateLoansAfter(LocalDate dueAfter, LocalDate dueUntil, Integer afterId, int size,
+			int partition, int partitions) {
+		return repository.findLateLoansAfter(dueAfter, dueUntil, afterId, partition, partitions,
+				PageRequest.of(0, size));
 	}
 }
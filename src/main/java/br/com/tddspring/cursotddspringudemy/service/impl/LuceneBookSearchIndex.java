@@ -0,0 +1,315 @@
+package br.com.tddspring.cursotddspringudemy.service.impl;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopScoreDocCollector;
+import org.apache.lucene.search.WildcardQuery;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.Bits;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import br.com.tddspring.cursotddspringudemy.model.entity.Book;
+import br.com.tddspring.cursotddspringudemy.model.projection.CatalogFingerprint;
+import br.com.tddspring.cursotddspringudemy.model.repository.BookRepository;
+import br.com.tddspring.cursotddspringudemy.service.BookSearchIndex;
+
+/**
+ * File-backed Lucene index over title, author and isbn. Title and author are
+ * analyzed (the last word of a query matches as a prefix); the isbn filter
+ * matches anywhere in the isbn, ignoring case, as the database filter does.
+ *
+ * Writes are visible to searches as soon as the searcher is refreshed, which
+ * each write does; committing them to disk, an fsync per commit, happens on a
+ * schedule and at shutdown. At startup the index compares the count and the
+ * id and version sums of its books with the database's; a crash since the
+ * last commit, writes by other instances or writes while search was disabled
+ * all leave them apart, and the index is then rebuilt in id order.
+ */
+@Component
+@ConditionalOnProperty(name = "application.search.enabled", havingValue = "true")
+public class LuceneBookSearchIndex implements BookSearchIndex, DisposableBean {
+
+	private static final String ID = "id";
+	private static final String TITLE = "title";
+	private static final String AUTHOR = "author";
+	private static final String ISBN = "isbn";
+	private static final String VERSION = "version";
+
+	private static final int REBUILD_PAGE_SIZE = 1000;
+
+	private final BookRepository bookRepository;
+	private final Analyzer analyzer = new StandardAnalyzer();
+	private final Directory directory;
+	private final IndexWriter writer;
+	private final SearcherManager searcherManager;
+
+	public LuceneBookSearchIndex(BookRepository bookRepository,
+			@Value("${application.search.index-dir}") String indexDir) throws IOException {
+		this.bookRepository = bookRepository;
+		this.directory = FSDirectory.open(Paths.get(indexDir));
+		this.writer = new IndexWriter(directory,
+				new IndexWriterConfig(analyzer).setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND));
+		this.searcherManager = new SearcherManager(writer, null);
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void reconcile() throws IOException {
+		if (!fingerprint().equals(bookRepository.fingerprint())) {
+			rebuild();
+		}
+	}
+
+	/**
+	 * Replaces every document with the books in the database, a keyset page
+	 * at a time, and commits.
+	 */
+	public void rebuild() throws IOException {
+		writer.deleteAll();
+		Slice<Book> page = bookRepository.findByIdGreaterThanOrderByIdAsc(0, PageRequest.of(0, REBUILD_PAGE_SIZE));
+		indexAll(page.getContent());
+		while (page.hasNext()) {
+			List<Book> books = page.getContent();
+			page = bookRepository.findByIdGreaterThanOrderByIdAsc(books.get(books.size() - 1).getId(),
+					PageRequest.of(0, REBUILD_PAGE_SIZE));
+			indexAll(page.getContent());
+		}
+		publish();
+		writer.commit();
+	}
+
+	/** The fingerprint of the books in the index, as the database computes it. */
+	public CatalogFingerprint fingerprint() throws IOException {
+		searcherManager.maybeRefreshBlocking();
+		IndexSearcher searcher = searcherManager.acquire();
+		try {
+			long idSum = 0;
+			long versionSum = 0;
+			for (LeafReaderContext leaf : searcher.getIndexReader().leaves()) {
+				idSum += sum(leaf.reader(), ID);
+				versionSum += sum(leaf.reader(), VERSION);
+			}
+			return new CatalogFingerprint((long) searcher.getIndexReader().numDocs(), idSum, versionSum);
+		} finally {
+			searcherManager.release(searcher);
+		}
+	}
+
+	@Override
+	public boolean isEnabled() {
+		return true;
+	}
+
+	@Override
+	public void index(Book book) {
+		try {
+			writer.updateDocument(idTerm(book), toDocument(book));
+			publish();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public void indexAll(List<Book> books) {
+		if (books.isEmpty()) {
+			return;
+		}
+		try {
+			for (Book book : books) {
+				writer.updateDocument(idTerm(book), toDocument(book));
+			}
+			publish();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public void remove(Book book) {
+		try {
+			writer.deleteDocuments(idTerm(book));
+			publish();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public Page<Integer> search(Book filter, Pageable pageRequest) {
+		try {
+			Query query = toQuery(filter);
+			int offset = (int) pageRequest.getOffset();
+			IndexSearcher searcher = searcherManager.acquire();
+			try {
+				TopScoreDocCollector collector = TopScoreDocCollector.create(offset + pageRequest.getPageSize(),
+						Integer.MAX_VALUE);
+				searcher.search(query, collector);
+				TopDocs topDocs = collector.topDocs(offset, pageRequest.getPageSize());
+				List<Integer> ids = new ArrayList<>(topDocs.scoreDocs.length);
+				for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+					ids.add(Integer.valueOf(searcher.doc(scoreDoc.doc).get(ID)));
+				}
+				return new PageImpl<Integer>(ids, pageRequest, collector.getTotalHits());
+			} finally {
+				searcherManager.release(searcher);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Scheduled(fixedDelayString = "${application.search.commit-ms}")
+	public void commit() {
+		try {
+			if (writer.hasUncommittedChanges()) {
+				writer.commit();
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public void destroy() throws IOException {
+		commit();
+		searcherManager.close();
+		writer.close();
+		directory.close();
+	}
+
+	private void publish() throws IOException {
+		searcherManager.maybeRefresh();
+	}
+
+	private long sum(LeafReader reader, String field) throws IOException {
+		Bits liveDocs = reader.getLiveDocs();
+		NumericDocValues values = DocValues.getNumeric(reader, field);
+		long sum = 0;
+		for (int doc = values.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = values.nextDoc()) {
+			if (liveDocs == null || liveDocs.get(doc)) {
+				sum += values.longValue();
+			}
+		}
+		return sum;
+	}
+
+	private Term idTerm(Book book) {
+		return new Term(ID, book.getId().toString());
+	}
+
+	private Document toDocument(Book book) {
+		Document document = new Document();
+		document.add(new StringField(ID, book.getId().toString(), Field.Store.YES));
+		document.add(new NumericDocValuesField(ID, book.getId()));
+		document.add(new NumericDocValuesField(VERSION, book.getVersion() == null ? 0 : book.getVersion()));
+		if (book.getTitle() != null) {
+			document.add(new TextField(TITLE, book.getTitle(), Field.Store.NO));
+		}
+		if (book.getAuthor() != null) {
+			document.add(new TextField(AUTHOR, book.getAuthor(), Field.Store.NO));
+		}
+		if (book.getIsbn() != null) {
+			document.add(new StringField(ISBN, normalizeIsbn(book.getIsbn()), Field.Store.NO));
+		}
+		return document;
+	}
+
+	private Query toQuery(Book filter) throws IOException {
+		BooleanQuery.Builder builder = new BooleanQuery.Builder();
+		addTextClauses(builder, TITLE, filter.getTitle());
+		addTextClauses(builder, AUTHOR, filter.getAuthor());
+		if (StringUtils.hasText(filter.getIsbn())) {
+			// the leading wildcard walks the isbn terms, one per book, rather than the documents
+			builder.add(new WildcardQuery(new Term(ISBN, "*" + escapeWildcards(normalizeIsbn(filter.getIsbn())) + "*")),
+					BooleanClause.Occur.MUST);
+		}
+		BooleanQuery query = builder.build();
+		return query.clauses().isEmpty() ? new MatchAllDocsQuery() : query;
+	}
+
+	private void addTextClauses(BooleanQuery.Builder builder, String field, String text) throws IOException {
+		if (!StringUtils.hasText(text)) {
+			return;
+		}
+		List<String> tokens = analyze(field, text);
+		for (int i = 0; i < tokens.size(); i++) {
+			Term term = new Term(field, tokens.get(i));
+			Query query = i == tokens.size() - 1 ? new PrefixQuery(term) : new TermQuery(term);
+			builder.add(query, BooleanClause.Occur.MUST);
+		}
+	}
+
+	private List<String> analyze(String field, String text) throws IOException {
+		List<String> tokens = new ArrayList<>();
+		try (TokenStream stream = analyzer.tokenStream(field, text)) {
+			CharTermAttribute term = stream.addAttribute(CharTermAttribute.class);
+			stream.reset();
+			while (stream.incrementToken()) {
+				tokens.add(term.toString());
+			}
+			stream.end();
+		}
+		return tokens;
+	}
+
+	private String normalizeIsbn(String isbn) {
+		return isbn.trim().toLowerCase();
+	}
+
+	private String escapeWildcards(String text) {
+		StringBuilder escaped = new StringBuilder(text.length());
+		for (char c : text.toCharArray()) {
+			if (c == WildcardQuery.WILDCARD_STRING || c == WildcardQuery.WILDCARD_CHAR
+					|| c == WildcardQuery.WILDCARD_ESCAPE) {
+				escaped.append(WildcardQuery.WILDCARD_ESCAPE);
+			}
+			escaped.append(c);
+		}
+		return escaped.toString();
+	}
+
+}
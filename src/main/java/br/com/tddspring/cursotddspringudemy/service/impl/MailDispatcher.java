@@ -0,0 +1,316 @@
+package br.com.tddspring.cursotddspringudemy.service.impl;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.mail.internet.MimeMessage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMailMessage;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Sends mail off the caller's thread. Messages wait in a bounded queue and a
+ * pool of workers sends them in batches, one SMTP connection per batch, no
+ * faster than the configured rate. Messages the server refuses are retried
+ * with exponential backoff; the rest of their batch is not affected.
+ *
+ * A full queue blocks {@link #enqueue} for up to the enqueue timeout, so a
+ * producer faster than the server is slowed down instead of growing the heap.
+ * Producers that must not block use {@link #offer} and size their work with
+ * {@link #capacityWithin}.
+ */
+@Slf4j
+@Component
+public class MailDispatcher {
+
+	private final JavaMailSender mailSender;
+	private final BlockingQueue<Envelope> queue;
+	private final int workers;
+	private final int batchSize;
+	private final double ratePerSecond;
+	private final int maxAttempts;
+	private final long backoffMillis;
+	private final long enqueueTimeoutMillis;
+
+	private final Counter sent;
+	private final Counter failed;
+	private final Counter retried;
+	private final Counter rejected;
+	private final Counter skipped;
+	private final Timer batchTimer;
+
+	private ExecutorService workerPool;
+	private ScheduledExecutorService retryScheduler;
+	private volatile boolean running;
+	private long nextPermitNanos;
+
+	public MailDispatcher(JavaMailSender mailSender, MeterRegistry meterRegistry,
+			@Value("${application.mail.dispatch.queue-capacity}") int queueCapacity,
+			@Value("${application.mail.dispatch.workers}") int workers,
+			@Value("${application.mail.dispatch.batch-size}") int batchSize,
+			@Value("${application.mail.dispatch.rate-per-second}") double ratePerSecond,
+			@Value("${application.mail.dispatch.max-attempts}") int maxAttempts,
+			@Value("${application.mail.dispatch.backoff-ms}") long backoffMillis,
+			@Value("${application.mail.dispatch.enqueue-timeout-ms}") long enqueueTimeoutMillis) {
+		this.mailSender = mailSender;
+		this.queue = new ArrayBlockingQueue<>(queueCapacity);
+		this.workers = workers;
+		this.batchSize = batchSize;
+		this.ratePerSecond = ratePerSecond;
+		this.maxAttempts = maxAttempts;
+		this.backoffMillis = backoffMillis;
+		this.enqueueTimeoutMillis = enqueueTimeoutMillis;
+		this.sent = meterRegistry.counter("mail.dispatch.messages", "result", "sent");
+		this.failed = meterRegistry.counter("mail.dispatch.messages", "result", "failed");
+		this.retried = meterRegistry.counter("mail.dispatch.messages", "result", "retried");
+		this.rejected = meterRegistry.counter("mail.dispatch.messages", "result", "rejected");
+		this.skipped = meterRegistry.counter("mail.dispatch.messages", "result", "skipped");
+		this.batchTimer = meterRegistry.timer("mail.dispatch.batch");
+		Gauge.builder("mail.dispatch.queue", queue, BlockingQueue::size).register(meterRegistry);
+	}
+
+	@PostConstruct
+	public void start() {
+		running = true;
+		workerPool = Executors.newFixedThreadPool(workers, threadFactory("mail-dispatch-"));
+		retryScheduler = Executors.newSingleThreadScheduledExecutor(threadFactory("mail-retry-"));
+		for (int i = 0; i < workers; i++) {
+			workerPool.execute(this::work);
+		}
+	}
+
+	@PreDestroy
+	public void stop() throws InterruptedException {
+		running = false;
+		retryScheduler.shutdownNow();
+		workerPool.shutdown();
+		if (!workerPool.awaitTermination(30, TimeUnit.SECONDS)) {
+			log.warn("Mail dispatcher stopped with {} messages still queued", queue.size());
+			workerPool.shutdownNow();
+		}
+	}
+
+	/**
+	 * Queues a message, waiting for room while the queue is full.
+	 *
+	 * @return false when the queue stayed full for the whole enqueue timeout
+	 */
+	public boolean enqueue(SimpleMailMessage message) throws InterruptedException {
+		return submit(message) != null;
+	}
+
+	/**
+	 * Queues a message like {@link #enqueue}, returning a future that completes
+	 * once the server accepts it, or exceptionally once it is given up on.
+	 *
+	 * @return null when the queue stayed full for the whole enqueue timeout
+	 */
+	public CompletableFuture<Void> submit(SimpleMailMessage message) throws InterruptedException {
+		Envelope envelope = new Envelope(message, 1, new CompletableFuture<>(), () -> true);
+		if (queue.offer(envelope, enqueueTimeoutMillis, TimeUnit.MILLISECONDS)) {
+			return envelope.result;
+		}
+		rejected.increment();
+		return null;
+	}
+
+	/**
+	 * Queues a message only if there is room right now. {@code stillWanted} is
+	 * asked right before each attempt to send it; when it answers false the
+	 * message is skipped and the future is cancelled.
+	 *
+	 * @return null when the queue is full
+	 */
+	public CompletableFuture<Void> offer(SimpleMailMessage message, BooleanSupplier stillWanted) {
+		Envelope envelope = new Envelope(message, 1, new CompletableFuture<>(), stillWanted);
+		if (queue.offer(envelope)) {
+			return envelope.result;
+		}
+		rejected.increment();
+		return null;
+	}
+
+	public int queued() {
+		return queue.size();
+	}
+
+	/**
+	 * How many more messages fit in the queue and, at the configured rate,
+	 * would still be sent within {@code period}, not counting retries.
+	 */
+	public int capacityWithin(Duration period) {
+		int room = queue.remainingCapacity();
+		if (ratePerSecond <= 0) {
+			return room;
+		}
+		long drained = (long) (ratePerSecond * period.toMillis() / 1000) - queue.size();
+		return (int) Math.max(0, Math.min(room, drained));
+	}
+
+	private void work() {
+		List<Envelope> batch = new ArrayList<>(batchSize);
+		while (running || !queue.isEmpty()) {
+			try {
+				Envelope first = queue.poll(200, TimeUnit.MILLISECONDS);
+				if (first == null) {
+					continue;
+				}
+				batch.add(first);
+				queue.drainTo(batch, batchSize - 1);
+				acquirePermits(batch.size());
+				batchTimer.record(() -> send(batch));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			} catch (RuntimeException e) {
+				log.error("Unexpected error sending a mail batch", e);
+			} finally {
+				batch.clear();
+			}
+		}
+	}
+
+	private void send(List<Envelope> batch) {
+		batch.removeIf(envelope -> !stillWanted(envelope));
+		if (batch.isEmpty()) {
+			return;
+		}
+		Map<MimeMessage, Envelope> byMessage = new IdentityHashMap<>();
+		for (Envelope envelope : batch) {
+			MimeMessage mimeMessage = mailSender.createMimeMessage();
+			envelope.message.copyTo(new MimeMailMessage(mimeMessage));
+			byMessage.put(mimeMessage, envelope);
+		}
+		try {
+			mailSender.send(byMessage.keySet().toArray(new MimeMessage[0]));
+			batch.forEach(this::complete);
+		} catch (MailSendException e) {
+			Map<Object, Exception> failedMessages = e.getFailedMessages();
+			if (failedMessages.isEmpty()) {
+				batch.forEach(envelope -> retryOrDrop(envelope, e));
+				return;
+			}
+			byMessage.forEach((message, envelope) -> {
+				if (failedMessages.containsKey(message)) {
+					retryOrDrop(envelope, failedMessages.get(message));
+				} else {
+					complete(envelope);
+				}
+			});
+		} catch (MailException e) {
+			batch.forEach(envelope -> retryOrDrop(envelope, e));
+		}
+	}
+
+	private boolean stillWanted(Envelope envelope) {
+		boolean wanted;
+		try {
+			wanted = envelope.stillWanted.getAsBoolean();
+		} catch (RuntimeException e) {
+			log.warn("Skipping mail to {}: could not check it is still wanted: {}",
+					String.join(",", envelope.message.getTo()), e.getMessage());
+			wanted = false;
+		}
+		if (!wanted) {
+			skipped.increment();
+			envelope.result.cancel(false);
+		}
+		return wanted;
+	}
+
+	private void complete(Envelope envelope) {
+		sent.increment();
+		envelope.result.complete(null);
+	}
+
+	private void retryOrDrop(Envelope envelope, Exception cause) {
+		if (envelope.attempt >= maxAttempts || !running) {
+			drop(envelope, cause);
+			return;
+		}
+		retried.increment();
+		long delay = backoffMillis << (envelope.attempt - 1);
+		Envelope next = new Envelope(envelope.message, envelope.attempt + 1, envelope.result, envelope.stillWanted);
+		retryScheduler.schedule(() -> {
+			if (!queue.offer(next)) {
+				drop(next, new MailSendException("Mail queue is full"));
+			}
+		}, delay, TimeUnit.MILLISECONDS);
+	}
+
+	private void drop(Envelope envelope, Exception cause) {
+		failed.increment();
+		log.warn("Giving up on mail to {} after {} attempts: {}", String.join(",", envelope.message.getTo()),
+				envelope.attempt, cause.getMessage());
+		envelope.result.completeExceptionally(cause);
+	}
+
+	/** Spaces batches so that on average no more than ratePerSecond messages go out. */
+	private void acquirePermits(int permits) throws InterruptedException {
+		if (ratePerSecond <= 0) {
+			return;
+		}
+		long wait;
+		synchronized (this) {
+			long now = System.nanoTime();
+			long start = Math.max(now, nextPermitNanos);
+			nextPermitNanos = start + (long) (permits * TimeUnit.SECONDS.toNanos(1) / ratePerSecond);
+			wait = start - now;
+		}
+		if (wait > 0) {
+			TimeUnit.NANOSECONDS.sleep(wait);
+		}
+	}
+
+	private static ThreadFactory threadFactory(String prefix) {
+		AtomicInteger count = new AtomicInteger();
+		return runnable -> {
+			Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+	private static final class Envelope {
+
+		private final SimpleMailMessage message;
+		private final int attempt;
+		private final CompletableFuture<Void> result;
+		private final BooleanSupplier stillWanted;
+
+		private Envelope(SimpleMailMessage message, int attempt, CompletableFuture<Void> result,
+				BooleanSupplier stillWanted) {
+			this.message = message;
+			this.attempt = attempt;
+			this.result = result;
+			this.stillWanted = stillWanted;
+		}
+	}
+
+}
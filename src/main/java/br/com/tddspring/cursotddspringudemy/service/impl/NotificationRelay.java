@@ -0,0 +1,73 @@
+package br.com.tddspring.cursotddspringudemy.service.impl;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import br.com.tddspring.cursotddspringudemy.model.entity.Notification;
+import br.com.tddspring.cursotddspringudemy.service.EmailService;
+import br.com.tddspring.cursotddspringudemy.service.NotificationService;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Drains the notification outbox: claims a batch, hands each message to the
+ * mail dispatcher and acks it once the server accepted it. Anything not acked
+ * goes back to pending, either right away or when its claim lapses.
+ *
+ * A run claims no more than the dispatcher can send before the claims lapse,
+ * and never waits for room in its queue. Should a message still be queued
+ * when its claim lapses anyway (retries, other producers), the dispatcher
+ * skips it: the claim is checked right before sending, so a notification
+ * reclaimed by the next run is not sent twice.
+ */
+@Component
+@RequiredArgsConstructor
+public class NotificationRelay {
+
+	@Value("${application.mail.lateloans.message}")
+	private String message;
+
+	@Value("${application.notifications.relay.batch-size}")
+	private int batchSize;
+
+	@Value("${application.notifications.lease-seconds}")
+	private long leaseSeconds;
+
+	private final NotificationService notificationService;
+	private final EmailService emailService;
+	private final MailDispatcher mailDispatcher;
+
+	@Scheduled(fixedDelayString = "${application.notifications.relay.delay-ms}")
+	public void relay() {
+		int size = Math.min(batchSize, mailDispatcher.capacityWithin(Duration.ofSeconds(leaseSeconds)));
+		if (size <= 0) {
+			return;
+		}
+		List<Notification> batch = notificationService.claim(size);
+		for (int i = 0; i < batch.size(); i++) {
+			Notification notification = batch.get(i);
+			CompletableFuture<Void> result;
+			try {
+				result = emailService.offerMail(message, notification.getEmail(),
+						() -> notificationService.isClaimed(notification));
+			} catch (MailException e) {
+				batch.subList(i, batch.size()).forEach(notificationService::release);
+				return;
+			}
+			result.whenComplete((sent, error) -> {
+				if (error == null) {
+					notificationService.ack(notification);
+				} else if (!(error instanceof CancellationException)) {
+					notificationService.release(notification);
+				}
+			});
+		}
+	}
+
+}
@@ -0,0 +1,109 @@
+package br.com.tddspring.cursotddspringudemy.service.impl;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import br.com.tddspring.cursotddspringudemy.model.entity.Notification;
+import br.com.tddspring.cursotddspringudemy.model.entity.Notification.Status;
+import br.com.tddspring.cursotddspringudemy.model.entity.Notification.Type;
+import br.com.tddspring.cursotddspringudemy.model.projection.LateLoan;
+import br.com.tddspring.cursotddspringudemy.model.repository.NotificationRepository;
+import br.com.tddspring.cursotddspringudemy.service.NotificationService;
+
+@Service
+public class NotificationServiceImpl implements NotificationService {
+
+	private final NotificationRepository repository;
+	private final long leaseSeconds;
+	private final int maxAttempts;
+
+	public NotificationServiceImpl(NotificationRepository repository,
+			@Value("${application.notifications.lease-seconds}") long leaseSeconds,
+			@Value("${application.notifications.max-attempts}") int maxAttempts) {
+		this.repository = repository;
+		this.leaseSeconds = leaseSeconds;
+		this.maxAttempts = maxAttempts;
+	}
+
+	@Override
+	@Transactional
+	public int enqueueLateLoans(List<LateLoan> lateLoans) {
+		Map<LocalDate, List<LateLoan>> byDueDate = lateLoans.stream()
+				.filter(loan -> loan.getEmail() != null)
+				.collect(Collectors.groupingBy(LateLoan::getDueDate));
+		LocalDateTime now = LocalDateTime.now();
+		int enqueued = 0;
+		for (Map.Entry<LocalDate, List<LateLoan>> entry : byDueDate.entrySet()) {
+			LocalDate period = entry.getKey();
+			Set<Integer> notified = repository.findNotifiedLoanIds(Type.LATE_LOAN, period,
+					entry.getValue().stream().map(LateLoan::getId).collect(Collectors.toList()));
+			List<Notification> pending = entry.getValue().stream()
+					.filter(loan -> !notified.contains(loan.getId()))
+					.map(loan -> Notification.builder()
+							.loanId(loan.getId())
+							.type(Type.LATE_LOAN)
+							.period(period)
+							.email(loan.getEmail())
+							.status(Status.PENDING)
+							.attempts(0)
+							.createdAt(now)
+							.build())
+					.collect(Collectors.toList());
+			repository.saveAll(pending);
+			enqueued += pending.size();
+		}
+		return enqueued;
+	}
+
+	@Override
+	@Transactional
+	public List<Notification> claim(int size) {
+		LocalDateTime now = LocalDateTime.now();
+		List<Long> ids = repository.findClaimableIds(Status.PENDING, Status.CLAIMED, now, PageRequest.of(0, size));
+		if (ids.isEmpty()) {
+			return Collections.emptyList();
+		}
+		String token = UUID.randomUUID().toString();
+		repository.claim(ids, token, now.plusSeconds(leaseSeconds), now, Status.PENDING, Status.CLAIMED);
+		return repository.findByClaimTokenOrderById(token);
+	}
+
+	/**
+	 * Whether the claim {@code notification} was handed out with still holds.
+	 * Read-write on purpose, so it reads the primary: a lagging replica could
+	 * still show a claim another relay has taken over.
+	 */
+	@Override
+	@Transactional
+	public boolean isClaimed(Notification notification) {
+		return repository.existsByIdAndClaimTokenAndClaimedUntilAfter(notification.getId(),
+				notification.getClaimToken(), LocalDateTime.now());
+	}
+
+	@Override
+	@Transactional
+	public void ack(Notification notification) {
+		repository.complete(notification.getId(), notification.getClaimToken(), Status.SENT, LocalDateTime.now());
+	}
+
+	@Override
+	@Transactional
+	public void release(Notification notification) {
+		int attempts = Objects.requireNonNull(notification.getAttempts()) + 1;
+		repository.release(notification.getId(), notification.getClaimToken(),
+				attempts >= maxAttempts ? Status.FAILED : Status.PENDING);
+	}
+
+}
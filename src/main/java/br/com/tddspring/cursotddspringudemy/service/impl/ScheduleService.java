@@ -1,37 +1,130 @@
 package br.com.tddspring.cursotddspringudemy.service.impl;
 
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import br.com.tddspring.cursotddspringudemy.model.entity.Loan;
-import br.com.tddspring.cursotddspringudemy.service.EmailService;
+import br.com.tddspring.cursotddspringudemy.model.entity.JobCheckpoint;
+import br.com.tddspring.cursotddspringudemy.model.projection.LateLoan;
+import br.com.tddspring.cursotddspringudemy.model.repository.JobCheckpointRepository;
+import br.com.tddspring.cursotddspringudemy.service.JobLeaseService;
 import br.com.tddspring.cursotddspringudemy.service.LoanService;
+import br.com.tddspring.cursotddspringudemy.service.NotificationService;
 import lombok.RequiredArgsConstructor;
 
 @Service
 @RequiredArgsConstructor
 public class ScheduleService {
 	
-	@Value("${application.mail.lateloans.message}")
-	private String message;
+	@Value("${application.mail.lateloans.chunk-size}")
+	private int chunkSize;
+
+	@Value("${application.scheduling.late-loans.partitions}")
+	private int partitions;
+
+	@Value("${application.scheduling.lease-seconds}")
+	private long leaseSeconds;
 	
 	public static final String CRON_LATE_LOANS = "0 0 0 1/1 * ?";
+
+	public static final String LATE_LOANS_JOB = "late-loans";
+
+	/** Watermark of a job that never ran: every overdue loan is still due a warning. */
+	public static final LocalDate FIRST_WATERMARK = LocalDate.ofEpochDay(0);
 	
 	private final LoanService loanService;
-	private final EmailService emailService;
+	private final NotificationService notificationService;
+	private final JobCheckpointRepository checkpointRepository;
+	private final JobLeaseService leaseService;
 	
+	/**
+	 * Queues a notification for every loan that became overdue since the last
+	 * completed run; {@link NotificationRelay} sends them. Loans are split into
+	 * {@code partitions} ranges by {@code mod(id, partitions)}, and each range
+	 * runs under its own job lease, so replicas share the scan instead of
+	 * repeating it. Each instance starts at a different range and takes every
+	 * range nobody else holds.
+	 *
+	 * The catch-up run picks up ranges left unfinished by an instance that
+	 * died; ranges already completed for the day are skipped.
+	 */
 	@Scheduled(cron = CRON_LATE_LOANS)
+	@Scheduled(fixedDelayString = "${application.scheduling.late-loans.catch-up-ms}",
+			initialDelayString = "${application.scheduling.late-loans.catch-up-ms}")
 	public void sendMailToLoans() {
-		List<Loan> allLateLoans = loanService.getAllLateLoans();
-		List<String> mailList = allLateLoans.stream()
-				.map(loan -> loan.getCustomerEmail())
-				.collect(Collectors.toList());
-		
-		emailService.sendMails(message, mailList);
+		LocalDate today = LocalDate.now();
+		Duration leaseTtl = Duration.ofSeconds(leaseSeconds);
+		int first = Math.floorMod(leaseService.owner().hashCode(), partitions);
+
+		for (int i = 0; i < partitions; i++) {
+			int partition = (first + i) % partitions;
+			String job = jobName(partition);
+			if (leaseService.tryAcquire(job, leaseTtl)) {
+				try {
+					scan(job, partition, today, leaseTtl);
+				} finally {
+					leaseService.release(job);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Queues one partition, one chunk of loans at a time in id order, taking
+	 * only loans due after the watermark and up to today. The checkpoint is
+	 * saved after every chunk, so a run that dies resumes from the last chunk
+	 * queued, and loans already queued for their due date are skipped.
+	 */
+	private void scan(String job, int partition, LocalDate today, Duration leaseTtl) {
+		JobCheckpoint checkpoint = currentCheckpoint(job, today);
 		
+		while (!checkpoint.getCompleted()) {
+			List<LateLoan> chunk = loanService.getLateLoansAfter(checkpoint.getWatermark(), checkpoint.getRunDate(),
+					checkpoint.getLastId(), chunkSize, partition, partitions);
+			notificationService.enqueueLateLoans(chunk);
+			if (!chunk.isEmpty()) {
+				checkpoint.setLastId(chunk.get(chunk.size() - 1).getId());
+			}
+			checkpoint.setCompleted(chunk.size() < chunkSize);
+			checkpoint.setUpdatedAt(LocalDateTime.now());
+			checkpointRepository.save(checkpoint);
+
+			if (!checkpoint.getCompleted() && !leaseService.renew(job, leaseTtl)) {
+				return;
+			}
+		}
+	}
+
+	private String jobName(int partition) {
+		return partitions == 1 ? LATE_LOANS_JOB : LATE_LOANS_JOB + "-" + partition + "-of-" + partitions;
+	}
+
+	/**
+	 * Today's checkpoint, or a new one starting where the previous run left
+	 * off: after its run date when it completed, otherwise after its own
+	 * watermark, so an unfinished day is scanned again.
+	 */
+	private JobCheckpoint currentCheckpoint(String job, LocalDate today) {
+		Optional<JobCheckpoint> previous = checkpointRepository.findById(job);
+		if (previous.isPresent() && today.equals(previous.get().getRunDate())) {
+			return previous.get();
+		}
+		LocalDate watermark = previous
+				.map(checkpoint -> Boolean.TRUE.equals(checkpoint.getCompleted()) ? checkpoint.getRunDate()
+						: checkpoint.getWatermark())
+				.orElse(FIRST_WATERMARK);
+		return JobCheckpoint.builder()
+				.job(job)
+				.runDate(today)
+				.watermark(watermark == null ? FIRST_WATERMARK : watermark)
+				.lastId(0)
+				.completed(false)
+				.build();
 	}
 }
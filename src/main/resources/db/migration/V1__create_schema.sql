@@ -0,0 +1,84 @@
+-- Schema of the JPA entities, validated by Hibernate at startup
+-- (spring.jpa.hibernate.ddl-auto=validate). Indexes and constraints are named
+-- as in the entities' @Table annotations, which SchemaIndexVerifier checks
+-- against the live database.
+
+create sequence book_seq start with 1 increment by 50;
+create sequence notification_seq start with 1 increment by 50;
+
+create table book (
+	id integer not null,
+	title varchar(255),
+	author varchar(255),
+	isbn varchar(255),
+	version bigint,
+	constraint pk_book primary key (id),
+	-- existsByIsbn, findByIsbn and findExistingIsbns; duplicates are also
+	-- refused by BookService before they get here
+	constraint uk_book_isbn unique (isbn)
+);
+
+create table loan (
+	id integer generated by default as identity,
+	customer varchar(255),
+	customer_email varchar(255),
+	id_book integer,
+	loan_date date,
+	due_date date not null,
+	returned boolean,
+	-- the book id while the loan is open: one open loan per book, and the
+	-- index the open-loan queries read instead of filtering on returned
+	active_book integer,
+	version bigint,
+	constraint pk_loan primary key (id),
+	constraint uk_loan_active_book unique (active_book),
+	constraint fk_loan_book foreign key (id_book) references book (id)
+);
+
+-- findByBook and its keyset variant; ids follow within a book
+create index idx_loan_book on loan (id_book);
+-- the customer side of the isbn-or-customer search
+create index idx_loan_customer on loan (customer);
+-- the late-loan scan
+create index idx_loan_due_date_returned on loan (due_date, returned);
+
+create table notification (
+	id bigint not null,
+	loan_id integer,
+	type varchar(255),
+	period date,
+	email varchar(255),
+	status varchar(255),
+	attempts integer,
+	claim_token varchar(255),
+	claimed_until timestamp,
+	created_at timestamp,
+	sent_at timestamp,
+	constraint pk_notification primary key (id),
+	constraint uk_notification_loan_period unique (loan_id, type, period)
+);
+
+create index idx_notification_status on notification (status, id);
+
+create table job_lease (
+	name varchar(255) not null,
+	owner varchar(255),
+	locked_until timestamp,
+	constraint pk_job_lease primary key (name)
+);
+
+create table job_checkpoint (
+	job varchar(255) not null,
+	run_date date,
+	watermark date,
+	last_id integer,
+	completed boolean,
+	updated_at timestamp,
+	constraint pk_job_checkpoint primary key (job)
+);
+
+create table replica_heartbeat (
+	source varchar(255) not null,
+	beat_at timestamp,
+	constraint pk_replica_heartbeat primary key (source)
+);
@@ -0,0 +1,9 @@
+-- The isbn-or-customer keyset reads each side in id order after a cursor.
+-- With id in the index, each side stops after a page instead of reading and
+-- sorting every loan of the book or of the customer.
+
+drop index idx_loan_book;
+create index idx_loan_book on loan (id_book, id);
+
+drop index idx_loan_customer;
+create index idx_loan_customer on loan (customer, id);
@@ -0,0 +1,35 @@
+package br.com.tddspring.cursotddspringudemy.api.mapper;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import br.com.tddspring.cursotddspringudemy.api.dto.BookDTO;
+import br.com.tddspring.cursotddspringudemy.model.entity.Book;
+
+public class BookMapperTest {
+
+	BookMapper mapper = new BookMapper();
+
+	@Test
+	@DisplayName("Deve converter um livro em DTO")
+	public void toDtoTest() {
+		Book book = Book.builder().id(1).title("As aventuras").author("Fulano").isbn("123").build();
+
+		BookDTO dto = mapper.toDto(book);
+
+		org.assertj.core.api.Assertions.assertThat(dto)
+				.isEqualTo(BookDTO.builder().id(1).title("As aventuras").author("Fulano").isbn("123").build());
+	}
+
+	@Test
+	@DisplayName("Deve converter um DTO em livro")
+	public void toEntityTest() {
+		BookDTO dto = BookDTO.builder().title("As aventuras").author("Fulano").isbn("123").build();
+
+		Book book = mapper.toEntity(dto);
+
+		org.assertj.core.api.Assertions.assertThat(book)
+				.isEqualTo(Book.builder().title("As aventuras").author("Fulano").isbn("123").build());
+	}
+
+}
@@ -0,0 +1,46 @@
+package br.com.tddspring.cursotddspringudemy.api.mapper;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import br.com.tddspring.cursotddspringudemy.api.dto.BookDTO;
+import br.com.tddspring.cursotddspringudemy.api.dto.LoanDTO;
+import br.com.tddspring.cursotddspringudemy.model.entity.Book;
+import br.com.tddspring.cursotddspringudemy.model.entity.Loan;
+import br.com.tddspring.cursotddspringudemy.model.projection.LoanSummary;
+
+public class LoanMapperTest {
+
+	LoanMapper mapper = new LoanMapper(new BookMapper());
+
+	@Test
+	@DisplayName("Deve converter um emprestimo em DTO com o livro")
+	public void toDtoTest() {
+		Book book = Book.builder().id(1).title("As aventuras").author("Fulano").isbn("123").build();
+		Loan loan = Loan.builder().id(2).customer("Ciclano").customerEmail("ciclano@email.com").book(book)
+				.loanDate(LocalDate.now()).build();
+
+		LoanDTO dto = mapper.toDto(loan);
+
+		org.assertj.core.api.Assertions.assertThat(dto.getId()).isEqualTo(2);
+		org.assertj.core.api.Assertions.assertThat(dto.getCustomer()).isEqualTo("Ciclano");
+		org.assertj.core.api.Assertions.assertThat(dto.getEmail()).isEqualTo("ciclano@email.com");
+		org.assertj.core.api.Assertions.assertThat(dto.getBook())
+				.isEqualTo(BookDTO.builder().id(1).title("As aventuras").author("Fulano").isbn("123").build());
+	}
+
+	@Test
+	@DisplayName("Deve converter um resumo de emprestimo em DTO com o livro")
+	public void summaryToDtoTest() {
+		LoanSummary summary = new LoanSummary(2, "Ciclano", "ciclano@email.com", 1, "123", "As aventuras", "Fulano");
+
+		LoanDTO dto = mapper.toDto(summary);
+
+		org.assertj.core.api.Assertions.assertThat(dto).isEqualTo(mapper.toDto(Loan.builder().id(2).customer("Ciclano")
+				.customerEmail("ciclano@email.com")
+				.book(Book.builder().id(1).title("As aventuras").author("Fulano").isbn("123").build()).build()));
+	}
+
+}
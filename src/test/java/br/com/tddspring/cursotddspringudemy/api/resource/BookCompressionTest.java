@@ -0,0 +1,84 @@
+package br.com.tddspring.cursotddspringudemy.api.resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.util.StreamUtils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import br.com.tddspring.cursotddspringudemy.model.entity.Book;
+import br.com.tddspring.cursotddspringudemy.model.repository.BookRepository;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+public class BookCompressionTest {
+
+	@LocalServerPort
+	int port;
+
+	@Autowired
+	BookRepository bookRepository;
+
+	@AfterEach
+	public void tearDown() {
+		bookRepository.deleteAll();
+	}
+
+	@Test
+	@DisplayName("Deve comprimir uma pagina grande de livros que tem ETag")
+	public void compressTaggedPageTest() throws IOException {
+		List<Book> books = new ArrayList<>();
+		for (int i = 0; i < 50; i++) {
+			books.add(Book.builder().isbn("gzip-" + i).title("Titulo " + i).author("Autor " + i).build());
+		}
+		bookRepository.saveAll(books);
+
+		HttpURLConnection connection = get("/api/books?author=Autor&page=0&size=50", null);
+		String etag = connection.getHeaderField("ETag");
+
+		Assertions.assertThat(connection.getResponseCode()).isEqualTo(200);
+		Assertions.assertThat(connection.getHeaderField("Content-Encoding")).isEqualTo("gzip");
+		Assertions.assertThat(etag).startsWith("W/\"").endsWith("-json\"");
+		Assertions.assertThat(connection.getHeaderFields().get("Vary").stream()
+				.flatMap(vary -> Arrays.stream(vary.split(","))).map(name -> name.trim().toLowerCase(Locale.ROOT)))
+				.contains("accept", "accept-encoding");
+		try (InputStream body = new GZIPInputStream(connection.getInputStream())) {
+			JsonNode page = new ObjectMapper().readTree(StreamUtils.copyToByteArray(body));
+			Assertions.assertThat(page.at("/content").size()).isEqualTo(50);
+		}
+
+		Assertions.assertThat(get("/api/books?author=Autor&page=0&size=50", etag).getResponseCode()).isEqualTo(304);
+	}
+
+	private HttpURLConnection get(String path, String ifNoneMatch) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + port + path).openConnection();
+		connection.setRequestProperty("Accept", "application/json");
+		connection.setRequestProperty("Accept-Encoding", "gzip");
+		if (ifNoneMatch != null) {
+			connection.setRequestProperty("If-None-Match", ifNoneMatch);
+		}
+		return connection;
+	}
+
+}
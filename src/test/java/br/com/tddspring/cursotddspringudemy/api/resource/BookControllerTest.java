@@ -3,6 +3,7 @@ package br.com.tddspring.cursotddspringudemy.api.resource;
 import java.util.Arrays;
 import java.util.Optional;
 
+import org.assertj.core.api.Assertions;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -13,10 +14,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
@@ -24,11 +28,20 @@ import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilde
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 
+import br.com.tddspring.cursotddspringudemy.api.KeysetCursor;
 import br.com.tddspring.cursotddspringudemy.api.dto.BookDTO;
+import br.com.tddspring.cursotddspringudemy.api.dto.BulkImportResultDTO;
+import br.com.tddspring.cursotddspringudemy.api.mapper.BookMapper;
+import br.com.tddspring.cursotddspringudemy.api.mapper.LoanMapper;
 import br.com.tddspring.cursotddspringudemy.exception.BusinessException;
 import br.com.tddspring.cursotddspringudemy.model.entity.Book;
+import br.com.tddspring.cursotddspringudemy.service.BookCatalogService;
+import br.com.tddspring.cursotddspringudemy.service.BookCatalogService.ExportFormat;
 import br.com.tddspring.cursotddspringudemy.service.BookService;
 import br.com.tddspring.cursotddspringudemy.service.LoanService;
 
@@ -36,6 +49,7 @@ import br.com.tddspring.cursotddspringudemy.service.LoanService;
 @ActiveProfiles("test")
 @WebMvcTest(controllers = BookController.class)
 @AutoConfigureMockMvc
+@Import({ BookMapper.class, LoanMapper.class })
 public class BookControllerTest {
 
 	static String BOOK_API = "/api/books";
@@ -49,6 +63,9 @@ public class BookControllerTest {
 	@MockBean
 	private LoanService loanService;	
 
+	@MockBean
+	private BookCatalogService catalogService;
+
 	@Test
 	@DisplayName("Deve criar um livro com sucesso")
 	public void createBookTest() throws Exception {
@@ -225,6 +242,219 @@ public class BookControllerTest {
             ;
     }
 
+	@Test
+	@DisplayName("Deve filtrar livros por cursor")
+	public void findBooksAfterTest() throws Exception {
+
+		Book book = Book.builder().id(7).title(createNewBook().getTitle()).author(createNewBook().getAuthor())
+				.isbn(createNewBook().getIsbn()).build();
+
+		BDDMockito.given(service.findAfter(Mockito.any(Book.class), Mockito.eq(5), Mockito.eq(1)))
+				.willReturn(new SliceImpl<Book>(Arrays.asList(book), PageRequest.of(0, 1), true));
+
+		String queryString = String.format("?title=%s&after=%s&size=1", book.getTitle(), KeysetCursor.encode(5));
+
+		MockHttpServletRequestBuilder request = MockMvcRequestBuilders.get(BOOK_API.concat(queryString))
+				.accept(MediaType.APPLICATION_JSON);
+
+		mvc.perform(request).andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.jsonPath("content", Matchers.hasSize(1)))
+				.andExpect(MockMvcResultMatchers.jsonPath("size").value(1))
+				.andExpect(MockMvcResultMatchers.jsonPath("hasNext").value(true))
+				.andExpect(MockMvcResultMatchers.jsonPath("next").value(KeysetCursor.encode(7)))
+				.andExpect(MockMvcResultMatchers.jsonPath("totalElements").doesNotExist());
+	}
+
+	@Test
+	@DisplayName("Deve retornar bad request para um cursor invalido")
+	public void findBooksAfterInvalidCursorTest() throws Exception {
+
+		MockHttpServletRequestBuilder request = MockMvcRequestBuilders.get(BOOK_API.concat("?after=xyz"))
+				.accept(MediaType.APPLICATION_JSON);
+
+		mvc.perform(request).andExpect(MockMvcResultMatchers.status().isBadRequest())
+				.andExpect(MockMvcResultMatchers.jsonPath("errors[0]").value("Invalid cursor"));
+	}
+
+	@Test
+	@DisplayName("Deve importar livros em lote a partir de NDJSON")
+	public void bulkImportTest() throws Exception {
+		BulkImportResultDTO result = BulkImportResultDTO.builder().read(2).created(2).build();
+		BDDMockito.given(catalogService.importBooks(Mockito.any())).willReturn(result);
+
+		String ndjson = new ObjectMapper().writeValueAsString(createNewBook()) + "\n"
+				+ new ObjectMapper().writeValueAsString(createNewBook());
+
+		MockHttpServletRequestBuilder request = MockMvcRequestBuilders.post(BOOK_API.concat("/bulk"))
+				.contentType("application/x-ndjson").accept(MediaType.APPLICATION_JSON).content(ndjson);
+
+		mvc.perform(request).andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.jsonPath("read").value(2))
+				.andExpect(MockMvcResultMatchers.jsonPath("created").value(2))
+				.andExpect(MockMvcResultMatchers.jsonPath("errors", Matchers.hasSize(0)));
+	}
+
+	@Test
+	@DisplayName("Deve exportar o catalogo no formato pedido")
+	public void exportBooksTest() throws Exception {
+		BDDMockito.willAnswer(invocation -> {
+			((java.io.OutputStream) invocation.getArgument(1)).write("id,title,author,isbn\n".getBytes());
+			return null;
+		}).given(catalogService).exportBooks(Mockito.eq(ExportFormat.CSV), Mockito.any());
+
+		MockHttpServletRequestBuilder request = MockMvcRequestBuilders.get(BOOK_API.concat("/export?format=csv"));
+
+		mvc.perform(request).andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.content().contentType("text/csv;charset=UTF-8"))
+				.andExpect(MockMvcResultMatchers.header().string("Content-Disposition", "attachment; filename=books.csv"))
+				.andExpect(MockMvcResultMatchers.content().string("id,title,author,isbn\n"));
+	}
+
+	@Test
+	@DisplayName("Deve retornar bad request para um formato de exportacao desconhecido")
+	public void exportUnsupportedFormatTest() throws Exception {
+		mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("/export?format=xml")))
+				.andExpect(MockMvcResultMatchers.status().isBadRequest());
+	}
+
+	@Test
+	@DisplayName("Deve retornar not modified quando o livro nao mudou desde o ETag informado")
+	public void getBookNotModifiedTest() throws Exception {
+		Book book = Book.builder().id(1).title("As Aventuras").author("Rock").isbn("234").version(3L).build();
+		BDDMockito.given(service.getById(1)).willReturn(Optional.of(book));
+
+		mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("/1")).accept(MediaType.APPLICATION_JSON))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.header().string("ETag", "W/\"1-3-json\""))
+				.andExpect(MockMvcResultMatchers.header().string("Vary", "Accept"));
+
+		mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("/1")).accept(MediaType.APPLICATION_JSON)
+				.header("If-None-Match", "W/\"1-3-json\""))
+				.andExpect(MockMvcResultMatchers.status().isNotModified())
+				.andExpect(MockMvcResultMatchers.content().string(""));
+
+		mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("/1")).accept(MediaType.APPLICATION_JSON)
+				.header("If-None-Match", "\"1-2-json\""))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.jsonPath("id").value(1));
+	}
+
+	@Test
+	@DisplayName("Deve retornar not modified quando a pagina de livros nao mudou")
+	public void findBooksNotModifiedTest() throws Exception {
+		Book book = Book.builder().id(1).title("As Aventuras").author("Rock").isbn("234").version(0L).build();
+		BDDMockito.given(service.find(Mockito.any(Book.class), Mockito.any(Pageable.class)))
+				.willReturn(new PageImpl<Book>(Arrays.asList(book), PageRequest.of(0, 10), 1));
+
+		String etag = mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("?page=0&size=10")))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andReturn().getResponse().getHeader("ETag");
+
+		mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("?page=0&size=10")).header("If-None-Match", etag))
+				.andExpect(MockMvcResultMatchers.status().isNotModified());
+
+		book.setVersion(1L);
+		mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("?page=0&size=10")).header("If-None-Match", etag))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.jsonPath("content", Matchers.hasSize(1)));
+	}
+
+	@Test
+	@DisplayName("Deve atualizar um livro quando o If-Match corresponder a versao atual")
+	public void updateBookIfMatchTest() throws Exception {
+		String json = new ObjectMapper().writeValueAsString(createNewBook());
+		Book updatingBook = Book.builder().id(1).author("some author").title("some title").isbn("123").version(4L).build();
+		Book updatedBook = Book.builder().id(1).author("Rock").title("As Aventuras").isbn("123").version(5L).build();
+		BDDMockito.given(service.getById(1)).willReturn(Optional.of(updatingBook));
+		BDDMockito.given(service.update(updatingBook)).willReturn(updatedBook);
+
+		MockHttpServletRequestBuilder request = MockMvcRequestBuilders.put(BOOK_API.concat("/1")).content(json)
+				.contentType(MediaType.APPLICATION_JSON).header("If-Match", "W/\"1-4-cbor\"");
+
+		mvc.perform(request).andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.header().string("ETag", "W/\"1-5-json\""));
+	}
+
+	@Test
+	@DisplayName("Deve retornar precondition failed quando o If-Match nao corresponder a versao atual")
+	public void updateBookIfMatchFailedTest() throws Exception {
+		String json = new ObjectMapper().writeValueAsString(createNewBook());
+		Book book = Book.builder().id(1).author("some author").title("some title").isbn("123").version(5L).build();
+		BDDMockito.given(service.getById(1)).willReturn(Optional.of(book));
+
+		MockHttpServletRequestBuilder request = MockMvcRequestBuilders.put(BOOK_API.concat("/1")).content(json)
+				.contentType(MediaType.APPLICATION_JSON).header("If-Match", "W/\"1-4-json\", \"1-6-json\"");
+
+		mvc.perform(request).andExpect(MockMvcResultMatchers.status().isPreconditionFailed());
+		Mockito.verify(service, Mockito.never()).update(Mockito.any(Book.class));
+	}
+
+	@Test
+	@DisplayName("Deve retornar conflict quando o livro for alterado durante a atualizacao")
+	public void updateBookConcurrentlyTest() throws Exception {
+		String json = new ObjectMapper().writeValueAsString(createNewBook());
+		Book book = Book.builder().id(1).author("some author").title("some title").isbn("123").version(5L).build();
+		BDDMockito.given(service.getById(1)).willReturn(Optional.of(book));
+		BDDMockito.given(service.update(book)).willThrow(new ObjectOptimisticLockingFailureException(Book.class, 1));
+
+		MockHttpServletRequestBuilder request = MockMvcRequestBuilders.put(BOOK_API.concat("/1")).content(json)
+				.contentType(MediaType.APPLICATION_JSON);
+
+		mvc.perform(request).andExpect(MockMvcResultMatchers.status().isConflict())
+				.andExpect(MockMvcResultMatchers.jsonPath("errors[0]").value("Resource was modified concurrently"));
+	}
+
+	@Test
+	@DisplayName("Deve serializar a pagina de livros no formato binario pedido, com JSON como padrao")
+	public void findBooksBinaryFormatsTest() throws Exception {
+		Book book = Book.builder().id(1).title("As Aventuras").author("Rock").isbn("234").build();
+		BDDMockito.given(service.find(Mockito.any(Book.class), Mockito.any(Pageable.class)))
+				.willReturn(new PageImpl<Book>(Arrays.asList(book), PageRequest.of(0, 10), 1));
+
+		mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("?page=0&size=10")))
+				.andExpect(MockMvcResultMatchers.content().contentType(MediaType.APPLICATION_JSON));
+
+		byte[] cbor = mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("?page=0&size=10"))
+				.accept(MediaType.APPLICATION_CBOR))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.content().contentType(MediaType.APPLICATION_CBOR))
+				.andReturn().getResponse().getContentAsByteArray();
+		JsonNode page = new ObjectMapper(new CBORFactory()).readTree(cbor);
+		Assertions.assertThat(page.at("/content/0/title").asText()).isEqualTo("As Aventuras");
+		Assertions.assertThat(page.at("/totalElements").asInt()).isEqualTo(1);
+
+		byte[] smile = mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("?page=0&size=10"))
+				.accept("application/x-jackson-smile"))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andReturn().getResponse().getContentAsByteArray();
+		page = new ObjectMapper(new SmileFactory()).readTree(smile);
+		Assertions.assertThat(page.at("/content/0/isbn").asText()).isEqualTo("234");
+	}
+
+	@Test
+	@DisplayName("Deve usar um ETag diferente para cada formato da mesma pagina de livros")
+	public void findBooksETagPerFormatTest() throws Exception {
+		Book book = Book.builder().id(1).title("As Aventuras").author("Rock").isbn("234").version(0L).build();
+		BDDMockito.given(service.find(Mockito.any(Book.class), Mockito.any(Pageable.class)))
+				.willReturn(new PageImpl<Book>(Arrays.asList(book), PageRequest.of(0, 10), 1));
+
+		String json = mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("?page=0&size=10")))
+				.andExpect(MockMvcResultMatchers.header().string("Vary", "Accept"))
+				.andReturn().getResponse().getHeader("ETag");
+		String cbor = mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("?page=0&size=10"))
+				.accept(MediaType.APPLICATION_CBOR))
+				.andExpect(MockMvcResultMatchers.content().contentType(MediaType.APPLICATION_CBOR))
+				.andReturn().getResponse().getHeader("ETag");
+
+		Assertions.assertThat(cbor).isNotEqualTo(json);
+		mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("?page=0&size=10")).accept(MediaType.APPLICATION_CBOR)
+				.header("If-None-Match", json))
+				.andExpect(MockMvcResultMatchers.status().isOk());
+		mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("?page=0&size=10")).accept(MediaType.APPLICATION_CBOR)
+				.header("If-None-Match", cbor))
+				.andExpect(MockMvcResultMatchers.status().isNotModified());
+	}
+
 	private BookDTO createNewBook() {
 		return BookDTO.builder().author("Rock").title("As Aventuras").isbn("234").build();
 	}
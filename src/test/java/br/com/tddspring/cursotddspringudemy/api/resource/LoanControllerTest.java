@@ -14,9 +14,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
@@ -27,13 +29,17 @@ import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import br.com.tddspring.cursotddspringudemy.api.KeysetCursor;
 import br.com.tddspring.cursotddspringudemy.api.dto.LoanDTO;
 import br.com.tddspring.cursotddspringudemy.api.dto.LoanFilterDTO;
 import br.com.tddspring.cursotddspringudemy.api.dto.ReturnedLoanDTO;
 import br.com.tddspring.cursotddspringudemy.api.service.LoanServiceTest;
+import br.com.tddspring.cursotddspringudemy.api.mapper.BookMapper;
+import br.com.tddspring.cursotddspringudemy.api.mapper.LoanMapper;
 import br.com.tddspring.cursotddspringudemy.exception.BusinessException;
 import br.com.tddspring.cursotddspringudemy.model.entity.Book;
 import br.com.tddspring.cursotddspringudemy.model.entity.Loan;
+import br.com.tddspring.cursotddspringudemy.model.projection.LoanSummary;
 import br.com.tddspring.cursotddspringudemy.service.BookService;
 import br.com.tddspring.cursotddspringudemy.service.LoanService;
 
@@ -41,6 +47,7 @@ import br.com.tddspring.cursotddspringudemy.service.LoanService;
 @ActiveProfiles("test")
 @WebMvcTest(controllers = LoanController.class)
 @AutoConfigureMockMvc
+@Import({ BookMapper.class, LoanMapper.class })
 public class LoanControllerTest {
 
 	static final String LOAN_API = "/api/loans";
@@ -146,19 +153,13 @@ public class LoanControllerTest {
     @DisplayName("Deve filtrar emprestimos")
     public void findLoanTest() throws Exception{
 
-        Integer id = 1;
+        LoanSummary loan = new LoanSummary(1, "fulano", "fulano@email.com", 1, "321", "As aventuras", "Artur");
         
-        Loan loan = LoanServiceTest.createLoan();
-        loan.setId(id);
-        Book book = Book.builder().id(1).isbn("321").build();
-        loan.setBook(book);
-        
-        
-        BDDMockito.given( loanService.find(Mockito.any(LoanFilterDTO.class), Mockito.any(Pageable.class)) )
-                .willReturn(new PageImpl<Loan>( Arrays.asList(loan), PageRequest.of(0,10), 1 )   );
+        BDDMockito.given( loanService.findSummaries(Mockito.any(LoanFilterDTO.class), Mockito.any(Pageable.class)) )
+                .willReturn(new PageImpl<LoanSummary>( Arrays.asList(loan), PageRequest.of(0,10), 1 )   );
 
         String queryString = String.format("?isbn=%s&customer=%s&page=0&size=10",
-        		book.getIsbn(), loan.getCustomer());
+        		loan.getIsbn(), loan.getCustomer());
 
         MockHttpServletRequestBuilder request = MockMvcRequestBuilders
                 .get(LOAN_API.concat(queryString))
@@ -168,10 +169,30 @@ public class LoanControllerTest {
             .perform(request)
             .andExpect(MockMvcResultMatchers.status().isOk())
             .andExpect(MockMvcResultMatchers.jsonPath("content", Matchers.hasSize(1)))
+            .andExpect(MockMvcResultMatchers.jsonPath("content[0].book.isbn").value("321"))
             .andExpect(MockMvcResultMatchers.jsonPath("totalElements").value(1) )
             .andExpect(MockMvcResultMatchers.jsonPath("pageable.pageSize").value(10))
             .andExpect(MockMvcResultMatchers.jsonPath("pageable.pageNumber").value(0));
     }
 
+	@Test
+	@DisplayName("Deve filtrar emprestimos por cursor a partir do inicio")
+	public void findLoanAfterTest() throws Exception {
+
+		Loan loan = LoanServiceTest.createLoan();
+		loan.setId(3);
+
+		BDDMockito.given(loanService.findAfter(Mockito.any(LoanFilterDTO.class), Mockito.eq(0), Mockito.eq(20)))
+				.willReturn(new SliceImpl<Loan>(Arrays.asList(loan), PageRequest.of(0, 20), false));
+
+		MockHttpServletRequestBuilder request = MockMvcRequestBuilders.get(LOAN_API.concat("?customer=fulano&after="))
+				.accept(MediaType.APPLICATION_JSON);
+
+		mvc.perform(request).andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.jsonPath("content", Matchers.hasSize(1)))
+				.andExpect(MockMvcResultMatchers.jsonPath("content[0].id").value(3))
+				.andExpect(MockMvcResultMatchers.jsonPath("hasNext").value(false))
+				.andExpect(MockMvcResultMatchers.jsonPath("next").isEmpty());
+	}
 
 }
@@ -0,0 +1,74 @@
+package br.com.tddspring.cursotddspringudemy.api.resource;
+
+import java.time.LocalDate;
+
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import br.com.tddspring.cursotddspringudemy.model.entity.Book;
+import br.com.tddspring.cursotddspringudemy.model.entity.Loan;
+import br.com.tddspring.cursotddspringudemy.model.repository.BookRepository;
+import br.com.tddspring.cursotddspringudemy.model.repository.LoanRepository;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest
+@AutoConfigureMockMvc
+public class LoanSortTest {
+
+	static final String LOAN_API = "/api/loans";
+
+	@Autowired
+	MockMvc mvc;
+
+	@Autowired
+	BookRepository bookRepository;
+
+	@Autowired
+	LoanRepository loanRepository;
+
+	@AfterEach
+	public void tearDown() {
+		loanRepository.deleteAll();
+		bookRepository.deleteAll();
+	}
+
+	@Test
+	@DisplayName("Deve ordenar os emprestimos filtrados pela propriedade pedida")
+	public void findLoansSortedTest() throws Exception {
+		Book book = bookRepository.save(Book.builder().isbn("sort-123").title("titulo").author("autor").build());
+		Book other = bookRepository.save(Book.builder().isbn("sort-456").title("titulo").author("autor").build());
+		loanRepository.save(Loan.builder().book(book).customer("Ana").loanDate(LocalDate.now())
+				.dueDate(LocalDate.now()).build());
+		loanRepository.save(Loan.builder().book(other).customer("Zeca").loanDate(LocalDate.now())
+				.dueDate(LocalDate.now()).build());
+
+		mvc.perform(MockMvcRequestBuilders.get(LOAN_API + "?isbn=sort-123&customer=Zeca&sort=customer,desc")
+				.accept(MediaType.APPLICATION_JSON))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.jsonPath("totalElements").value(2))
+				.andExpect(MockMvcResultMatchers.jsonPath("content[*].customer", Matchers.contains("Zeca", "Ana")));
+	}
+
+	@Test
+	@DisplayName("Deve recusar a ordenacao dos emprestimos por uma propriedade desconhecida")
+	public void findLoansInvalidSortTest() throws Exception {
+		mvc.perform(MockMvcRequestBuilders.get(LOAN_API + "?isbn=sort-123&customer=Zeca&sort=book,desc")
+				.accept(MediaType.APPLICATION_JSON))
+				.andExpect(MockMvcResultMatchers.status().isBadRequest())
+				.andExpect(MockMvcResultMatchers.jsonPath("errors[0]").value("Invalid sort property book"));
+	}
+
+}
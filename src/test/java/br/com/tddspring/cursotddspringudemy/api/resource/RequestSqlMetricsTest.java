@@ -0,0 +1,94 @@
+package br.com.tddspring.cursotddspringudemy.api.resource;
+
+import java.time.LocalDate;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import br.com.tddspring.cursotddspringudemy.config.RequestSqlMetricsFilter;
+import br.com.tddspring.cursotddspringudemy.config.SlowQueryLog;
+import br.com.tddspring.cursotddspringudemy.config.SlowQueryLog.SlowQuery;
+import br.com.tddspring.cursotddspringudemy.config.SqlStatsEndpoint;
+import br.com.tddspring.cursotddspringudemy.config.SqlStatsEndpoint.RequestSql;
+import br.com.tddspring.cursotddspringudemy.config.SqlStatsEndpoint.SqlStats;
+import br.com.tddspring.cursotddspringudemy.model.entity.Book;
+import br.com.tddspring.cursotddspringudemy.model.entity.Loan;
+import br.com.tddspring.cursotddspringudemy.model.repository.BookRepository;
+import br.com.tddspring.cursotddspringudemy.model.repository.LoanRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest(properties = { "application.sql.slow-query-ms=0", "application.sql.slow-query-log-size=5" })
+@AutoConfigureMockMvc
+public class RequestSqlMetricsTest {
+
+	static final String LOANS_BY_BOOK = "/api/books/{id}/loans";
+
+	@Autowired
+	MockMvc mvc;
+
+	@Autowired
+	BookRepository bookRepository;
+
+	@Autowired
+	LoanRepository loanRepository;
+
+	@Autowired
+	MeterRegistry registry;
+
+	@Autowired
+	SqlStatsEndpoint endpoint;
+
+	@AfterEach
+	public void tearDown() {
+		loanRepository.deleteAll();
+		bookRepository.deleteAll();
+	}
+
+	@Test
+	@DisplayName("Deve contar as instrucoes SQL de cada requisicao e registrar as consultas lentas")
+	public void countStatementsPerRequestTest() throws Exception {
+		Book book = bookRepository.save(Book.builder().isbn("sql-123").title("titulo").author("autor").build());
+		loanRepository.save(Loan.builder().book(book).customer("Fulano").returned(true)
+				.loanDate(LocalDate.now()).dueDate(LocalDate.now()).build());
+
+		mvc.perform(MockMvcRequestBuilders.get(LOANS_BY_BOOK, book.getId()))
+				.andExpect(MockMvcResultMatchers.status().isOk());
+
+		DistributionSummary statements = registry.get(RequestSqlMetricsFilter.STATEMENTS)
+				.tag("uri", LOANS_BY_BOOK).summary();
+		Assertions.assertThat(statements.count()).isEqualTo(1);
+		Assertions.assertThat(statements.max()).isGreaterThanOrEqualTo(2);
+		Assertions.assertThat(registry.get(RequestSqlMetricsFilter.TIME).tag("uri", LOANS_BY_BOOK).timer().count())
+				.isEqualTo(1);
+
+		SqlStats stats = endpoint.sqlStats();
+		Assertions.assertThat(stats.getRequests()).extracting(RequestSql::getUri).contains(LOANS_BY_BOOK);
+		Assertions.assertThat(stats.getSlowQueries()).hasSize(5);
+		Assertions.assertThat(stats.getSlowQueries()).extracting(SlowQuery::getSql).noneMatch(sql -> sql.contains("sql-123"));
+		Assertions.assertThat(stats.getHibernate()).containsEntry("enabled", true);
+		Assertions.assertThat(registry.find("hikaricp.connections").gauge()).isNotNull();
+	}
+
+	@Test
+	@DisplayName("Deve normalizar o SQL trocando literais por parametros")
+	public void normalizeSqlTest() {
+		String sql = SlowQueryLog.normalize("select b.id   from book b\n where b.isbn = 'it''s 1' and b.id > 10 limit 5");
+
+		Assertions.assertThat(sql).isEqualTo("select b.id from book b where b.isbn = ? and b.id > ? limit ?");
+	}
+
+}
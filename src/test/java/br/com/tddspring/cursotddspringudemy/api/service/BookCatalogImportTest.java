@@ -0,0 +1,61 @@
+package br.com.tddspring.cursotddspringudemy.api.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import br.com.tddspring.cursotddspringudemy.api.dto.BulkImportResultDTO;
+import br.com.tddspring.cursotddspringudemy.model.repository.BookRepository;
+import br.com.tddspring.cursotddspringudemy.service.BookCatalogService;
+import br.com.tddspring.cursotddspringudemy.service.impl.BookCatalogServiceImpl;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest(properties = "application.books.import.chunk-size=2")
+public class BookCatalogImportTest {
+
+	@Autowired
+	BookCatalogService service;
+
+	@Autowired
+	BookRepository bookRepository;
+
+	@AfterEach
+	public void tearDown() {
+		bookRepository.deleteAll();
+	}
+
+	@Test
+	@DisplayName("Deve importar o restante do lote quando o banco recusar uma linha de um lote seguinte")
+	public void importAroundLineRefusedByDatabaseTest() throws IOException {
+		StringBuilder tooLong = new StringBuilder();
+		for (int i = 0; i < 256; i++) {
+			tooLong.append('a');
+		}
+		String ndjson = line("import-111", "Titulo") + line("import-222", "Titulo")
+				+ line("import-333", tooLong.toString()) + line("import-444", "Titulo");
+
+		BulkImportResultDTO result = service.importBooks(new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)));
+
+		org.assertj.core.api.Assertions.assertThat(result.getCreated()).isEqualTo(3);
+		org.assertj.core.api.Assertions.assertThat(result.getErrors()).extracting("line").containsExactly(3);
+		org.assertj.core.api.Assertions.assertThat(result.getErrors()).extracting("message")
+				.containsExactly(BookCatalogServiceImpl.REFUSED_BY_DATABASE);
+		org.assertj.core.api.Assertions.assertThat(bookRepository.existsByIsbn("import-444")).isTrue();
+		org.assertj.core.api.Assertions.assertThat(bookRepository.existsByIsbn("import-333")).isFalse();
+	}
+
+	private String line(String isbn, String title) {
+		return "{\"isbn\":\"" + isbn + "\",\"title\":\"" + title + "\",\"author\":\"Fulano\"}\n";
+	}
+
+}
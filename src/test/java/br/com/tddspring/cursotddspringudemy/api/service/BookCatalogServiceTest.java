@@ -0,0 +1,208 @@
+package br.com.tddspring.cursotddspringudemy.api.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+import javax.validation.Validation;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import br.com.tddspring.cursotddspringudemy.api.dto.BulkImportResultDTO;
+import br.com.tddspring.cursotddspringudemy.exception.BusinessException;
+import br.com.tddspring.cursotddspringudemy.model.entity.Book;
+import br.com.tddspring.cursotddspringudemy.model.repository.BookRepository;
+import br.com.tddspring.cursotddspringudemy.service.BookCatalogService;
+import br.com.tddspring.cursotddspringudemy.service.BookCatalogService.ExportFormat;
+import br.com.tddspring.cursotddspringudemy.service.BookService;
+import br.com.tddspring.cursotddspringudemy.service.impl.BookCatalogServiceImpl;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+public class BookCatalogServiceTest {
+
+	BookCatalogService service;
+
+	@MockBean
+	BookService bookService;
+
+	@MockBean
+	BookRepository bookRepository;
+
+	@MockBean
+	EntityManager entityManager;
+
+	@MockBean
+	PlatformTransactionManager transactionManager;
+
+	@BeforeEach
+	public void setUp() {
+		this.service = new BookCatalogServiceImpl(bookService, bookRepository, new ObjectMapper(),
+				Validation.buildDefaultValidatorFactory().getValidator(), entityManager, transactionManager, 2);
+		Mockito.when(bookService.getExistingIsbns(Mockito.anyCollection())).thenReturn(Collections.emptySet());
+	}
+
+	@Test
+	@DisplayName("Deve importar os livros em lotes")
+	public void importBooksInChunksTest() throws IOException {
+		String ndjson = line("111") + line("222") + "\n" + line("333");
+
+		BulkImportResultDTO result = service.importBooks(stream(ndjson));
+
+		org.assertj.core.api.Assertions.assertThat(result.getRead()).isEqualTo(3);
+		org.assertj.core.api.Assertions.assertThat(result.getCreated()).isEqualTo(3);
+		org.assertj.core.api.Assertions.assertThat(result.getRejected()).isZero();
+		Mockito.verify(bookService, Mockito.times(2)).saveAll(Mockito.anyList());
+		Mockito.verify(bookService, Mockito.times(2)).getExistingIsbns(Mockito.anyCollection());
+		Mockito.verify(transactionManager, Mockito.times(2)).commit(Mockito.any());
+	}
+
+	@Test
+	@DisplayName("Deve rejeitar isbns ja cadastrados ou repetidos no lote")
+	public void rejectDuplicatedIsbnsTest() throws IOException {
+		Mockito.when(bookService.getExistingIsbns(new HashSet<>(Arrays.asList("111"))))
+				.thenReturn(Collections.singleton("111"));
+
+		BulkImportResultDTO result = service.importBooks(stream(line("222") + line("222") + line("111")));
+
+		ArgumentCaptor<List<Book>> saved = captureSaved();
+		org.assertj.core.api.Assertions.assertThat(result.getCreated()).isEqualTo(1);
+		org.assertj.core.api.Assertions.assertThat(result.getRejected()).isEqualTo(2);
+		org.assertj.core.api.Assertions.assertThat(result.getErrors()).extracting("line").containsExactly(2, 3);
+		org.assertj.core.api.Assertions.assertThat(result.getErrors()).extracting("message")
+				.containsOnly(BookCatalogServiceImpl.DUPLICATED_ISBN);
+		org.assertj.core.api.Assertions.assertThat(saved.getAllValues().get(0)).extracting("isbn").containsExactly("222");
+	}
+
+	@Test
+	@DisplayName("Deve rejeitar apenas a linha cujo isbn foi cadastrado por outra instancia durante a importacao")
+	public void rejectIsbnSavedElsewhereTest() throws IOException {
+		Mockito.when(bookService.saveAll(Mockito.anyList())).thenThrow(new BusinessException("Isbn já cadastrado."));
+		Mockito.when(bookService.save(Mockito.argThat(book -> "222".equals(book.getIsbn()))))
+				.thenThrow(new BusinessException("Isbn já cadastrado."));
+
+		BulkImportResultDTO result = service.importBooks(stream(line("111") + line("222")));
+
+		org.assertj.core.api.Assertions.assertThat(result.getCreated()).isEqualTo(1);
+		org.assertj.core.api.Assertions.assertThat(result.getRejected()).isEqualTo(1);
+		org.assertj.core.api.Assertions.assertThat(result.getErrors()).extracting("line").containsExactly(2);
+		org.assertj.core.api.Assertions.assertThat(result.getErrors()).extracting("message")
+				.containsExactly(BookCatalogServiceImpl.DUPLICATED_ISBN);
+		Mockito.verify(bookService, Mockito.times(2)).save(Mockito.any(Book.class));
+	}
+
+	@Test
+	@DisplayName("Deve salvar linha a linha o lote recusado pelo banco ao confirmar a transacao")
+	public void saveLinesOfRefusedChunkTest() throws IOException {
+		Mockito.doThrow(new DataIntegrityViolationException("uk_book_isbn")).doNothing().when(transactionManager)
+				.commit(Mockito.any());
+		Mockito.when(bookService.save(Mockito.argThat(book -> "111".equals(book.getIsbn()))))
+				.thenThrow(new BusinessException("Isbn já cadastrado."));
+
+		BulkImportResultDTO result = service.importBooks(stream(line("111") + line("222") + line("333")));
+
+		org.assertj.core.api.Assertions.assertThat(result.getCreated()).isEqualTo(2);
+		org.assertj.core.api.Assertions.assertThat(result.getErrors()).extracting("line").containsExactly(1);
+		Mockito.verify(bookService, Mockito.times(2)).save(Mockito.any(Book.class));
+		Mockito.verify(bookService, Mockito.times(2)).saveAll(Mockito.anyList());
+	}
+
+	@Test
+	@DisplayName("Deve rejeitar apenas a linha recusada pelo banco em um lote seguinte")
+	public void rejectLineRefusedByDatabaseTest() throws IOException {
+		DataIntegrityViolationException tooLong = new DataIntegrityViolationException("Value too long for column TITLE");
+		Mockito.when(bookService.saveAll(Mockito.argThat(books -> books.stream().anyMatch(book -> "333".equals(book.getIsbn())))))
+				.thenThrow(tooLong);
+		Mockito.when(bookService.save(Mockito.argThat(book -> "333".equals(book.getIsbn())))).thenThrow(tooLong);
+
+		BulkImportResultDTO result = service.importBooks(stream(line("111") + line("222") + line("333") + line("444")));
+
+		org.assertj.core.api.Assertions.assertThat(result.getCreated()).isEqualTo(3);
+		org.assertj.core.api.Assertions.assertThat(result.getRejected()).isEqualTo(1);
+		org.assertj.core.api.Assertions.assertThat(result.getErrors()).extracting("line").containsExactly(3);
+		org.assertj.core.api.Assertions.assertThat(result.getErrors()).extracting("message")
+				.containsExactly(BookCatalogServiceImpl.REFUSED_BY_DATABASE);
+		Mockito.verify(bookService, Mockito.times(2)).save(Mockito.any(Book.class));
+	}
+
+	@Test
+	@DisplayName("Deve rejeitar linhas invalidas informando o numero da linha")
+	public void rejectInvalidLinesTest() throws IOException {
+		String ndjson = "{not json}\n" + "{\"title\":\"Sem isbn\",\"author\":\"Fulano\"}\n" + line("111");
+
+		BulkImportResultDTO result = service.importBooks(stream(ndjson));
+
+		org.assertj.core.api.Assertions.assertThat(result.getRead()).isEqualTo(3);
+		org.assertj.core.api.Assertions.assertThat(result.getCreated()).isEqualTo(1);
+		org.assertj.core.api.Assertions.assertThat(result.getErrors()).hasSize(2);
+		org.assertj.core.api.Assertions.assertThat(result.getErrors().get(0).getLine()).isEqualTo(1);
+		org.assertj.core.api.Assertions.assertThat(result.getErrors().get(0).getMessage())
+				.isEqualTo(BookCatalogServiceImpl.INVALID_JSON);
+		org.assertj.core.api.Assertions.assertThat(result.getErrors().get(1).getLine()).isEqualTo(2);
+		org.assertj.core.api.Assertions.assertThat(result.getErrors().get(1).getMessage()).startsWith("isbn");
+	}
+
+	@Test
+	@DisplayName("Deve exportar o catalogo em CSV")
+	public void exportCsvTest() throws IOException {
+		Book book = Book.builder().id(1).title("Aventuras, \"volume\" 1").author("Fulano").isbn("111").build();
+		Mockito.when(bookRepository.streamAll()).thenReturn(Stream.of(book));
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		service.exportBooks(ExportFormat.CSV, out);
+
+		org.assertj.core.api.Assertions.assertThat(out.toString("UTF-8"))
+				.isEqualTo("id,title,author,isbn\n1,\"Aventuras, \"\"volume\"\" 1\",Fulano,111\n");
+		Mockito.verify(entityManager).detach(book);
+	}
+
+	@Test
+	@DisplayName("Deve exportar o catalogo em NDJSON")
+	public void exportNdjsonTest() throws IOException {
+		Book first = Book.builder().id(1).title("As aventuras").author("Fulano").isbn("111").build();
+		Book second = Book.builder().id(2).title("Outro livro").author("Ciclano").isbn("222").build();
+		Mockito.when(bookRepository.streamAll()).thenReturn(Stream.of(first, second));
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		service.exportBooks(ExportFormat.NDJSON, out);
+
+		org.assertj.core.api.Assertions.assertThat(out.toString("UTF-8")).isEqualTo(
+				"{\"id\":1,\"title\":\"As aventuras\",\"author\":\"Fulano\",\"isbn\":\"111\"}\n"
+				+ "{\"id\":2,\"title\":\"Outro livro\",\"author\":\"Ciclano\",\"isbn\":\"222\"}\n");
+	}
+
+	@SuppressWarnings("unchecked")
+	private ArgumentCaptor<List<Book>> captureSaved() {
+		ArgumentCaptor<List<Book>> captor = ArgumentCaptor.forClass(List.class);
+		Mockito.verify(bookService, Mockito.atLeastOnce()).saveAll(captor.capture());
+		return captor;
+	}
+
+	private String line(String isbn) {
+		return String.format("{\"title\":\"As aventuras\",\"author\":\"Fulano\",\"isbn\":\"%s\"}%n", isbn);
+	}
+
+	private ByteArrayInputStream stream(String ndjson) {
+		return new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8));
+	}
+
+}
@@ -0,0 +1,54 @@
+package br.com.tddspring.cursotddspringudemy.api.service;
+
+import java.io.IOException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import br.com.tddspring.cursotddspringudemy.model.entity.Book;
+import br.com.tddspring.cursotddspringudemy.model.repository.BookRepository;
+import br.com.tddspring.cursotddspringudemy.service.impl.LuceneBookSearchIndex;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest(properties = { "application.search.enabled=true",
+		"application.search.index-dir=target/reconcile-test-index" })
+@DirtiesContext
+public class BookSearchIndexReconcileTest {
+
+	@Autowired
+	LuceneBookSearchIndex index;
+
+	@Autowired
+	BookRepository bookRepository;
+
+	@AfterEach
+	public void tearDown() throws IOException {
+		bookRepository.deleteAll();
+		index.rebuild();
+	}
+
+	@Test
+	@DisplayName("Deve indexar na partida os livros gravados sem passar pelo indice")
+	public void reconcileWritesMissedByIndexTest() throws IOException {
+		Book missed = bookRepository.save(Book.builder().isbn("reconcile-123").title("Dom Casmurro")
+				.author("Machado de Assis").build());
+		org.assertj.core.api.Assertions.assertThat(index.fingerprint()).isNotEqualTo(bookRepository.fingerprint());
+
+		index.reconcile();
+
+		org.assertj.core.api.Assertions.assertThat(index.fingerprint()).isEqualTo(bookRepository.fingerprint());
+		org.assertj.core.api.Assertions.assertThat(
+				index.search(Book.builder().title("casmurro").build(), PageRequest.of(0, 10)).getContent())
+				.containsExactly(missed.getId());
+	}
+
+}
@@ -0,0 +1,109 @@
+package br.com.tddspring.cursotddspringudemy.api.service;
+
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.cache.CacheAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import br.com.tddspring.cursotddspringudemy.config.CacheConfig;
+import br.com.tddspring.cursotddspringudemy.model.entity.Book;
+import br.com.tddspring.cursotddspringudemy.model.repository.BookRepository;
+import br.com.tddspring.cursotddspringudemy.service.BookService;
+import br.com.tddspring.cursotddspringudemy.service.impl.BookServiceImpl;
+import br.com.tddspring.cursotddspringudemy.service.impl.DisabledBookSearchIndex;
+import br.com.tddspring.cursotddspringudemy.service.impl.IsbnBloomFilter;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest(classes = { CacheConfig.class, BookServiceImpl.class, DisabledBookSearchIndex.class })
+@ImportAutoConfiguration(CacheAutoConfiguration.class)
+public class BookServiceCacheTest {
+
+	@Autowired
+	BookService service;
+
+	@Autowired
+	CacheManager cacheManager;
+
+	@MockBean
+	BookRepository bookRepository;
+
+	@MockBean
+	IsbnBloomFilter isbnFilter;
+
+	@BeforeEach
+	public void setUp() {
+		cacheManager.getCache(CacheConfig.BOOKS_BY_ISBN).clear();
+	}
+
+	@Test
+	@DisplayName("Deve buscar o livro pelo isbn no banco apenas uma vez")
+	public void getBookByIsbnCachedTest() {
+		String isbn = "123";
+		Mockito.when(bookRepository.findByIsbn(isbn)).thenReturn(Optional.of(createBook(isbn)));
+
+		service.getBookByIsbn(isbn);
+		Optional<Book> book = service.getBookByIsbn(isbn);
+
+		org.assertj.core.api.Assertions.assertThat(book.isPresent()).isTrue();
+		org.assertj.core.api.Assertions.assertThat(book.get().getIsbn()).isEqualTo(isbn);
+		Mockito.verify(bookRepository, Mockito.times(1)).findByIsbn(isbn);
+	}
+
+	@Test
+	@DisplayName("Nao deve guardar no cache um isbn inexistente")
+	public void getBookByIsbnNotFoundIsNotCachedTest() {
+		String isbn = "123";
+		Mockito.when(bookRepository.findByIsbn(isbn)).thenReturn(Optional.empty());
+
+		service.getBookByIsbn(isbn);
+		service.getBookByIsbn(isbn);
+
+		Mockito.verify(bookRepository, Mockito.times(2)).findByIsbn(isbn);
+	}
+
+	@Test
+	@DisplayName("Deve invalidar o cache ao atualizar um livro")
+	public void updateEvictsCacheTest() {
+		String isbn = "123";
+		Book book = createBook(isbn);
+		Mockito.when(bookRepository.findByIsbn(isbn)).thenReturn(Optional.of(book));
+		Mockito.when(bookRepository.save(book)).thenReturn(book);
+
+		service.getBookByIsbn(isbn);
+		service.update(book);
+		service.getBookByIsbn(isbn);
+
+		Mockito.verify(bookRepository, Mockito.times(2)).findByIsbn(isbn);
+	}
+
+	@Test
+	@DisplayName("Deve invalidar o cache ao deletar um livro")
+	public void deleteEvictsCacheTest() {
+		String isbn = "123";
+		Book book = createBook(isbn);
+		Mockito.when(bookRepository.findByIsbn(isbn)).thenReturn(Optional.of(book));
+
+		service.getBookByIsbn(isbn);
+		service.delete(book);
+		service.getBookByIsbn(isbn);
+
+		Mockito.verify(bookRepository, Mockito.times(2)).findByIsbn(isbn);
+	}
+
+	private Book createBook(String isbn) {
+		return Book.builder().id(1).isbn(isbn).author("Fulano").title("As aventuras").build();
+	}
+
+}
@@ -1,16 +1,22 @@
 package br.com.tddspring.cursotddspringudemy.api.service;
 
+import java.sql.SQLException;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import org.assertj.core.api.Assertions;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mockito;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
@@ -21,8 +27,12 @@ import org.springframework.test.context.junit.jupiter.SpringExtension;
 import br.com.tddspring.cursotddspringudemy.exception.BusinessException;
 import br.com.tddspring.cursotddspringudemy.model.entity.Book;
 import br.com.tddspring.cursotddspringudemy.model.repository.BookRepository;
+import br.com.tddspring.cursotddspringudemy.service.BookSearchIndex;
 import br.com.tddspring.cursotddspringudemy.service.BookService;
 import br.com.tddspring.cursotddspringudemy.service.impl.BookServiceImpl;
+import br.com.tddspring.cursotddspringudemy.service.impl.DisabledBookSearchIndex;
+import br.com.tddspring.cursotddspringudemy.service.impl.IsbnBloomFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 @ExtendWith(SpringExtension.class)
 @ActiveProfiles("test")
@@ -30,12 +40,15 @@ public class BookServiceTest {
 
 	BookService service;
 
+	IsbnBloomFilter isbnFilter;
+
 	@MockBean
 	BookRepository bookRepository;
 
 	@BeforeEach
 	public void setUp() {
-		this.service = new BookServiceImpl(bookRepository);
+		this.isbnFilter = new IsbnBloomFilter(bookRepository, new SimpleMeterRegistry(), 1000, 0.01);
+		this.service = new BookServiceImpl(bookRepository, new DisabledBookSearchIndex(), isbnFilter);
 	}
 
 	@Test
@@ -68,6 +81,50 @@ public class BookServiceTest {
 		Mockito.verify(bookRepository, Mockito.never()).save(book);
 	}
 
+	@Test
+	@DisplayName("Nao deve consultar o banco quando o filtro garante que o isbn nao existe")
+	public void saveBookSkipsExistsCheckWhenFilterSaysAbsentTest() {
+		Mockito.when(bookRepository.streamAllIsbns()).thenReturn(Stream.of("999"));
+		isbnFilter.rebuild();
+		Book book = createValidBook();
+		Mockito.when(bookRepository.save(book)).thenReturn(Book.builder().id(101).isbn("123").build());
+
+		service.save(book);
+
+		Mockito.verify(bookRepository, Mockito.never()).existsByIsbn(Mockito.anyString());
+		org.assertj.core.api.Assertions.assertThat(isbnFilter.mightContain("123")).isTrue();
+	}
+
+	@Test
+	@DisplayName("Deve lançar um erro de negocio quando a restricao unica recusar um isbn que o filtro nao conhecia")
+	public void saveBookWithIsbnSavedElsewhereTest() {
+		Mockito.when(bookRepository.streamAllIsbns()).thenReturn(Stream.empty());
+		isbnFilter.rebuild();
+		Book book = createValidBook();
+		Mockito.when(bookRepository.save(book)).thenThrow(new DataIntegrityViolationException("could not execute batch",
+				new ConstraintViolationException("could not execute batch", new SQLException(),
+						"PUBLIC.UK_BOOK_ISBN_INDEX_1 ON PUBLIC.BOOK(ISBN) VALUES 1")));
+
+		Throwable exception = Assertions.catchThrowable(() -> service.save(book));
+
+		org.assertj.core.api.Assertions.assertThat(exception).isInstanceOf(BusinessException.class)
+				.hasMessage("Isbn já cadastrado.");
+		Mockito.verify(bookRepository, Mockito.never()).existsByIsbn(Mockito.anyString());
+	}
+
+	@Test
+	@DisplayName("Deve consultar no banco apenas os isbns que o filtro nao descarta")
+	public void getExistingIsbnsFilteredTest() {
+		Mockito.when(bookRepository.streamAllIsbns()).thenReturn(Stream.of("111"));
+		isbnFilter.rebuild();
+		Mockito.when(bookRepository.findExistingIsbns(Arrays.asList("111"))).thenReturn(Collections.singleton("111"));
+
+		Set<String> existing = service.getExistingIsbns(Arrays.asList("111", "222"));
+
+		org.assertj.core.api.Assertions.assertThat(existing).containsExactly("111");
+		Mockito.verify(bookRepository).findExistingIsbns(Arrays.asList("111"));
+	}
+
 	@Test
 	@DisplayName("Deve Obter um livro por id")
 	public void getByIdTest() {
@@ -175,6 +232,28 @@ public class BookServiceTest {
 		Mockito.verify(bookRepository, Mockito.times(1)).findByIsbn(isbn);
 	}
 
+	@Test
+	@DisplayName("Deve filtrar livros pelo indice de texto quando habilitado")
+	public void findBookInSearchIndexTest() {
+		BookSearchIndex searchIndex = Mockito.mock(BookSearchIndex.class);
+		BookService service = new BookServiceImpl(bookRepository, searchIndex, isbnFilter);
+		Book filter = Book.builder().title("aventuras").build();
+		PageRequest pageRequest = PageRequest.of(0, 10);
+
+		Book first = Book.builder().id(2).isbn("321").author("Fulano").title("As aventuras").build();
+		Book second = Book.builder().id(1).isbn("123").author("Fulano").title("Aventuras e desventuras").build();
+		Mockito.when(searchIndex.isEnabled()).thenReturn(true);
+		Mockito.when(searchIndex.search(filter, pageRequest))
+				.thenReturn(new PageImpl<Integer>(Arrays.asList(2, 1), pageRequest, 2));
+		Mockito.when(bookRepository.findAllById(Arrays.asList(2, 1))).thenReturn(Arrays.asList(second, first));
+
+		Page<Book> result = service.find(filter, pageRequest);
+
+		org.assertj.core.api.Assertions.assertThat(result.getTotalElements()).isEqualTo(2);
+		org.assertj.core.api.Assertions.assertThat(result.getContent()).containsExactly(first, second);
+		Mockito.verify(bookRepository, Mockito.never()).findAll(Mockito.any(Example.class), Mockito.any(PageRequest.class));
+	}
+
 	private Book createValidBook() {
 		return Book.builder().isbn("123").author("Fulano").title("As aventuras").build();
 	}
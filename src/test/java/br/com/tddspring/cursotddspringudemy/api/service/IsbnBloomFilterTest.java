@@ -0,0 +1,92 @@
+package br.com.tddspring.cursotddspringudemy.api.service;
+
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import br.com.tddspring.cursotddspringudemy.model.repository.BookRepository;
+import br.com.tddspring.cursotddspringudemy.service.impl.IsbnBloomFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class IsbnBloomFilterTest {
+
+	static final int BOOKS = 10000;
+
+	BookRepository bookRepository;
+	SimpleMeterRegistry meterRegistry;
+	IsbnBloomFilter filter;
+
+	@BeforeEach
+	public void setUp() {
+		bookRepository = Mockito.mock(BookRepository.class);
+		meterRegistry = new SimpleMeterRegistry();
+		filter = new IsbnBloomFilter(bookRepository, meterRegistry, BOOKS, 0.01);
+	}
+
+	@Test
+	@DisplayName("Deve responder talvez para qualquer isbn antes de ser construido")
+	public void mightContainBeforeRebuildTest() {
+		org.assertj.core.api.Assertions.assertThat(filter.mightContain("123")).isTrue();
+	}
+
+	@Test
+	@DisplayName("Deve conter todos os isbns cadastrados com poucos falsos positivos")
+	public void rebuildTest() {
+		Mockito.when(bookRepository.count()).thenReturn((long) BOOKS);
+		Mockito.when(bookRepository.streamAllIsbns()).thenReturn(isbns(0, BOOKS));
+
+		filter.rebuild();
+
+		org.assertj.core.api.Assertions.assertThat(isbns(0, BOOKS).allMatch(filter::mightContain)).isTrue();
+		long falsePositives = isbns(BOOKS, 2 * BOOKS).filter(filter::mightContain).count();
+		org.assertj.core.api.Assertions.assertThat(falsePositives).isLessThan(BOOKS / 50);
+		org.assertj.core.api.Assertions.assertThat(filter.size()).isEqualTo(BOOKS);
+	}
+
+	@Test
+	@DisplayName("Deve incluir isbns salvos depois da construcao")
+	public void putTest() {
+		Mockito.when(bookRepository.streamAllIsbns()).thenReturn(Stream.empty());
+		filter.rebuild();
+
+		org.assertj.core.api.Assertions.assertThat(filter.mightContain("123")).isFalse();
+		filter.put("123");
+		org.assertj.core.api.Assertions.assertThat(filter.mightContain("123")).isTrue();
+	}
+
+	@Test
+	@DisplayName("Deve manter isbns salvos enquanto o filtro e reconstruido")
+	public void putDuringRebuildTest() {
+		Mockito.when(bookRepository.streamAllIsbns()).thenReturn(Stream.empty());
+		filter.rebuild();
+		// saved after the rebuild started reading, so absent from what it reads
+		Mockito.when(bookRepository.streamAllIsbns()).thenReturn(Stream.of("111").peek(isbn -> filter.put("222")));
+
+		filter.rebuild();
+
+		org.assertj.core.api.Assertions.assertThat(filter.mightContain("111")).isTrue();
+		org.assertj.core.api.Assertions.assertThat(filter.mightContain("222")).isTrue();
+		org.assertj.core.api.Assertions.assertThat(filter.mightContain("333")).isFalse();
+	}
+
+	@Test
+	@DisplayName("Deve publicar tamanho, taxa de falsos positivos e tempo de construcao")
+	public void metricsTest() {
+		Mockito.when(bookRepository.streamAllIsbns()).thenReturn(isbns(0, 100));
+
+		filter.rebuild();
+
+		org.assertj.core.api.Assertions.assertThat(meterRegistry.get("books.isbn.filter.size").gauge().value()).isEqualTo(100);
+		org.assertj.core.api.Assertions.assertThat(meterRegistry.get("books.isbn.filter.fpp").gauge().value()).isBetween(0.0, 0.01);
+		org.assertj.core.api.Assertions.assertThat(meterRegistry.get("books.isbn.filter.rebuild").timer().count()).isEqualTo(1);
+	}
+
+	private Stream<String> isbns(int from, int to) {
+		return IntStream.range(from, to).mapToObj(i -> String.format("978%010d", i));
+	}
+
+}
@@ -0,0 +1,78 @@
+package br.com.tddspring.cursotddspringudemy.api.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import br.com.tddspring.cursotddspringudemy.model.entity.JobLease;
+import br.com.tddspring.cursotddspringudemy.model.repository.JobLeaseRepository;
+import br.com.tddspring.cursotddspringudemy.service.JobLeaseService;
+import br.com.tddspring.cursotddspringudemy.service.impl.JobLeaseServiceImpl;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+public class JobLeaseServiceTest {
+
+	private static final Duration TTL = Duration.ofMinutes(5);
+
+	@Autowired
+	JobLeaseRepository repository;
+
+	@Autowired
+	TestEntityManager entityManager;
+
+	JobLeaseService first;
+	JobLeaseService second;
+
+	@BeforeEach
+	public void setUp() {
+		first = new JobLeaseServiceImpl(repository, "instancia-1");
+		second = new JobLeaseServiceImpl(repository, "instancia-2");
+	}
+
+	@Test
+	@DisplayName("Deve conceder o lease a uma unica instancia por vez")
+	public void acquireTest() {
+		boolean acquired = first.tryAcquire("job", TTL);
+		boolean stolen = second.tryAcquire("job", TTL);
+		boolean reacquired = first.tryAcquire("job", TTL);
+
+		org.assertj.core.api.Assertions.assertThat(acquired).isTrue();
+		org.assertj.core.api.Assertions.assertThat(stolen).isFalse();
+		org.assertj.core.api.Assertions.assertThat(reacquired).isTrue();
+	}
+
+	@Test
+	@DisplayName("Deve permitir que outra instancia obtenha o lease depois de liberado")
+	public void releaseTest() throws InterruptedException {
+		first.tryAcquire("job", TTL);
+
+		first.release("job");
+		Thread.sleep(5);
+
+		org.assertj.core.api.Assertions.assertThat(second.tryAcquire("job", TTL)).isTrue();
+		org.assertj.core.api.Assertions.assertThat(first.renew("job", TTL)).isFalse();
+	}
+
+	@Test
+	@DisplayName("Deve permitir que outra instancia obtenha um lease expirado")
+	public void expiredLeaseTest() {
+		entityManager.persist(JobLease.builder().name("job").owner("instancia-1")
+				.lockedUntil(LocalDateTime.now().minusSeconds(1)).build());
+		entityManager.flush();
+
+		org.assertj.core.api.Assertions.assertThat(second.tryAcquire("job", TTL)).isTrue();
+		org.assertj.core.api.Assertions.assertThat(second.renew("job", TTL)).isTrue();
+	}
+
+}
@@ -0,0 +1,86 @@
+package br.com.tddspring.cursotddspringudemy.api.service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import br.com.tddspring.cursotddspringudemy.exception.BusinessException;
+import br.com.tddspring.cursotddspringudemy.model.entity.Book;
+import br.com.tddspring.cursotddspringudemy.model.entity.Loan;
+import br.com.tddspring.cursotddspringudemy.model.repository.BookRepository;
+import br.com.tddspring.cursotddspringudemy.model.repository.LoanRepository;
+import br.com.tddspring.cursotddspringudemy.service.LoanService;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest
+public class LoanServiceConcurrencyTest {
+
+	private static final int THREADS = 16;
+
+	@Autowired
+	LoanService service;
+
+	@Autowired
+	LoanRepository loanRepository;
+
+	@Autowired
+	BookRepository bookRepository;
+
+	@AfterEach
+	public void tearDown() {
+		loanRepository.deleteAll();
+		bookRepository.deleteAll();
+	}
+
+	@Test
+	@DisplayName("Deve emprestar o livro uma unica vez quando varias requisicoes concorrem pelo mesmo isbn")
+	public void concurrentLoansOfSameBookTest() throws Exception {
+		Book book = bookRepository.save(Book.builder().isbn("concurrent-123").title("titulo").author("autor").build());
+
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<Boolean>> results = new ArrayList<>();
+		for (int i = 0; i < THREADS; i++) {
+			String customer = "cliente " + i;
+			Callable<Boolean> attempt = () -> {
+				start.await();
+				try {
+					service.save(Loan.builder().book(book).customer(customer).loanDate(LocalDate.now()).build());
+					return true;
+				} catch (BusinessException e) {
+					return false;
+				}
+			};
+			results.add(executor.submit(attempt));
+		}
+		start.countDown();
+
+		int loaned = 0;
+		for (Future<Boolean> result : results) {
+			if (result.get(30, TimeUnit.SECONDS)) {
+				loaned++;
+			}
+		}
+		executor.shutdown();
+
+		org.assertj.core.api.Assertions.assertThat(loaned).isEqualTo(1);
+		org.assertj.core.api.Assertions.assertThat(loanRepository.count()).isEqualTo(1);
+	}
+
+}
@@ -1,16 +1,19 @@
 package br.com.tddspring.cursotddspringudemy.api.service;
 
+import java.sql.SQLException;
 import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mockito;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
@@ -22,6 +25,7 @@ import br.com.tddspring.cursotddspringudemy.api.dto.LoanFilterDTO;
 import br.com.tddspring.cursotddspringudemy.exception.BusinessException;
 import br.com.tddspring.cursotddspringudemy.model.entity.Book;
 import br.com.tddspring.cursotddspringudemy.model.entity.Loan;
+import br.com.tddspring.cursotddspringudemy.model.projection.LoanSummary;
 import br.com.tddspring.cursotddspringudemy.model.repository.LoanRepository;
 import br.com.tddspring.cursotddspringudemy.service.LoanService;
 import br.com.tddspring.cursotddspringudemy.service.impl.LoanServiceImpl;
@@ -30,6 +34,8 @@ import br.com.tddspring.cursotddspringudemy.service.impl.LoanServiceImpl;
 @ActiveProfiles("test")
 public class LoanServiceTest {
 
+	private static final int LOAN_DAYS = 7;
+
 	LoanService service;
 	
 	@MockBean
@@ -37,7 +43,7 @@ public class LoanServiceTest {
 	
 	@BeforeEach
 	public void setUp() {
-		this.service = new LoanServiceImpl(repository);
+		this.service = new LoanServiceImpl(repository, LOAN_DAYS);
 	}
 	
 	@Test
@@ -49,8 +55,7 @@ public class LoanServiceTest {
 		Loan savingLoan = Loan.builder().book(book).customer(customer).loanDate(LocalDate.now()).build();
 		Loan savedLoan = Loan.builder().id(1).loanDate(LocalDate.now()).customer(customer).book(book).build();
 		
-		Mockito.when(repository.existsByBookAndNotReturned(book)).thenReturn(false);
-		Mockito.when(repository.save(savingLoan)).thenReturn(savedLoan);
+		Mockito.when(repository.saveAndFlush(savingLoan)).thenReturn(savedLoan);
 		
 		Loan loan = service.save(savingLoan);
 		
@@ -59,6 +64,18 @@ public class LoanServiceTest {
 		org.assertj.core.api.Assertions.assertThat(loan.getCustomer()).isEqualTo(savedLoan.getCustomer());
 		org.assertj.core.api.Assertions.assertThat(loan.getLoanDate()).isEqualTo(savedLoan.getLoanDate());
 	}
+
+	@Test
+	@DisplayName("Deve definir o vencimento do emprestimo pelo prazo configurado")
+	public void saveLoanDueDateTest() {
+		Loan savingLoan = Loan.builder().book(Book.builder().id(1).build()).customer("fulano")
+				.loanDate(LocalDate.of(2020, 5, 10)).build();
+		Mockito.when(repository.saveAndFlush(savingLoan)).thenReturn(savingLoan);
+
+		service.save(savingLoan);
+
+		org.assertj.core.api.Assertions.assertThat(savingLoan.getDueDate()).isEqualTo(LocalDate.of(2020, 5, 17));
+	}
 	
 	@Test
 	@DisplayName("Deve lançar erro de negocio ao salvar um empréstimo com livro ja emprestado")
@@ -73,15 +90,30 @@ public class LoanServiceTest {
 				.loanDate(LocalDate.now())
 				.build();
 		
-		Mockito.when(repository.existsByBookAndNotReturned(book)).thenReturn(true);
+		ConstraintViolationException violation = new ConstraintViolationException("Unique index or primary key violation",
+				new SQLException(), "PUBLIC." + Loan.ACTIVE_BOOK_CONSTRAINT.toUpperCase() + "_INDEX_2");
+		Mockito.when(repository.saveAndFlush(savingLoan))
+				.thenThrow(new DataIntegrityViolationException("could not execute statement", violation));
 		
 		Throwable exception = org.assertj.core.api.Assertions.catchThrowable(() -> service.save(savingLoan));
 		
 		org.assertj.core.api.Assertions.assertThat(exception)
 		.isInstanceOf(BusinessException.class)
 		.hasMessage("book already loaned");
-		
-		Mockito.verify(repository, Mockito.never()).save(savingLoan);
+	}
+
+	@Test
+	@DisplayName("Deve repassar violações de integridade que não sejam de livro emprestado")
+	public void otherIntegrityViolationSaveTest() {
+		Loan savingLoan = createLoan();
+		DataIntegrityViolationException error = new DataIntegrityViolationException("could not execute statement",
+				new ConstraintViolationException("Referential integrity constraint violation", new SQLException(),
+						"FK_LOAN_BOOK"));
+		Mockito.when(repository.saveAndFlush(savingLoan)).thenThrow(error);
+
+		Throwable exception = org.assertj.core.api.Assertions.catchThrowable(() -> service.save(savingLoan));
+
+		org.assertj.core.api.Assertions.assertThat(exception).isSameAs(error);
 	}
 	
 	@Test
@@ -112,12 +144,29 @@ public class LoanServiceTest {
 		loan.setId(1);
 		loan.setReturned(true);
 		
-		Mockito.when(repository.save(loan)).thenReturn(loan);
+		Mockito.when(repository.saveAndFlush(loan)).thenReturn(loan);
 		
 		Loan updatedLoan = service.update(loan);
 		
 		org.assertj.core.api.Assertions.assertThat(updatedLoan.getReturned()).isTrue();
-		Mockito.verify(repository).save(loan);
+		Mockito.verify(repository).saveAndFlush(loan);
+	}
+
+	@Test
+	@DisplayName("Deve lançar erro de negocio ao reabrir um empréstimo de livro emprestado de novo")
+	public void loanedBookUpdateTest() {
+		Loan loan = createLoan();
+		loan.setId(1);
+		loan.setReturned(false);
+		ConstraintViolationException violation = new ConstraintViolationException("Unique index or primary key violation",
+				new SQLException(), "PUBLIC." + Loan.ACTIVE_BOOK_CONSTRAINT.toUpperCase() + "_INDEX_2");
+		Mockito.when(repository.saveAndFlush(loan))
+				.thenThrow(new DataIntegrityViolationException("could not execute statement", violation));
+
+		Throwable exception = org.assertj.core.api.Assertions.catchThrowable(() -> service.update(loan));
+
+		org.assertj.core.api.Assertions.assertThat(exception).isInstanceOf(BusinessException.class)
+				.hasMessage("book already loaned");
 	}
 	
 	@Test
@@ -144,6 +193,22 @@ public class LoanServiceTest {
 	}
 	
 	
+	@Test
+	@DisplayName("Deve filtrar resumos de emprestimos pelas propriedades")
+	public void findSummariesTest() {
+		LoanFilterDTO lfDto = LoanFilterDTO.builder().customer("fulano").isbn("321").build();
+		PageRequest pageRequest = PageRequest.of(0, 10);
+
+		List<LoanSummary> lista = Arrays.asList(new LoanSummary(1, "fulano", null, 1, "321", "titulo", "autor"));
+		Mockito.when(repository.findSummariesByBookIsbnOrCustomer("321", "fulano", pageRequest))
+				.thenReturn(new PageImpl<LoanSummary>(lista, pageRequest, lista.size()));
+
+		Page<LoanSummary> result = service.findSummaries(lfDto, pageRequest);
+
+		org.assertj.core.api.Assertions.assertThat(result.getTotalElements()).isEqualTo(1);
+		org.assertj.core.api.Assertions.assertThat(result.getContent()).isEqualTo(lista);
+	}
+	
 	public static Loan createLoan(){
 		Book book = Book.builder().id(1).build();
 		String customer = "fulano";
@@ -0,0 +1,154 @@
+package br.com.tddspring.cursotddspringudemy.api.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+
+import br.com.tddspring.cursotddspringudemy.model.entity.Book;
+import br.com.tddspring.cursotddspringudemy.model.projection.CatalogFingerprint;
+import br.com.tddspring.cursotddspringudemy.model.repository.BookRepository;
+import br.com.tddspring.cursotddspringudemy.service.impl.LuceneBookSearchIndex;
+
+public class LuceneBookSearchIndexTest {
+
+	@TempDir
+	Path indexDir;
+
+	BookRepository bookRepository;
+
+	LuceneBookSearchIndex index;
+
+	@BeforeEach
+	public void setUp() throws IOException {
+		bookRepository = Mockito.mock(BookRepository.class);
+		index = new LuceneBookSearchIndex(bookRepository, indexDir.toString());
+		index.indexAll(Arrays.asList(
+				createBook(1, "As aventuras de Tom Sawyer", "Mark Twain", "111"),
+				createBook(2, "Aventuras de Huckleberry Finn", "Mark Twain", "222"),
+				createBook(3, "Dom Casmurro", "Machado de Assis", "333")));
+	}
+
+	@AfterEach
+	public void tearDown() throws IOException {
+		index.destroy();
+	}
+
+	@Test
+	@DisplayName("Deve buscar livros pelo titulo ignorando maiusculas")
+	public void searchByTitleTest() {
+		Page<Integer> result = index.search(Book.builder().title("AVENTURAS").build(), PageRequest.of(0, 10));
+
+		org.assertj.core.api.Assertions.assertThat(result.getTotalElements()).isEqualTo(2);
+		org.assertj.core.api.Assertions.assertThat(result.getContent()).containsExactlyInAnyOrder(1, 2);
+	}
+
+	@Test
+	@DisplayName("Deve buscar livros pelo prefixo da ultima palavra do autor")
+	public void searchByAuthorPrefixTest() {
+		Page<Integer> result = index.search(Book.builder().author("machado de ass").build(), PageRequest.of(0, 10));
+
+		org.assertj.core.api.Assertions.assertThat(result.getContent()).containsExactly(3);
+	}
+
+	@Test
+	@DisplayName("Deve buscar livros pelo isbn que contem o texto informado")
+	public void searchByIsbnTest() {
+		index.index(createBook(4, "O cortico", "Aluisio Azevedo", "978-85-ABC"));
+
+		org.assertj.core.api.Assertions.assertThat(
+				index.search(Book.builder().isbn("222").build(), PageRequest.of(0, 10)).getContent()).containsExactly(2);
+		org.assertj.core.api.Assertions.assertThat(
+				index.search(Book.builder().isbn("85-abc").build(), PageRequest.of(0, 10)).getContent()).containsExactly(4);
+		org.assertj.core.api.Assertions.assertThat(
+				index.search(Book.builder().isbn("*").build(), PageRequest.of(0, 10)).getContent()).isEmpty();
+	}
+
+	@Test
+	@DisplayName("Deve paginar o resultado da busca")
+	public void searchPagedTest() {
+		Page<Integer> result = index.search(Book.builder().author("twain").build(), PageRequest.of(1, 1));
+
+		org.assertj.core.api.Assertions.assertThat(result.getTotalElements()).isEqualTo(2);
+		org.assertj.core.api.Assertions.assertThat(result.getContent()).hasSize(1);
+	}
+
+	@Test
+	@DisplayName("Deve atualizar e remover livros do indice")
+	public void updateAndRemoveTest() {
+		index.index(createBook(3, "Memorias postumas de Bras Cubas", "Machado de Assis", "333"));
+		index.remove(createBook(1, null, null, null));
+
+		org.assertj.core.api.Assertions.assertThat(
+				index.search(Book.builder().title("casmurro").build(), PageRequest.of(0, 10)).getContent()).isEmpty();
+		org.assertj.core.api.Assertions.assertThat(
+				index.search(Book.builder().title("memorias").build(), PageRequest.of(0, 10)).getContent()).containsExactly(3);
+		org.assertj.core.api.Assertions.assertThat(
+				index.search(Book.builder().title("aventuras").build(), PageRequest.of(0, 10)).getContent()).containsExactly(2);
+	}
+
+	@Test
+	@DisplayName("Deve gravar o indice em disco apenas ao confirmar as alteracoes")
+	public void commitTest() throws IOException {
+		try (Directory directory = FSDirectory.open(indexDir)) {
+			org.assertj.core.api.Assertions.assertThat(DirectoryReader.indexExists(directory)).isFalse();
+
+			index.commit();
+
+			try (DirectoryReader reader = DirectoryReader.open(directory)) {
+				org.assertj.core.api.Assertions.assertThat(reader.numDocs()).isEqualTo(3);
+			}
+		}
+	}
+
+	@Test
+	@DisplayName("Nao deve reconstruir o indice que confere com o banco")
+	public void reconcileUpToDateTest() throws IOException {
+		Mockito.when(bookRepository.fingerprint()).thenReturn(new CatalogFingerprint(3L, 6L, 0L));
+
+		index.reconcile();
+
+		Mockito.verify(bookRepository, Mockito.never()).findByIdGreaterThanOrderByIdAsc(Mockito.anyInt(),
+				Mockito.any(Pageable.class));
+	}
+
+	@Test
+	@DisplayName("Deve reconstruir o indice que nao confere com o banco, em paginas por id")
+	public void reconcileRebuildTest() throws IOException {
+		Book updated = createBook(2, "Aventuras de Huckleberry Finn", "Mark Twain", "222");
+		updated.setVersion(1L);
+		Book added = createBook(4, "O cortico", "Aluisio Azevedo", "444");
+		Mockito.when(bookRepository.fingerprint()).thenReturn(new CatalogFingerprint(2L, 6L, 1L));
+		Mockito.when(bookRepository.findByIdGreaterThanOrderByIdAsc(Mockito.eq(0), Mockito.any(Pageable.class)))
+				.thenReturn(new SliceImpl<>(Arrays.asList(updated), PageRequest.of(0, 1), true));
+		Mockito.when(bookRepository.findByIdGreaterThanOrderByIdAsc(Mockito.eq(2), Mockito.any(Pageable.class)))
+				.thenReturn(new SliceImpl<>(Arrays.asList(added), PageRequest.of(0, 1), false));
+
+		index.reconcile();
+
+		org.assertj.core.api.Assertions.assertThat(index.fingerprint()).isEqualTo(new CatalogFingerprint(2L, 6L, 1L));
+		org.assertj.core.api.Assertions.assertThat(
+				index.search(Book.builder().author("twain").build(), PageRequest.of(0, 10)).getContent()).containsExactly(2);
+		try (Directory directory = FSDirectory.open(indexDir); DirectoryReader reader = DirectoryReader.open(directory)) {
+			org.assertj.core.api.Assertions.assertThat(reader.numDocs()).isEqualTo(2);
+		}
+	}
+
+	private Book createBook(Integer id, String title, String author, String isbn) {
+		return Book.builder().id(id).title(title).author(author).isbn(isbn).build();
+	}
+
+}
@@ -0,0 +1,212 @@
+package br.com.tddspring.cursotddspringudemy.api.service;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.mail.Session;
+import javax.mail.internet.MimeMessage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetupTest;
+
+import br.com.tddspring.cursotddspringudemy.service.impl.EmailServiceImpl;
+import br.com.tddspring.cursotddspringudemy.service.impl.MailDispatcher;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class MailDispatcherTest {
+
+	GreenMail smtp;
+	MeterRegistry meterRegistry;
+	MailDispatcher dispatcher;
+
+	@BeforeEach
+	public void setUp() {
+		smtp = new GreenMail(ServerSetupTest.SMTP);
+		smtp.start();
+		meterRegistry = new SimpleMeterRegistry();
+	}
+
+	@AfterEach
+	public void tearDown() throws InterruptedException {
+		if (dispatcher != null) {
+			dispatcher.stop();
+		}
+		smtp.stop();
+	}
+
+	@Test
+	@DisplayName("Deve enviar uma mensagem por destinatario")
+	public void sendOneMessagePerRecipientTest() throws Exception {
+		dispatcher = dispatcher(localSmtp(), 0, 10);
+		dispatcher.start();
+		EmailServiceImpl emailService = new EmailServiceImpl(dispatcher);
+		ReflectionTestUtils.setField(emailService, "remetent", "biblioteca@email.com");
+
+		emailService.sendMails("livro atrasado", Arrays.asList("a@email.com", "b@email.com", "c@email.com"));
+
+		org.assertj.core.api.Assertions.assertThat(smtp.waitForIncomingEmail(5000, 3)).isTrue();
+		MimeMessage[] received = smtp.getReceivedMessages();
+		org.assertj.core.api.Assertions.assertThat(received).hasSize(3);
+		for (MimeMessage message : received) {
+			org.assertj.core.api.Assertions.assertThat(message.getAllRecipients()).hasSize(1);
+		}
+		awaitCounter("sent", 3);
+		org.assertj.core.api.Assertions.assertThat(sent()).isEqualTo(3);
+	}
+
+	@Test
+	@DisplayName("Deve respeitar o limite de mensagens por segundo")
+	public void rateLimitTest() throws Exception {
+		dispatcher = dispatcher(localSmtp(), 20, 1);
+		dispatcher.start();
+
+		long start = System.nanoTime();
+		for (int i = 0; i < 6; i++) {
+			dispatcher.enqueue(message("cliente" + i + "@email.com"));
+		}
+		org.assertj.core.api.Assertions.assertThat(smtp.waitForIncomingEmail(5000, 6)).isTrue();
+
+		org.assertj.core.api.Assertions.assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start))
+				.isGreaterThanOrEqualTo(250);
+	}
+
+	@Test
+	@DisplayName("Deve reenviar apenas as mensagens recusadas")
+	public void retryFailedMessagesTest() throws Exception {
+		JavaMailSender sender = Mockito.mock(JavaMailSender.class);
+		Mockito.when(sender.createMimeMessage()).thenAnswer(invocation -> new MimeMessage(Session.getInstance(new Properties())));
+		Mockito.doAnswer(invocation -> {
+			MimeMessage refused = (MimeMessage) invocation.getArguments()[0];
+			Map<Object, Exception> failedMessages = new LinkedHashMap<>();
+			failedMessages.put(refused, new IllegalStateException("mailbox unavailable"));
+			throw new MailSendException(failedMessages);
+		}).doNothing().when(sender).send(Mockito.<MimeMessage[]>any());
+		dispatcher = dispatcher(sender, 0, 10);
+
+		dispatcher.enqueue(message("a@email.com"));
+		dispatcher.enqueue(message("b@email.com"));
+		dispatcher.start();
+
+		Mockito.verify(sender, Mockito.timeout(5000).times(2)).send(Mockito.<MimeMessage[]>any());
+		awaitCounter("sent", 2);
+		Mockito.verify(sender, Mockito.times(3)).createMimeMessage();
+		org.assertj.core.api.Assertions.assertThat(sent()).isEqualTo(2);
+		org.assertj.core.api.Assertions.assertThat(counter("retried")).isEqualTo(1);
+	}
+
+	@Test
+	@DisplayName("Deve desistir da mensagem depois do numero maximo de tentativas")
+	public void giveUpAfterMaxAttemptsTest() throws Exception {
+		JavaMailSender sender = Mockito.mock(JavaMailSender.class);
+		Mockito.when(sender.createMimeMessage()).thenAnswer(invocation -> new MimeMessage(Session.getInstance(new Properties())));
+		Mockito.doThrow(new MailSendException("connection refused")).when(sender).send(Mockito.<MimeMessage[]>any());
+		dispatcher = dispatcher(sender, 0, 10);
+		dispatcher.start();
+
+		dispatcher.enqueue(message("a@email.com"));
+
+		Mockito.verify(sender, Mockito.timeout(5000).times(3)).send(Mockito.<MimeMessage[]>any());
+		awaitCounter("failed", 1);
+		org.assertj.core.api.Assertions.assertThat(counter("failed")).isEqualTo(1);
+		org.assertj.core.api.Assertions.assertThat(sent()).isZero();
+	}
+
+	@Test
+	@DisplayName("Deve recusar mensagens quando a fila continuar cheia")
+	public void rejectWhenQueueFullTest() throws Exception {
+		dispatcher = new MailDispatcher(localSmtp(), meterRegistry, 1, 1, 10, 0, 3, 10, 10);
+
+		boolean first = dispatcher.enqueue(message("a@email.com"));
+		boolean second = dispatcher.enqueue(message("b@email.com"));
+
+		org.assertj.core.api.Assertions.assertThat(first).isTrue();
+		org.assertj.core.api.Assertions.assertThat(second).isFalse();
+		org.assertj.core.api.Assertions.assertThat(counter("rejected")).isEqualTo(1);
+		org.assertj.core.api.Assertions.assertThat(meterRegistry.get("mail.dispatch.queue").gauge().value()).isEqualTo(1);
+		dispatcher = null;
+	}
+
+	@Test
+	@DisplayName("Deve pular a mensagem que deixou de ser desejada antes do envio")
+	public void skipUnwantedMessageTest() throws Exception {
+		dispatcher = dispatcher(localSmtp(), 0, 10);
+
+		CompletableFuture<Void> stale = dispatcher.offer(message("a@email.com"), () -> false);
+		CompletableFuture<Void> current = dispatcher.offer(message("b@email.com"), () -> true);
+		dispatcher.start();
+
+		current.get(5, TimeUnit.SECONDS);
+		org.assertj.core.api.Assertions.assertThat(stale.isCancelled()).isTrue();
+		org.assertj.core.api.Assertions.assertThat(smtp.getReceivedMessages()).hasSize(1);
+		org.assertj.core.api.Assertions.assertThat(smtp.getReceivedMessages()[0].getAllRecipients()[0].toString())
+				.isEqualTo("b@email.com");
+		org.assertj.core.api.Assertions.assertThat(counter("skipped")).isEqualTo(1);
+	}
+
+	@Test
+	@DisplayName("Deve limitar a capacidade ao que a taxa envia no periodo")
+	public void capacityWithinTest() throws Exception {
+		dispatcher = new MailDispatcher(localSmtp(), meterRegistry, 100, 1, 10, 2, 3, 10, 10);
+
+		org.assertj.core.api.Assertions.assertThat(dispatcher.capacityWithin(Duration.ofSeconds(10))).isEqualTo(20);
+		dispatcher.enqueue(message("a@email.com"));
+		org.assertj.core.api.Assertions.assertThat(dispatcher.capacityWithin(Duration.ofSeconds(10))).isEqualTo(19);
+		org.assertj.core.api.Assertions.assertThat(dispatcher.capacityWithin(Duration.ofSeconds(100))).isEqualTo(99);
+		org.assertj.core.api.Assertions.assertThat(dispatcher.offer(message("b@email.com"), () -> true)).isNotNull();
+		dispatcher = null;
+	}
+
+	private MailDispatcher dispatcher(JavaMailSender sender, double ratePerSecond, int batchSize) {
+		return new MailDispatcher(sender, meterRegistry, 100, 2, batchSize, ratePerSecond, 3, 10, 1000);
+	}
+
+	private JavaMailSender localSmtp() {
+		JavaMailSenderImpl sender = new JavaMailSenderImpl();
+		sender.setHost("localhost");
+		sender.setPort(ServerSetupTest.SMTP.getPort());
+		return sender;
+	}
+
+	private SimpleMailMessage message(String to) {
+		SimpleMailMessage message = new SimpleMailMessage();
+		message.setFrom("biblioteca@email.com");
+		message.setTo(to);
+		message.setSubject("Livro atrasado");
+		message.setText("livro atrasado");
+		return message;
+	}
+
+	private double sent() {
+		return counter("sent");
+	}
+
+	private void awaitCounter(String result, double expected) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (counter(result) < expected && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+	}
+
+	private double counter(String result) {
+		return meterRegistry.get("mail.dispatch.messages").tag("result", result).counter().count();
+	}
+
+}
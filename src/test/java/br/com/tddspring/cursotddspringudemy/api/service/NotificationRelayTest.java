@@ -0,0 +1,127 @@
+package br.com.tddspring.cursotddspringudemy.api.service;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.mail.MailSendException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import br.com.tddspring.cursotddspringudemy.model.entity.Notification;
+import br.com.tddspring.cursotddspringudemy.service.EmailService;
+import br.com.tddspring.cursotddspringudemy.service.NotificationService;
+import br.com.tddspring.cursotddspringudemy.service.impl.MailDispatcher;
+import br.com.tddspring.cursotddspringudemy.service.impl.NotificationRelay;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+public class NotificationRelayTest {
+
+	private static final String MESSAGE = "livro atrasado";
+
+	NotificationRelay relay;
+
+	@MockBean
+	NotificationService notificationService;
+
+	@MockBean
+	EmailService emailService;
+
+	@MockBean
+	MailDispatcher mailDispatcher;
+
+	Notification first = Notification.builder().id(1L).email("a@email.com").claimToken("token").attempts(0).build();
+	Notification second = Notification.builder().id(2L).email("b@email.com").claimToken("token").attempts(0).build();
+
+	@BeforeEach
+	public void setUp() {
+		relay = new NotificationRelay(notificationService, emailService, mailDispatcher);
+		ReflectionTestUtils.setField(relay, "message", MESSAGE);
+		ReflectionTestUtils.setField(relay, "batchSize", 10);
+		ReflectionTestUtils.setField(relay, "leaseSeconds", 300L);
+		Mockito.when(mailDispatcher.capacityWithin(Duration.ofSeconds(300))).thenReturn(1000);
+		Mockito.when(notificationService.claim(10)).thenReturn(Arrays.asList(first, second));
+	}
+
+	@Test
+	@DisplayName("Deve confirmar as notificacoes enviadas e devolver as que falharam")
+	public void ackAndReleaseTest() {
+		CompletableFuture<Void> failed = new CompletableFuture<>();
+		failed.completeExceptionally(new MailSendException("mailbox unavailable"));
+		Mockito.when(emailService.offerMail(Mockito.eq(MESSAGE), Mockito.eq("a@email.com"), Mockito.any())).thenReturn(CompletableFuture.completedFuture(null));
+		Mockito.when(emailService.offerMail(Mockito.eq(MESSAGE), Mockito.eq("b@email.com"), Mockito.any())).thenReturn(failed);
+
+		relay.relay();
+
+		Mockito.verify(notificationService).ack(first);
+		Mockito.verify(notificationService).release(second);
+		Mockito.verify(notificationService, Mockito.never()).ack(second);
+	}
+
+	@Test
+	@DisplayName("Deve devolver o restante do lote quando a fila de emails estiver cheia")
+	public void releaseRestWhenQueueFullTest() {
+		Mockito.when(emailService.offerMail(Mockito.eq(MESSAGE), Mockito.eq("a@email.com"), Mockito.any())).thenThrow(new MailSendException("Mail queue is full"));
+
+		relay.relay();
+
+		Mockito.verify(notificationService).release(first);
+		Mockito.verify(notificationService).release(second);
+		Mockito.verify(emailService, Mockito.never()).offerMail(Mockito.eq(MESSAGE), Mockito.eq("b@email.com"),
+				Mockito.any());
+	}
+
+	@Test
+	@DisplayName("Deve reivindicar apenas o que o despachante envia antes de a reivindicacao expirar")
+	public void claimWithinDispatcherCapacityTest() {
+		Mockito.when(mailDispatcher.capacityWithin(Duration.ofSeconds(300))).thenReturn(3);
+		Mockito.when(notificationService.claim(3)).thenReturn(Collections.emptyList());
+
+		relay.relay();
+
+		Mockito.verify(notificationService).claim(3);
+	}
+
+	@Test
+	@DisplayName("Nao deve reivindicar nada com a fila de emails sem espaco")
+	public void skipClaimWhenDispatcherFullTest() {
+		Mockito.when(mailDispatcher.capacityWithin(Duration.ofSeconds(300))).thenReturn(0);
+
+		relay.relay();
+
+		Mockito.verify(notificationService, Mockito.never()).claim(Mockito.anyInt());
+	}
+
+	@Test
+	@DisplayName("Deve conferir a reivindicacao antes do envio e ignorar a copia vencida")
+	public void skipLapsedClaimTest() {
+		CompletableFuture<Void> skipped = new CompletableFuture<>();
+		skipped.cancel(false);
+		ArgumentCaptor<BooleanSupplier> stillWanted = ArgumentCaptor.forClass(BooleanSupplier.class);
+		Mockito.when(emailService.offerMail(Mockito.eq(MESSAGE), Mockito.eq("a@email.com"), stillWanted.capture()))
+				.thenReturn(skipped);
+		Mockito.when(emailService.offerMail(Mockito.eq(MESSAGE), Mockito.eq("b@email.com"), Mockito.any()))
+				.thenReturn(CompletableFuture.completedFuture(null));
+		Mockito.when(notificationService.isClaimed(first)).thenReturn(false);
+
+		relay.relay();
+
+		org.assertj.core.api.Assertions.assertThat(stillWanted.getValue().getAsBoolean()).isFalse();
+		Mockito.verify(notificationService).isClaimed(first);
+		Mockito.verify(notificationService, Mockito.never()).ack(first);
+		Mockito.verify(notificationService, Mockito.never()).release(first);
+		Mockito.verify(notificationService).ack(second);
+	}
+
+}
@@ -0,0 +1,98 @@
+package br.com.tddspring.cursotddspringudemy.api.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import br.com.tddspring.cursotddspringudemy.model.entity.Notification;
+import br.com.tddspring.cursotddspringudemy.model.entity.Notification.Status;
+import br.com.tddspring.cursotddspringudemy.model.entity.Notification.Type;
+import br.com.tddspring.cursotddspringudemy.model.projection.LateLoan;
+import br.com.tddspring.cursotddspringudemy.model.repository.NotificationRepository;
+import br.com.tddspring.cursotddspringudemy.service.NotificationService;
+import br.com.tddspring.cursotddspringudemy.service.impl.NotificationServiceImpl;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+public class NotificationServiceTest {
+
+	private static final LocalDate PERIOD = LocalDate.of(2020, 5, 10);
+
+	NotificationService service;
+
+	@MockBean
+	NotificationRepository repository;
+
+	@BeforeEach
+	public void setUp() {
+		service = new NotificationServiceImpl(repository, 300, 3);
+	}
+
+	@Test
+	@DisplayName("Deve enfileirar apenas emprestimos com email ainda nao notificados pelo vencimento")
+	@SuppressWarnings("unchecked")
+	public void enqueueLateLoansTest() {
+		List<LateLoan> lateLoans = Arrays.asList(new LateLoan(1, "a@email.com", PERIOD), new LateLoan(2, null, PERIOD),
+				new LateLoan(3, "c@email.com", PERIOD));
+		Mockito.when(repository.findNotifiedLoanIds(Type.LATE_LOAN, PERIOD, Arrays.asList(1, 3)))
+				.thenReturn(Collections.singleton(1));
+
+		int enqueued = service.enqueueLateLoans(lateLoans);
+
+		ArgumentCaptor<List<Notification>> saved = ArgumentCaptor.forClass(List.class);
+		Mockito.verify(repository).saveAll(saved.capture());
+		org.assertj.core.api.Assertions.assertThat(enqueued).isEqualTo(1);
+		org.assertj.core.api.Assertions.assertThat(saved.getValue()).hasSize(1);
+		Notification notification = saved.getValue().get(0);
+		org.assertj.core.api.Assertions.assertThat(notification.getLoanId()).isEqualTo(3);
+		org.assertj.core.api.Assertions.assertThat(notification.getEmail()).isEqualTo("c@email.com");
+		org.assertj.core.api.Assertions.assertThat(notification.getStatus()).isEqualTo(Status.PENDING);
+		org.assertj.core.api.Assertions.assertThat(notification.getPeriod()).isEqualTo(PERIOD);
+	}
+
+	@Test
+	@DisplayName("Deve reivindicar um lote e retornar as notificacoes do token")
+	public void claimTest() {
+		Mockito.when(repository.findClaimableIds(Mockito.eq(Status.PENDING), Mockito.eq(Status.CLAIMED),
+				Mockito.any(LocalDateTime.class), Mockito.eq(PageRequest.of(0, 10)))).thenReturn(Arrays.asList(5L, 6L));
+		Notification notification = Notification.builder().id(5L).build();
+		Mockito.when(repository.findByClaimTokenOrderById(Mockito.anyString()))
+				.thenReturn(Collections.singletonList(notification));
+
+		List<Notification> claimed = service.claim(10);
+
+		ArgumentCaptor<String> token = ArgumentCaptor.forClass(String.class);
+		Mockito.verify(repository).claim(Mockito.eq(Arrays.asList(5L, 6L)), token.capture(),
+				Mockito.any(LocalDateTime.class), Mockito.any(LocalDateTime.class), Mockito.eq(Status.PENDING),
+				Mockito.eq(Status.CLAIMED));
+		Mockito.verify(repository).findByClaimTokenOrderById(token.getValue());
+		org.assertj.core.api.Assertions.assertThat(claimed).containsExactly(notification);
+	}
+
+	@Test
+	@DisplayName("Deve marcar como falha ao devolver uma notificacao na ultima tentativa")
+	public void releaseTest() {
+		Notification retry = Notification.builder().id(1L).claimToken("token").attempts(0).build();
+		Notification last = Notification.builder().id(2L).claimToken("token").attempts(2).build();
+
+		service.release(retry);
+		service.release(last);
+
+		Mockito.verify(repository).release(1L, "token", Status.PENDING);
+		Mockito.verify(repository).release(2L, "token", Status.FAILED);
+	}
+
+}
@@ -0,0 +1,116 @@
+package br.com.tddspring.cursotddspringudemy.api.service;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.autoconfigure.metrics.MetricsProperties;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import br.com.tddspring.cursotddspringudemy.config.OperationTimingAspect;
+import br.com.tddspring.cursotddspringudemy.config.SlowOperationsEndpoint;
+import br.com.tddspring.cursotddspringudemy.config.SlowOperationsEndpoint.SlowOperation;
+import br.com.tddspring.cursotddspringudemy.config.SlowOperationsEndpoint.SlowOperations;
+import br.com.tddspring.cursotddspringudemy.exception.BusinessException;
+import br.com.tddspring.cursotddspringudemy.model.entity.Book;
+import br.com.tddspring.cursotddspringudemy.model.repository.BookRepository;
+import br.com.tddspring.cursotddspringudemy.service.BookService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest
+@AutoConfigureMockMvc
+public class OperationTimingTest {
+
+	@Autowired
+	MockMvc mvc;
+
+	@Autowired
+	BookService service;
+
+	@Autowired
+	BookRepository repository;
+
+	@Autowired
+	MeterRegistry registry;
+
+	@Autowired
+	SlowOperationsEndpoint endpoint;
+
+	@Autowired
+	MetricsProperties metricsProperties;
+
+	@AfterEach
+	public void tearDown() {
+		repository.deleteAll();
+	}
+
+	@Test
+	@DisplayName("Deve cronometrar os metodos de servico e as consultas de repositorio por resultado")
+	public void timeServiceAndRepositoryCallsTest() {
+		long saves = count(OperationTimingAspect.SERVICE_TIMER, "BookServiceImpl", "save", "success");
+		long rejected = count(OperationTimingAspect.SERVICE_TIMER, "BookServiceImpl", "save", "BusinessException");
+		long queries = count(OperationTimingAspect.REPOSITORY_TIMER, "BookRepository", "existsByIsbn", "success");
+
+		service.save(Book.builder().isbn("timed-123").title("titulo").author("autor").build());
+		Assertions.assertThatThrownBy(
+				() -> service.save(Book.builder().isbn("timed-123").title("titulo").author("autor").build()))
+				.isInstanceOf(BusinessException.class);
+		service.find(new Book(), PageRequest.of(0, 10));
+
+		Assertions.assertThat(count(OperationTimingAspect.SERVICE_TIMER, "BookServiceImpl", "save", "success"))
+				.isEqualTo(saves + 1);
+		Assertions.assertThat(count(OperationTimingAspect.SERVICE_TIMER, "BookServiceImpl", "save", "BusinessException"))
+				.isEqualTo(rejected + 1);
+		Assertions.assertThat(count(OperationTimingAspect.REPOSITORY_TIMER, "BookRepository", "existsByIsbn", "success"))
+				.isGreaterThan(queries);
+		Timer find = registry.get(OperationTimingAspect.SERVICE_TIMER).tag("method", "find").timer();
+		Assertions.assertThat(find.takeSnapshot().percentileValues()).hasSize(3);
+	}
+
+	@Test
+	@DisplayName("Deve listar as operacoes mais lentas da janela, a mais lenta primeiro")
+	public void slowestOperationsTest() {
+		service.save(Book.builder().isbn("timed-456").title("titulo").author("autor").build());
+		service.find(new Book(), PageRequest.of(0, 10));
+
+		SlowOperations slowest = endpoint.slowest(3);
+
+		Assertions.assertThat(slowest.getWindow()).isEqualTo("PT5M");
+		Assertions.assertThat(slowest.getOperations()).hasSize(3).isSortedAccordingTo(
+				(a, b) -> Double.compare(b.getP99Ms(), a.getP99Ms()));
+		Assertions.assertThat(endpoint.slowest(1000).getOperations()).extracting(SlowOperation::getOperation)
+				.contains("BookServiceImpl.save", "BookServiceImpl.find", "BookRepository.save");
+	}
+
+	@Test
+	@DisplayName("Deve publicar histograma e percentis p50, p95 e p99 das requisicoes HTTP")
+	public void httpServerRequestsPercentilesTest() throws Exception {
+		mvc.perform(MockMvcRequestBuilders.get("/api/books")).andExpect(MockMvcResultMatchers.status().isOk());
+
+		Timer requests = registry.get("http.server.requests").tag("uri", "/api/books").timer();
+
+		Assertions.assertThat(requests.takeSnapshot().percentileValues())
+				.extracting(percentile -> percentile.percentile()).containsExactly(0.5, 0.95, 0.99);
+		// the simple registry keeps no buckets; registries that aggregate, such as prometheus, publish them
+		Assertions.assertThat(metricsProperties.getDistribution().getPercentilesHistogram())
+				.containsEntry("http.server.requests", true);
+	}
+
+	private long count(String name, String type, String method, String outcome) {
+		Timer timer = registry.find(name).tag("class", type).tag("method", method).tag("outcome", outcome).timer();
+		return timer == null ? 0 : timer.count();
+	}
+
+}
@@ -0,0 +1,147 @@
+package br.com.tddspring.cursotddspringudemy.api.service;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import br.com.tddspring.cursotddspringudemy.config.ReplicaLagMonitor;
+import br.com.tddspring.cursotddspringudemy.model.entity.Book;
+import br.com.tddspring.cursotddspringudemy.model.repository.BookRepository;
+import br.com.tddspring.cursotddspringudemy.service.BookService;
+import io.micrometer.core.instrument.MeterRegistry;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest(properties = {
+		"spring.datasource.url=" + ReplicaRoutingTest.PRIMARY_URL,
+		"application.datasource.replica.url=" + ReplicaRoutingTest.REPLICA_URL,
+		"application.datasource.replica.max-lag=30s",
+		"application.datasource.replica.lag-check-ms=3600000" })
+public class ReplicaRoutingTest {
+
+	static final String PRIMARY_URL = "jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1";
+	static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1";
+
+	@Autowired
+	BookService service;
+
+	@Autowired
+	BookRepository repository;
+
+	@Autowired
+	ReplicaLagMonitor monitor;
+
+	@Autowired
+	MeterRegistry registry;
+
+	@AfterEach
+	public void tearDown() throws SQLException {
+		repository.deleteAll();
+		replicate();
+	}
+
+	@Test
+	@DisplayName("Deve consultar livros na replica enquanto ela estiver em dia")
+	public void readFromFreshReplicaTest() throws SQLException {
+		service.save(book("replicado"));
+		monitor.check();
+		replicate();
+		monitor.check();
+		service.save(book("pendente"));
+		double reads = routed("replica", "read");
+
+		Page<Book> result = service.find(new Book(), PageRequest.of(0, 10));
+
+		Assertions.assertThat(result.getContent()).extracting(Book::getIsbn).containsExactly("replicado");
+		Assertions.assertThat(routed("replica", "read")).isGreaterThan(reads);
+	}
+
+	@Test
+	@DisplayName("Deve consultar livros no primario quando a replica estiver atrasada")
+	public void fallBackToPrimaryWhenStaleTest() throws SQLException {
+		service.save(book("replicado"));
+		monitor.check();
+		replicate();
+		execute(REPLICA_URL, "update replica_heartbeat set beat_at = dateadd('MINUTE', -5, beat_at)");
+		monitor.check();
+		service.save(book("pendente"));
+		double staleReads = routed("primary", "stale");
+
+		Page<Book> result = service.find(new Book(), PageRequest.of(0, 10));
+
+		Assertions.assertThat(result.getContent()).extracting(Book::getIsbn)
+				.containsExactlyInAnyOrder("replicado", "pendente");
+		Assertions.assertThat(routed("primary", "stale")).isGreaterThan(staleReads);
+	}
+
+	@Test
+	@DisplayName("Deve gravar sempre no primario e expor metricas por pool")
+	public void writeToPrimaryAndReportPoolsTest() throws SQLException {
+		double writes = routed("primary", "write");
+
+		service.save(book("gravado"));
+		monitor.check();
+		replicate();
+		monitor.check();
+		service.find(new Book(), PageRequest.of(0, 10));
+
+		Assertions.assertThat(routed("primary", "write")).isGreaterThan(writes);
+		Assertions.assertThat(registry.find("hikaricp.connections").tag("pool", "primary").gauge()).isNotNull();
+		Assertions.assertThat(registry.find("hikaricp.connections").tag("pool", "replica").gauge()).isNotNull();
+		Assertions.assertThat(registry.find("datasource.replica.lag").gauge().value()).isLessThan(30);
+	}
+
+	private double routed(String target, String reason) {
+		return registry.get("datasource.routing").tag("target", target).tag("reason", reason).counter().count();
+	}
+
+	private static Book book(String isbn) {
+		return Book.builder().isbn(isbn).title("titulo").author("autor").build();
+	}
+
+	/**
+	 * Stands in for replication: copies the primary, schema and data, over the
+	 * replica.
+	 */
+	private static void replicate() throws SQLException {
+		List<String> script = new ArrayList<>();
+		try (Connection primary = DriverManager.getConnection(PRIMARY_URL, "sa", "");
+				Statement statement = primary.createStatement();
+				ResultSet rows = statement.executeQuery("script")) {
+			while (rows.next()) {
+				script.add(rows.getString(1));
+			}
+		}
+		try (Connection replica = DriverManager.getConnection(REPLICA_URL, "sa", "");
+				Statement statement = replica.createStatement()) {
+			statement.execute("drop all objects");
+			for (String sql : script) {
+				statement.execute(sql);
+			}
+		}
+	}
+
+	private static void execute(String url, String sql) throws SQLException {
+		try (Connection connection = DriverManager.getConnection(url, "sa", "");
+				Statement statement = connection.createStatement()) {
+			statement.execute(sql);
+		}
+	}
+
+}
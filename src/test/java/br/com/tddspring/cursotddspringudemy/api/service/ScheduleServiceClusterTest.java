@@ -0,0 +1,113 @@
+package br.com.tddspring.cursotddspringudemy.api.service;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import br.com.tddspring.cursotddspringudemy.CursoTddSpringUdemyApplication;
+import br.com.tddspring.cursotddspringudemy.model.entity.Book;
+import br.com.tddspring.cursotddspringudemy.model.entity.JobCheckpoint;
+import br.com.tddspring.cursotddspringudemy.model.entity.Loan;
+import br.com.tddspring.cursotddspringudemy.model.entity.Notification;
+import br.com.tddspring.cursotddspringudemy.model.repository.BookRepository;
+import br.com.tddspring.cursotddspringudemy.model.repository.JobCheckpointRepository;
+import br.com.tddspring.cursotddspringudemy.model.repository.LoanRepository;
+import br.com.tddspring.cursotddspringudemy.model.repository.NotificationRepository;
+import br.com.tddspring.cursotddspringudemy.service.JobLeaseService;
+import br.com.tddspring.cursotddspringudemy.service.impl.ScheduleService;
+
+/**
+ * Two application contexts sharing one H2 file database, standing in for two
+ * replicas of the application.
+ */
+public class ScheduleServiceClusterTest {
+
+	private static final int LATE_LOANS = 40;
+
+	@TempDir
+	Path dataDir;
+
+	ConfigurableApplicationContext first;
+	ConfigurableApplicationContext second;
+
+	@BeforeEach
+	public void setUp() {
+		first = start("instancia-1");
+		second = start("instancia-2");
+
+		BookRepository books = first.getBean(BookRepository.class);
+		LoanRepository loans = first.getBean(LoanRepository.class);
+		for (int i = 0; i < LATE_LOANS; i++) {
+			Book book = books.save(Book.builder().isbn("isbn-" + i).title("titulo").author("autor").build());
+			loans.save(Loan.builder().book(book).customer("cliente " + i).customerEmail("cliente" + i + "@email.com")
+					.loanDate(LocalDate.now().minusDays(10)).dueDate(LocalDate.now().minusDays(6)).build());
+		}
+	}
+
+	@AfterEach
+	public void tearDown() {
+		second.close();
+		first.close();
+	}
+
+	@Test
+	@DisplayName("Deve dividir a varredura entre as instancias sem duplicar nem perder notificacoes")
+	public void partitionedScanTest() {
+		CompletableFuture<Void> runFirst = CompletableFuture.runAsync(first.getBean(ScheduleService.class)::sendMailToLoans);
+		CompletableFuture<Void> runSecond = CompletableFuture.runAsync(second.getBean(ScheduleService.class)::sendMailToLoans);
+		CompletableFuture.allOf(runFirst, runSecond).join();
+
+		List<Notification> notifications = first.getBean(NotificationRepository.class).findAll();
+		org.assertj.core.api.Assertions.assertThat(notifications).hasSize(LATE_LOANS);
+		org.assertj.core.api.Assertions.assertThat(
+				notifications.stream().map(Notification::getLoanId).distinct().collect(Collectors.toList()))
+				.hasSize(LATE_LOANS);
+
+		List<JobCheckpoint> checkpoints = first.getBean(JobCheckpointRepository.class).findAll();
+		org.assertj.core.api.Assertions.assertThat(checkpoints).extracting(JobCheckpoint::getJob)
+				.containsExactlyInAnyOrder("late-loans-0-of-4", "late-loans-1-of-4", "late-loans-2-of-4",
+						"late-loans-3-of-4");
+		org.assertj.core.api.Assertions.assertThat(checkpoints).allMatch(JobCheckpoint::getCompleted);
+	}
+
+	@Test
+	@DisplayName("Nao deve varrer uma particao cujo lease esta com a outra instancia")
+	public void leasedPartitionTest() {
+		JobLeaseService firstLeases = first.getBean(JobLeaseService.class);
+		org.assertj.core.api.Assertions.assertThat(firstLeases.tryAcquire("late-loans-0-of-4", Duration.ofMinutes(5)))
+				.isTrue();
+
+		second.getBean(ScheduleService.class).sendMailToLoans();
+
+		List<Notification> notifications = second.getBean(NotificationRepository.class).findAll();
+		org.assertj.core.api.Assertions.assertThat(notifications).hasSize(LATE_LOANS * 3 / 4);
+		org.assertj.core.api.Assertions.assertThat(notifications).allMatch(n -> n.getLoanId() % 4 != 0);
+	}
+
+	private ConfigurableApplicationContext start(String instanceId) {
+		return new SpringApplicationBuilder(CursoTddSpringUdemyApplication.class).run(
+				"--server.port=0",
+				"--spring.datasource.url=jdbc:h2:file:" + dataDir.resolve("cluster").toAbsolutePath()
+						+ ";DB_CLOSE_ON_EXIT=FALSE",
+				"--spring.jpa.hibernate.ddl-auto=update",
+				"--logging.file=",
+				"--spring.mail.host=localhost",
+				"--spring.mail.port=1",
+				"--application.scheduling.instance-id=" + instanceId,
+				"--application.scheduling.late-loans.partitions=4",
+				"--application.mail.lateloans.chunk-size=3",
+				"--application.notifications.relay.delay-ms=3600000");
+	}
+
+}
@@ -0,0 +1,164 @@
+package br.com.tddspring.cursotddspringudemy.api.service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import br.com.tddspring.cursotddspringudemy.model.entity.JobCheckpoint;
+import br.com.tddspring.cursotddspringudemy.model.projection.LateLoan;
+import br.com.tddspring.cursotddspringudemy.model.repository.JobCheckpointRepository;
+import br.com.tddspring.cursotddspringudemy.service.JobLeaseService;
+import br.com.tddspring.cursotddspringudemy.service.LoanService;
+import br.com.tddspring.cursotddspringudemy.service.NotificationService;
+import br.com.tddspring.cursotddspringudemy.service.impl.ScheduleService;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+public class ScheduleServiceTest {
+
+	ScheduleService service;
+
+	@MockBean
+	LoanService loanService;
+
+	@MockBean
+	NotificationService notificationService;
+
+	@MockBean
+	JobCheckpointRepository checkpointRepository;
+
+	@MockBean
+	JobLeaseService leaseService;
+
+	@BeforeEach
+	public void setUp() {
+		service = new ScheduleService(loanService, notificationService, checkpointRepository, leaseService);
+		ReflectionTestUtils.setField(service, "chunkSize", 2);
+		ReflectionTestUtils.setField(service, "partitions", 1);
+		ReflectionTestUtils.setField(service, "leaseSeconds", 600L);
+		Mockito.when(leaseService.owner()).thenReturn("instancia-1");
+		Mockito.when(leaseService.tryAcquire(Mockito.anyString(), Mockito.any(Duration.class))).thenReturn(true);
+		Mockito.when(leaseService.renew(Mockito.anyString(), Mockito.any(Duration.class))).thenReturn(true);
+	}
+
+	@Test
+	@DisplayName("Deve enfileirar as notificacoes dos emprestimos atrasados em lotes, salvando o progresso a cada lote")
+	public void sendMailInChunksTest() {
+		LocalDate today = LocalDate.now();
+		Mockito.when(checkpointRepository.findById(ScheduleService.LATE_LOANS_JOB)).thenReturn(Optional.empty());
+		List<LateLoan> firstChunk = Arrays.asList(new LateLoan(1, "a@email.com", today), new LateLoan(3, "b@email.com", today));
+		List<LateLoan> secondChunk = Collections.singletonList(new LateLoan(7, "c@email.com", today));
+		Mockito.when(loanService.getLateLoansAfter(ScheduleService.FIRST_WATERMARK, today, 0, 2, 0, 1))
+				.thenReturn(firstChunk);
+		Mockito.when(loanService.getLateLoansAfter(ScheduleService.FIRST_WATERMARK, today, 3, 2, 0, 1))
+				.thenReturn(secondChunk);
+
+		service.sendMailToLoans();
+
+		Mockito.verify(notificationService).enqueueLateLoans(firstChunk);
+		Mockito.verify(notificationService).enqueueLateLoans(secondChunk);
+		ArgumentCaptor<JobCheckpoint> saved = ArgumentCaptor.forClass(JobCheckpoint.class);
+		Mockito.verify(checkpointRepository, Mockito.times(2)).save(saved.capture());
+		org.assertj.core.api.Assertions.assertThat(saved.getValue().getLastId()).isEqualTo(7);
+		org.assertj.core.api.Assertions.assertThat(saved.getValue().getCompleted()).isTrue();
+	}
+
+	@Test
+	@DisplayName("Deve retomar a execucao do dia a partir do ultimo emprestimo enviado")
+	public void resumeFromCheckpointTest() {
+		LocalDate today = LocalDate.now();
+		LocalDate watermark = today.minusDays(1);
+		JobCheckpoint checkpoint = JobCheckpoint.builder().job(ScheduleService.LATE_LOANS_JOB).runDate(today)
+				.watermark(watermark).lastId(3).completed(false).build();
+		Mockito.when(checkpointRepository.findById(ScheduleService.LATE_LOANS_JOB)).thenReturn(Optional.of(checkpoint));
+		Mockito.when(loanService.getLateLoansAfter(watermark, today, 3, 2, 0, 1)).thenReturn(Collections.emptyList());
+
+		service.sendMailToLoans();
+
+		Mockito.verify(loanService, Mockito.never()).getLateLoansAfter(watermark, today, 0, 2, 0, 1);
+		org.assertj.core.api.Assertions.assertThat(checkpoint.getCompleted()).isTrue();
+	}
+
+	@Test
+	@DisplayName("Deve buscar apenas os vencimentos posteriores a ultima execucao concluida")
+	public void advanceWatermarkOnNewDayTest() {
+		LocalDate today = LocalDate.now();
+		JobCheckpoint yesterday = JobCheckpoint.builder().job(ScheduleService.LATE_LOANS_JOB)
+				.runDate(today.minusDays(1)).watermark(today.minusDays(2)).lastId(9).completed(true).build();
+		Mockito.when(checkpointRepository.findById(ScheduleService.LATE_LOANS_JOB)).thenReturn(Optional.of(yesterday));
+		Mockito.when(loanService.getLateLoansAfter(today.minusDays(1), today, 0, 2, 0, 1))
+				.thenReturn(Collections.emptyList());
+
+		service.sendMailToLoans();
+
+		Mockito.verify(loanService).getLateLoansAfter(today.minusDays(1), today, 0, 2, 0, 1);
+		ArgumentCaptor<JobCheckpoint> saved = ArgumentCaptor.forClass(JobCheckpoint.class);
+		Mockito.verify(checkpointRepository).save(saved.capture());
+		org.assertj.core.api.Assertions.assertThat(saved.getValue().getWatermark()).isEqualTo(today.minusDays(1));
+		org.assertj.core.api.Assertions.assertThat(saved.getValue().getRunDate()).isEqualTo(today);
+	}
+
+	@Test
+	@DisplayName("Deve recomecar do inicio, mantendo a marca d'agua, quando a execucao anterior nao terminou")
+	public void restartOnNewDayTest() {
+		LocalDate today = LocalDate.now();
+		LocalDate watermark = today.minusDays(2);
+		JobCheckpoint yesterday = JobCheckpoint.builder().job(ScheduleService.LATE_LOANS_JOB)
+				.runDate(today.minusDays(1)).watermark(watermark).lastId(3).completed(false).build();
+		Mockito.when(checkpointRepository.findById(ScheduleService.LATE_LOANS_JOB)).thenReturn(Optional.of(yesterday));
+		Mockito.when(loanService.getLateLoansAfter(watermark, today, 0, 2, 0, 1)).thenReturn(Collections.emptyList());
+
+		service.sendMailToLoans();
+
+		Mockito.verify(loanService).getLateLoansAfter(watermark, today, 0, 2, 0, 1);
+	}
+
+	@Test
+	@DisplayName("Nao deve executar quando outra instancia detem o lease do job")
+	public void skipWhenLeaseHeldTest() {
+		Mockito.when(leaseService.tryAcquire(Mockito.eq(ScheduleService.LATE_LOANS_JOB), Mockito.any(Duration.class)))
+				.thenReturn(false);
+
+		service.sendMailToLoans();
+
+		Mockito.verifyNoInteractions(loanService, notificationService, checkpointRepository);
+		Mockito.verify(leaseService, Mockito.never()).release(Mockito.anyString());
+	}
+
+	@Test
+	@DisplayName("Deve processar apenas as particoes cujo lease conseguir obter")
+	public void partitionedTest() {
+		LocalDate today = LocalDate.now();
+		ReflectionTestUtils.setField(service, "partitions", 3);
+		Mockito.when(leaseService.tryAcquire(Mockito.eq("late-loans-1-of-3"), Mockito.any(Duration.class)))
+				.thenReturn(false);
+		Mockito.when(checkpointRepository.findById(Mockito.anyString())).thenReturn(Optional.empty());
+		Mockito.when(loanService.getLateLoansAfter(Mockito.eq(ScheduleService.FIRST_WATERMARK), Mockito.eq(today),
+				Mockito.eq(0), Mockito.eq(2), Mockito.anyInt(), Mockito.eq(3))).thenReturn(Collections.emptyList());
+
+		service.sendMailToLoans();
+
+		Mockito.verify(loanService).getLateLoansAfter(ScheduleService.FIRST_WATERMARK, today, 0, 2, 0, 3);
+		Mockito.verify(loanService).getLateLoansAfter(ScheduleService.FIRST_WATERMARK, today, 0, 2, 2, 3);
+		Mockito.verify(loanService, Mockito.never()).getLateLoansAfter(ScheduleService.FIRST_WATERMARK, today, 0, 2,
+				1, 3);
+		Mockito.verify(leaseService).release("late-loans-0-of-3");
+		Mockito.verify(leaseService).release("late-loans-2-of-3");
+		Mockito.verify(leaseService, Mockito.never()).release("late-loans-1-of-3");
+	}
+
+}
@@ -0,0 +1,77 @@
+package br.com.tddspring.cursotddspringudemy.api.service;
+
+import java.sql.SQLException;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import br.com.tddspring.cursotddspringudemy.config.SchemaIndexVerifier;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+// the tests drop and recreate indexes, so they get a database of their own
+@DataJpaTest(properties = "spring.datasource.name=schema-verifier")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class SchemaIndexVerifierTest {
+
+	@Autowired
+	EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	DataSource dataSource;
+
+	@Autowired
+	JdbcTemplate jdbc;
+
+	@Test
+	@DisplayName("Deve aceitar o esquema criado pelas migracoes")
+	public void acceptMigratedSchemaTest() throws SQLException {
+		verifier().verify();
+
+		Assertions.assertThat(jdbc.queryForObject("select max(\"version\") from \"flyway_schema_history\"",
+				String.class)).isEqualTo("2");
+	}
+
+	@Test
+	@DisplayName("Deve falhar quando faltar um indice declarado na entidade")
+	public void failOnMissingIndexTest() {
+		jdbc.execute("drop index idx_loan_customer");
+		try {
+			Assertions.assertThatThrownBy(() -> verifier().verify()).isInstanceOf(IllegalStateException.class)
+					.hasMessageContaining("idx_loan_customer on loan (customer, id)");
+		} finally {
+			jdbc.execute("create index idx_loan_customer on loan (customer, id)");
+		}
+	}
+
+	@Test
+	@DisplayName("Deve falhar quando a restricao unica for trocada por um indice comum")
+	public void failOnNonUniqueIndexTest() {
+		jdbc.execute("alter table book drop constraint uk_book_isbn");
+		jdbc.execute("create index idx_book_isbn on book (isbn)");
+		try {
+			Assertions.assertThatThrownBy(() -> verifier().verify()).isInstanceOf(IllegalStateException.class)
+					.hasMessageContaining("uk_book_isbn unique on book (isbn)");
+		} finally {
+			jdbc.execute("drop index idx_book_isbn");
+			jdbc.execute("alter table book add constraint uk_book_isbn unique (isbn)");
+		}
+	}
+
+	private SchemaIndexVerifier verifier() {
+		return new SchemaIndexVerifier(entityManagerFactory, dataSource);
+	}
+
+}
@@ -0,0 +1,288 @@
+package br.com.tddspring.cursotddspringudemy.dataset;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.BitSet;
+import java.util.Random;
+
+import javax.sql.DataSource;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Bulk-loads books and loans straight through JDBC batches, into the migrated
+ * schema, for tests and benchmarks that need volume:
+ *
+ * <pre>
+ * Dataset dataset = DatasetGenerator.builder().books(1_000_000).loans(3_000_000).build().load(dataSource);
+ * </pre>
+ *
+ * Distributions:
+ * <ul>
+ * <li>books are borrowed following a Zipf law over their ids, so a few isbns
+ * collect most of the loans;</li>
+ * <li>customers follow a Zipf law too, giving a few of them very long
+ * histories;</li>
+ * <li>{@code openShare} of the loans are still open, at most one per book as
+ * the {@code active_book} constraint demands, and {@code overdueShare} of
+ * those are past their due date; the rest were returned.</li>
+ * </ul>
+ *
+ * Book ids are assigned here and {@code book_seq} is moved past them, so the
+ * application can keep inserting. The random seed is fixed unless set, so a
+ * given configuration always produces the same data. The generator does not
+ * touch application caches: rebuild the isbn filter after loading if the
+ * context is running.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DatasetGenerator {
+
+	/** Must match the {@code allocationSize} of {@code Book.id}. */
+	static final int ALLOCATION_SIZE = 50;
+
+	static final String BOOK_INSERT = "insert into book (id, title, author, isbn, version) values (?, ?, ?, ?, 0)";
+	static final String LOAN_INSERT = "insert into loan (customer, customer_email, id_book, loan_date, due_date, "
+			+ "returned, active_book, version) values (?, ?, ?, ?, ?, ?, ?, 0)";
+
+	@Builder.Default
+	private int books = 10_000;
+	@Builder.Default
+	private int loans = 50_000;
+	@Builder.Default
+	private int customers = 5_000;
+	@Builder.Default
+	private int authors = 1_000;
+	/** Zipf exponent of book popularity; 0 is uniform. */
+	@Builder.Default
+	private double bookSkew = 1.0;
+	/** Zipf exponent of loans per customer; 0 is uniform. */
+	@Builder.Default
+	private double customerSkew = 0.8;
+	@Builder.Default
+	private double openShare = 0.05;
+	@Builder.Default
+	private double overdueShare = 0.3;
+	@Builder.Default
+	private int loanDays = 4;
+	@Builder.Default
+	private int historyDays = 3 * 365;
+	@Builder.Default
+	private int batchSize = 5_000;
+	@Builder.Default
+	private long seed = 42;
+	@Builder.Default
+	private LocalDate today = LocalDate.now();
+
+	public Dataset load(DataSource dataSource) throws SQLException {
+		long start = System.nanoTime();
+		Random random = new Random(seed);
+		try (Connection connection = dataSource.getConnection()) {
+			boolean autoCommit = connection.getAutoCommit();
+			connection.setAutoCommit(false);
+			try {
+				int firstId = nextBookId(connection);
+				insertBooks(connection, firstId, random);
+				int open = Math.min((int) Math.round(loans * openShare), books);
+				int overdue = insertOpenLoans(connection, firstId, open, random);
+				insertReturnedLoans(connection, firstId, loans - open, random);
+				restartBookSequence(connection, firstId + books + ALLOCATION_SIZE);
+				connection.commit();
+				return new Dataset(firstId, books, loans, open, overdue, (System.nanoTime() - start) / 1_000_000);
+			} catch (SQLException | RuntimeException e) {
+				connection.rollback();
+				throw e;
+			} finally {
+				connection.setAutoCommit(autoCommit);
+			}
+		}
+	}
+
+	private void insertBooks(Connection connection, int firstId, Random random) throws SQLException {
+		ZipfSampler authorSampler = new ZipfSampler(authors, 0.5);
+		try (PreparedStatement insert = connection.prepareStatement(BOOK_INSERT)) {
+			for (int i = 0; i < books; i++) {
+				int id = firstId + i;
+				insert.setInt(1, id);
+				insert.setString(2, "Livro " + id);
+				insert.setString(3, "Autor " + authorSampler.sample(random));
+				insert.setString(4, isbn(id));
+				insert.addBatch();
+				flushIfFull(connection, insert, i + 1);
+			}
+			flush(connection, insert);
+		}
+	}
+
+	/** One open loan on each of {@code open} distinct books, picked by popularity. */
+	private int insertOpenLoans(Connection connection, int firstId, int open, Random random) throws SQLException {
+		ZipfSampler bookSampler = new ZipfSampler(books, bookSkew);
+		ZipfSampler customerSampler = new ZipfSampler(customers, customerSkew);
+		BitSet loaned = new BitSet(books);
+		int overdue = 0;
+		try (PreparedStatement insert = connection.prepareStatement(LOAN_INSERT)) {
+			for (int i = 0; i < open; i++) {
+				int book = bookSampler.sample(random);
+				if (loaned.get(book)) {
+					// popular books are taken first; fall back to the next free one
+					book = loaned.nextClearBit(book);
+					if (book >= books) {
+						book = loaned.nextClearBit(0);
+					}
+				}
+				loaned.set(book);
+				boolean late = random.nextDouble() < overdueShare;
+				LocalDate dueDate = late ? today.minusDays(1 + random.nextInt(60))
+						: today.plusDays(1 + random.nextInt(loanDays));
+				setLoan(insert, customerSampler.sample(random), firstId + book, dueDate.minusDays(loanDays), dueDate,
+						false);
+				insert.addBatch();
+				flushIfFull(connection, insert, i + 1);
+				if (late) {
+					overdue++;
+				}
+			}
+			flush(connection, insert);
+		}
+		return overdue;
+	}
+
+	/** Returned loans, spread over the history, ending before any open loan started. */
+	private void insertReturnedLoans(Connection connection, int firstId, int returned, Random random)
+			throws SQLException {
+		ZipfSampler bookSampler = new ZipfSampler(books, bookSkew);
+		ZipfSampler customerSampler = new ZipfSampler(customers, customerSkew);
+		int span = Math.max(1, historyDays - 60 - loanDays);
+		try (PreparedStatement insert = connection.prepareStatement(LOAN_INSERT)) {
+			for (int i = 0; i < returned; i++) {
+				LocalDate loanDate = today.minusDays(historyDays - random.nextInt(span));
+				setLoan(insert, customerSampler.sample(random), firstId + bookSampler.sample(random), loanDate,
+						loanDate.plusDays(loanDays), true);
+				insert.addBatch();
+				flushIfFull(connection, insert, i + 1);
+			}
+			flush(connection, insert);
+		}
+	}
+
+	private static void setLoan(PreparedStatement insert, int customer, int bookId, LocalDate loanDate,
+			LocalDate dueDate, boolean returned) throws SQLException {
+		insert.setString(1, "Cliente " + customer);
+		insert.setString(2, "cliente" + customer + "@email.com");
+		insert.setInt(3, bookId);
+		insert.setDate(4, Date.valueOf(loanDate));
+		insert.setDate(5, Date.valueOf(dueDate));
+		insert.setBoolean(6, returned);
+		if (returned) {
+			insert.setNull(7, Types.INTEGER);
+		} else {
+			insert.setInt(7, bookId);
+		}
+	}
+
+	private void flushIfFull(Connection connection, PreparedStatement insert, int rows) throws SQLException {
+		if (rows % batchSize == 0) {
+			flush(connection, insert);
+		}
+	}
+
+	private static void flush(Connection connection, PreparedStatement insert) throws SQLException {
+		insert.executeBatch();
+		connection.commit();
+	}
+
+	/**
+	 * The first id past both the sequence and the existing rows. With the
+	 * {@code pooled-lo} optimizer Hibernate hands out the block of ids starting
+	 * at each sequence value it reads, so a running instance may insert up to a
+	 * block past the current value. The sequence is restarted past the loaded
+	 * ids, with a block to spare.
+	 */
+	private static int nextBookId(Connection connection) throws SQLException {
+		try (Statement statement = connection.createStatement()) {
+			long sequence = queryLong(statement, "select current_value from information_schema.sequences "
+					+ "where sequence_name = 'BOOK_SEQ'");
+			long maxId = queryLong(statement, "select coalesce(max(id), 0) from book");
+			return (int) Math.max(sequence + ALLOCATION_SIZE, maxId + 1);
+		}
+	}
+
+	private static void restartBookSequence(Connection connection, int next) throws SQLException {
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("alter sequence book_seq restart with " + next);
+		}
+	}
+
+	private static long queryLong(Statement statement, String sql) throws SQLException {
+		try (ResultSet result = statement.executeQuery(sql)) {
+			return result.next() ? result.getLong(1) : 0;
+		}
+	}
+
+	/** 13-digit, 978-prefixed isbn, unique per book id. */
+	public static String isbn(int id) {
+		return String.format("978%010d", id);
+	}
+
+	@Data
+	@AllArgsConstructor
+	public static class Dataset {
+
+		private int firstBookId;
+		private int books;
+		private int loans;
+		private int openLoans;
+		private int overdueLoans;
+		private long elapsedMillis;
+
+	}
+
+	/**
+	 * Samples 0..n-1 with probability proportional to 1/(k+1)^s, by binary
+	 * search over the cumulative distribution.
+	 */
+	static class ZipfSampler {
+
+		private final double[] cumulative;
+
+		ZipfSampler(int n, double exponent) {
+			cumulative = new double[n];
+			double sum = 0;
+			for (int k = 0; k < n; k++) {
+				sum += 1 / Math.pow(k + 1, exponent);
+				cumulative[k] = sum;
+			}
+			for (int k = 0; k < n; k++) {
+				cumulative[k] /= sum;
+			}
+		}
+
+		int sample(Random random) {
+			double u = random.nextDouble();
+			int low = 0;
+			int high = cumulative.length - 1;
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				if (cumulative[middle] < u) {
+					low = middle + 1;
+				} else {
+					high = middle;
+				}
+			}
+			return low;
+		}
+
+	}
+
+}
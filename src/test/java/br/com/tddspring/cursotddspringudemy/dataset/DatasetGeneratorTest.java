@@ -0,0 +1,116 @@
+package br.com.tddspring.cursotddspringudemy.dataset;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import br.com.tddspring.cursotddspringudemy.dataset.DatasetGenerator.Dataset;
+import br.com.tddspring.cursotddspringudemy.model.entity.Book;
+import br.com.tddspring.cursotddspringudemy.model.entity.Loan;
+import br.com.tddspring.cursotddspringudemy.model.repository.BookRepository;
+import br.com.tddspring.cursotddspringudemy.model.repository.LoanRepository;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+// the generator commits on its own connection, so the rows outlive a test
+// transaction; its own context keeps them away from the other repository tests
+@DataJpaTest(properties = "spring.datasource.name=dataset")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class DatasetGeneratorTest {
+
+	@Autowired
+	DataSource dataSource;
+
+	@Autowired
+	BookRepository bookRepository;
+
+	@Autowired
+	LoanRepository loanRepository;
+
+	@Autowired
+	JdbcTemplate jdbc;
+
+	LocalDate today = LocalDate.of(2020, 5, 1);
+
+	@AfterEach
+	public void tearDown() {
+		jdbc.update("delete from loan");
+		jdbc.update("delete from book");
+	}
+
+	@Test
+	@DisplayName("Deve carregar livros e emprestimos com as quantidades e distribuicoes pedidas")
+	public void loadDatasetTest() throws SQLException {
+		Dataset dataset = generator().load(dataSource);
+
+		Assertions.assertThat(count("select count(*) from book")).isEqualTo(2_000);
+		Assertions.assertThat(count("select count(distinct isbn) from book")).isEqualTo(2_000);
+		Assertions.assertThat(count("select count(*) from loan")).isEqualTo(20_000);
+		Assertions.assertThat(dataset.getOpenLoans()).isEqualTo(1_000);
+		Assertions.assertThat(count("select count(*) from loan where returned = false")).isEqualTo(1_000);
+		Assertions.assertThat(count("select count(distinct active_book) from loan")).isEqualTo(1_000);
+		Assertions.assertThat(count("select count(*) from loan where returned = false and due_date < ?", today))
+				.isEqualTo(dataset.getOverdueLoans()).isBetween(200L, 400L);
+		Assertions.assertThat(count("select count(*) from loan where returned = true and due_date >= ?", today))
+				.isZero();
+	}
+
+	@Test
+	@DisplayName("Deve concentrar emprestimos em poucos livros e clientes")
+	public void skewedPopularityTest() throws SQLException {
+		generator().load(dataSource);
+
+		List<Long> perBook = jdbc.queryForList(
+				"select count(*) c from loan group by id_book order by c desc limit 20", Long.class);
+		long top = perBook.stream().mapToLong(Long::longValue).sum();
+		// the top 1% of the books take over a third of the loans
+		Assertions.assertThat(top).isGreaterThan(20_000 / 3);
+
+		long longestHistory = count("select max(c) from (select count(*) c from loan group by customer)");
+		long customers = count("select count(distinct customer) from loan");
+		Assertions.assertThat(longestHistory).isGreaterThan(20 * 20_000 / customers);
+	}
+
+	@Test
+	@DisplayName("Deve permitir novos livros e emprestimos depois da carga")
+	public void saveAfterLoadTest() throws SQLException {
+		Book existing = bookRepository.save(Book.builder().isbn("antes").title("titulo").author("autor").build());
+		Dataset dataset = generator().load(dataSource);
+
+		Book book = bookRepository.save(Book.builder().isbn("depois").title("titulo").author("autor").build());
+		Loan loan = loanRepository.save(Loan.builder().book(book).customer("Fulano").loanDate(today)
+				.dueDate(today.plusDays(4)).returned(false).build());
+
+		Assertions.assertThat(dataset.getFirstBookId()).isGreaterThan(existing.getId());
+		// the block Hibernate already holds comes before the loaded ids, the next ones after
+		Assertions.assertThat(book.getId() < dataset.getFirstBookId()
+				|| book.getId() >= dataset.getFirstBookId() + dataset.getBooks()).isTrue();
+		Assertions.assertThat(loan.getId()).isNotNull();
+		Assertions.assertThat(bookRepository.count()).isEqualTo(2_002);
+	}
+
+	private DatasetGenerator generator() {
+		return DatasetGenerator.builder().books(2_000).loans(20_000).customers(1_000).openShare(0.05)
+				.overdueShare(0.3).batchSize(1_000).today(today).build();
+	}
+
+	private long count(String sql, Object... args) {
+		return jdbc.queryForObject(sql, Long.class, args);
+	}
+
+}
@@ -0,0 +1,161 @@
+package br.com.tddspring.cursotddspringudemy.dataset;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+
+/**
+ * Measures what a repository call costs in the database: records the
+ * statements it runs, with their parameters, replays each under H2's
+ * {@code EXPLAIN ANALYZE}, which executes it and annotates every table access
+ * with the rows read ({@code scanCount}), and times repeated calls.
+ *
+ * Register {@link #postProcessor(QueryProbe)} in the test context so the
+ * application's {@link DataSource} reports to the probe.
+ */
+public class QueryProbe implements QueryExecutionListener {
+
+	private static final Pattern SCAN_COUNT = Pattern.compile("scanCount: (\\d+)");
+
+	private final ThreadLocal<List<Statement>> recording = new ThreadLocal<>();
+	private volatile DataSource target;
+
+	public static BeanPostProcessor postProcessor(QueryProbe probe) {
+		return new BeanPostProcessor() {
+
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				if (bean instanceof DataSource && !(bean instanceof ProxyDataSource)) {
+					probe.target = (DataSource) bean;
+					return ProxyDataSourceBuilder.create((DataSource) bean).name(beanName).listener(probe).build();
+				}
+				return bean;
+			}
+
+		};
+	}
+
+	/**
+	 * Runs {@code call} once to capture and explain its statements, then
+	 * {@code runs} times to warm up and {@code runs} more to time it.
+	 */
+	public Measurement measure(String name, int runs, Supplier<?> call) throws SQLException {
+		List<Statement> statements = new ArrayList<>();
+		recording.set(statements);
+		try {
+			call.get();
+		} finally {
+			recording.remove();
+		}
+		List<String> plans = new ArrayList<>();
+		long rowsScanned = 0;
+		for (Statement statement : statements) {
+			String plan = explainAnalyze(statement);
+			plans.add(plan);
+			rowsScanned += rowsScanned(plan);
+		}
+
+		for (int i = 0; i < runs; i++) {
+			call.get();
+		}
+		long[] nanos = new long[runs];
+		for (int i = 0; i < runs; i++) {
+			long start = System.nanoTime();
+			call.get();
+			nanos[i] = System.nanoTime() - start;
+		}
+		Arrays.sort(nanos);
+		return new Measurement(name, plans, rowsScanned, nanos[runs / 2] / 1e6, nanos[runs - 1] / 1e6);
+	}
+
+	/** Sum of the {@code scanCount} of every table access in an analyzed plan. */
+	static long rowsScanned(String plan) {
+		long rows = 0;
+		Matcher matcher = SCAN_COUNT.matcher(plan);
+		while (matcher.find()) {
+			rows += Long.parseLong(matcher.group(1));
+		}
+		return rows;
+	}
+
+	private String explainAnalyze(Statement statement) throws SQLException {
+		try (Connection connection = target.getConnection();
+				PreparedStatement explain = connection.prepareStatement("explain analyze " + statement.sql)) {
+			for (ParameterSetOperation parameter : statement.parameters) {
+				try {
+					parameter.getMethod().invoke(explain, parameter.getArgs());
+				} catch (ReflectiveOperationException e) {
+					throw new SQLException("Could not replay " + parameter.getMethod().getName(), e);
+				}
+			}
+			StringBuilder plan = new StringBuilder();
+			try (ResultSet rows = explain.executeQuery()) {
+				while (rows.next()) {
+					plan.append(rows.getString(1));
+				}
+			}
+			return plan.toString();
+		}
+	}
+
+	@Override
+	public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+	}
+
+	@Override
+	public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+		List<Statement> statements = recording.get();
+		if (statements == null) {
+			return;
+		}
+		for (QueryInfo query : queryInfoList) {
+			List<ParameterSetOperation> parameters = query.getParametersList().isEmpty() ? new ArrayList<>()
+					: new ArrayList<>(query.getParametersList().get(0));
+			parameters.sort(Comparator.comparing(parameter -> (Integer) parameter.getArgs()[0]));
+			statements.add(new Statement(query.getQuery(), parameters));
+		}
+	}
+
+	@AllArgsConstructor
+	private static class Statement {
+
+		private final String sql;
+		private final List<ParameterSetOperation> parameters;
+
+	}
+
+	@Data
+	@AllArgsConstructor
+	public static class Measurement {
+
+		private String name;
+		/** One analyzed plan per statement the call ran. */
+		private List<String> plans;
+		private long rowsScanned;
+		private double medianMillis;
+		private double maxMillis;
+
+	}
+
+}
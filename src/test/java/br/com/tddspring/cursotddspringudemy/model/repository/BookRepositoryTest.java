@@ -1,6 +1,10 @@
 package br.com.tddspring.cursotddspringudemy.model.repository;
 
+import java.util.Arrays;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -8,10 +12,14 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import br.com.tddspring.cursotddspringudemy.model.entity.Book;
+import br.com.tddspring.cursotddspringudemy.model.projection.CatalogFingerprint;
 import br.com.tddspring.cursotddspringudemy.service.BookService;
 
 @ExtendWith(SpringExtension.class)
@@ -73,6 +81,45 @@ public class BookRepositoryTest {
 		org.assertj.core.api.Assertions.assertThat(savedBook.getId()).isNotNull();
 	}
 	
+	@Test
+	@DisplayName("Deve filtrar livros a partir de um id, em ordem de id")
+	public void findByFilterAfterTest() {
+		Book first = createNewBook("123");
+		Book second = createNewBook("456");
+		Book other = Book.builder().isbn("789").author("Ciclano").title("Outro livro").build();
+		entityManager.persist(first);
+		entityManager.persist(other);
+		entityManager.persist(second);
+
+		Slice<Book> result = bookRepository.findByFilterAfter(first.getId(), "AVENTURAS", null, null, PageRequest.of(0, 10));
+
+		org.assertj.core.api.Assertions.assertThat(result.getContent()).containsExactly(second);
+		org.assertj.core.api.Assertions.assertThat(result.hasNext()).isFalse();
+	}
+
+	@Test
+	@DisplayName("Deve retornar apenas os isbns ja cadastrados")
+	public void findExistingIsbnsTest() {
+		entityManager.persist(createNewBook("123"));
+		entityManager.persist(createNewBook("456"));
+
+		Set<String> existing = bookRepository.findExistingIsbns(Arrays.asList("123", "789"));
+
+		org.assertj.core.api.Assertions.assertThat(existing).containsExactly("123");
+	}
+
+	@Test
+	@DisplayName("Deve percorrer todos os livros em ordem de id")
+	public void streamAllTest() {
+		entityManager.persist(createNewBook("123"));
+		entityManager.persist(createNewBook("456"));
+
+		try (Stream<Book> books = bookRepository.streamAll()) {
+			org.assertj.core.api.Assertions.assertThat(books.map(Book::getIsbn).collect(Collectors.toList()))
+					.containsExactly("123", "456");
+		}
+	}
+
 	@Test
 	@DisplayName("DEve deletar m livro")
 	public void deleteBookTest() {
@@ -86,4 +133,35 @@ public class BookRepositoryTest {
 	}
 	
 
+	@Test
+	@DisplayName("Deve recusar a atualizacao de um livro a partir de uma versao desatualizada")
+	public void updateStaleBookTest() {
+		Book book = entityManager.persistFlushFind(createNewBook("123"));
+		entityManager.detach(book);
+		Book stale = Book.builder().id(book.getId()).isbn("123").author("Fulano").title("Antigo")
+				.version(book.getVersion()).build();
+
+		book.setTitle("Novo");
+		Book updated = bookRepository.saveAndFlush(book);
+
+		org.assertj.core.api.Assertions.assertThat(updated.getVersion()).isEqualTo(book.getVersion() + 1);
+		org.assertj.core.api.Assertions
+				.assertThatThrownBy(() -> bookRepository.saveAndFlush(stale))
+				.isInstanceOf(ObjectOptimisticLockingFailureException.class);
+	}
+
+	@Test
+	@DisplayName("Deve somar a quantidade, os ids e as versoes dos livros")
+	public void fingerprintTest() {
+		org.assertj.core.api.Assertions.assertThat(bookRepository.fingerprint())
+				.isEqualTo(new CatalogFingerprint(0L, 0L, 0L));
+		Book first = entityManager.persistFlushFind(createNewBook("123"));
+		Book second = entityManager.persistFlushFind(createNewBook("456"));
+		second.setTitle("Novo");
+		entityManager.flush();
+
+		org.assertj.core.api.Assertions.assertThat(bookRepository.fingerprint()).isEqualTo(
+				new CatalogFingerprint(2L, (long) first.getId() + second.getId(), 1L));
+	}
+
 }
@@ -3,19 +3,26 @@ package br.com.tddspring.cursotddspringudemy.model.repository;
 import java.time.LocalDate;
 import java.util.List;
 
+import org.hibernate.Session;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.web.server.ResponseStatusException;
 
 import br.com.tddspring.cursotddspringudemy.model.entity.Book;
 import br.com.tddspring.cursotddspringudemy.model.entity.Loan;
+import br.com.tddspring.cursotddspringudemy.model.projection.LateLoan;
+import br.com.tddspring.cursotddspringudemy.model.projection.LoanSummary;
 
 @ExtendWith(SpringExtension.class)
 @ActiveProfiles("test")
@@ -29,17 +36,33 @@ public class LoanRepositoryTest {
 	private TestEntityManager entityManager;
 
 	@Test
-	@DisplayName("deve verificar se existe empréstimo não devolvido para o livro.")
-	public void existsByBookAndNotReturnedTest() {
+	@DisplayName("Não deve permitir dois emprestimos em aberto para o mesmo livro")
+	public void activeBookUniqueTest() {
+		Loan loan = createAndPersistLoan(LocalDate.now());
+		Loan other = Loan.builder().book(loan.getBook()).customer("Ciclano").loanDate(LocalDate.now())
+				.dueDate(LocalDate.now().plusDays(4)).build();
+
+		Throwable exception = org.assertj.core.api.Assertions.catchThrowable(() -> repository.saveAndFlush(other));
 
+		org.assertj.core.api.Assertions.assertThat(exception).isInstanceOf(DataIntegrityViolationException.class);
+	}
+
+	@Test
+	@DisplayName("Deve permitir um novo emprestimo depois que o livro foi devolvido")
+	public void loanAfterReturnTest() {
 		Loan loan = createAndPersistLoan(LocalDate.now());
-		Book book = loan.getBook();
+		loan.setReturned(true);
+		repository.saveAndFlush(loan);
 
-        boolean exists = repository.existsByBookAndNotReturned(book);
+		Loan other = repository.saveAndFlush(
+				Loan.builder().book(loan.getBook()).customer("Ciclano").loanDate(LocalDate.now())
+				.dueDate(LocalDate.now().plusDays(4)).build());
 
-		org.assertj.core.api.Assertions.assertThat(exists).isTrue();
+		org.assertj.core.api.Assertions.assertThat(other.getId()).isNotNull();
+		org.assertj.core.api.Assertions.assertThat(other.getActiveBook()).isEqualTo(loan.getBook().getId());
+		org.assertj.core.api.Assertions.assertThat(loan.getActiveBook()).isNull();
 	}
-	
+
 	@Test
 	@DisplayName("Deve buscar um emprestimo pelo isbn do livro ou pelo customer")
 	public void findByBookIsbnOrCustomer() {
@@ -55,32 +78,136 @@ public class LoanRepositoryTest {
 	}
 	
 	@Test
-    @DisplayName("Deve obter empréstimos cuja data emprestimo for menor ou igual a tres dias atras e nao retornados")
-    public void findByLoanDateLessThanAndNotReturnedTest(){
-        Loan loan = createAndPersistLoan(LocalDate.now().minusDays(5));
+	@DisplayName("Deve buscar resumos de emprestimos pelo isbn ou customer sem carregar entidades")
+	public void findSummariesByBookIsbnOrCustomerTest() {
+		Loan loan = createAndPersistLoan(LocalDate.now());
+		entityManager.clear();
 
-        List<Loan> result = repository.findByLoanDateLessThanAndNotReturned(LocalDate.now().minusDays(4));
+		Page<LoanSummary> result = repository.findSummariesByBookIsbnOrCustomer("123", "fulano", PageRequest.of(0, 10));
+
+		org.assertj.core.api.Assertions.assertThat(result.getTotalElements()).isEqualTo(1);
+		org.assertj.core.api.Assertions.assertThat(result.getContent()).containsExactly(new LoanSummary(loan.getId(),
+				"Fulano", null, loan.getBook().getId(), "123", loan.getBook().getTitle(), loan.getBook().getAuthor()));
+		org.assertj.core.api.Assertions.assertThat(
+				entityManager.getEntityManager().unwrap(Session.class).getStatistics().getEntityCount()).isZero();
+	}
 
-        org.assertj.core.api.Assertions.assertThat(result).hasSize(1).contains(loan);
-    }
-	
 	@Test
-    @DisplayName("deve retornar vazio quando nao houver emprestimos atrasados")
-    public void notFindByLoanDateLessThanAndNotReturnedTest(){
-        Loan loan = createAndPersistLoan(LocalDate.now());
+	@DisplayName("Deve contar uma vez o emprestimo encontrado pelo isbn e pelo customer, em ordem de id")
+	public void findByBookIsbnOrCustomerUnionTest() {
+		Loan both = createAndPersistLoan(LocalDate.now());
+		Loan byCustomer = persistLoan("456", null, LocalDate.now());
+		byCustomer.setCustomer("Fulano");
+		persistLoan("789", null, LocalDate.now());
+
+		Page<Loan> firstPage = repository.findByBookIsbnOrCustomer("123", "Fulano", PageRequest.of(0, 1));
+		Page<Loan> secondPage = repository.findByBookIsbnOrCustomer("123", "Fulano", PageRequest.of(1, 1));
+
+		org.assertj.core.api.Assertions.assertThat(firstPage.getTotalElements()).isEqualTo(2);
+		org.assertj.core.api.Assertions.assertThat(firstPage.getContent()).containsExactly(both);
+		org.assertj.core.api.Assertions.assertThat(secondPage.getContent()).containsExactly(byCustomer);
+	}
 
-        List<Loan> result = repository.findByLoanDateLessThanAndNotReturned(LocalDate.now().minusDays(4));
+	@Test
+	@DisplayName("Deve ordenar os emprestimos encontrados pelo isbn ou customer pela propriedade pedida")
+	public void findByBookIsbnOrCustomerSortedTest() {
+		Loan byIsbn = createAndPersistLoan(LocalDate.now());
+		Loan byCustomer = persistLoan("456", null, LocalDate.now());
+		byCustomer.setCustomer("Zeca");
+		byIsbn.setCustomer("Ana");
+
+		Page<Loan> firstPage = repository.findByBookIsbnOrCustomer("123", "Zeca",
+				PageRequest.of(0, 1, Sort.by(Sort.Direction.DESC, "customer")));
+		Page<LoanSummary> summaries = repository.findSummariesByBookIsbnOrCustomer("123", "Zeca",
+				PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "customer")));
+
+		org.assertj.core.api.Assertions.assertThat(firstPage.getTotalElements()).isEqualTo(2);
+		org.assertj.core.api.Assertions.assertThat(firstPage.getContent()).containsExactly(byCustomer);
+		org.assertj.core.api.Assertions.assertThat(summaries.getContent()).extracting(LoanSummary::getId)
+				.containsExactly(byCustomer.getId(), byIsbn.getId());
+	}
+
+	@Test
+	@DisplayName("Deve recusar a ordenacao por uma propriedade desconhecida")
+	public void findByBookIsbnOrCustomerInvalidSortTest() {
+		Throwable exception = org.assertj.core.api.Assertions.catchThrowable(() -> repository
+				.findByBookIsbnOrCustomer("123", "Fulano", PageRequest.of(0, 10, Sort.by("book"))));
+
+		org.assertj.core.api.Assertions.assertThat(exception).isInstanceOf(ResponseStatusException.class)
+				.hasMessageContaining("Invalid sort property book");
+	}
+
+	@Test
+	@DisplayName("Deve obter id, email e vencimento dos emprestimos atrasados a partir de um id, em ordem de id")
+	public void findLateLoansAfterTest() {
+		LocalDate today = LocalDate.now();
+		Loan first = createAndPersistLoan(today.minusDays(5));
+		first.setCustomerEmail("fulano@email.com");
+		Loan second = persistLoan("456", "ciclano@email.com", today.minusDays(5));
+		persistLoan("789", "beltrano@email.com", today);
+
+		List<LateLoan> firstChunk = repository.findLateLoansAfter(today.minusDays(7), today, 0, 0, 1,
+				PageRequest.of(0, 1));
+		List<LateLoan> secondChunk = repository.findLateLoansAfter(today.minusDays(7), today, first.getId(), 0, 1,
+				PageRequest.of(0, 10));
+		List<LateLoan> firstPartition = repository.findLateLoansAfter(today.minusDays(7), today, 0,
+				first.getId() % 2, 2, PageRequest.of(0, 10));
+
+		org.assertj.core.api.Assertions.assertThat(firstChunk)
+				.containsExactly(new LateLoan(first.getId(), "fulano@email.com", today.minusDays(1)));
+		org.assertj.core.api.Assertions.assertThat(secondChunk)
+				.containsExactly(new LateLoan(second.getId(), "ciclano@email.com", today.minusDays(1)));
+		org.assertj.core.api.Assertions.assertThat(firstPartition).extracting(LateLoan::getId)
+				.allMatch(id -> id % 2 == first.getId() % 2).contains(first.getId());
+	}
+
+	@Test
+	@DisplayName("Deve obter apenas os emprestimos vencidos depois da marca d'agua")
+	public void findLateLoansAfterWatermarkTest() {
+		LocalDate today = LocalDate.now();
+		persistLoan("123", "antigo@email.com", today.minusDays(10));
+		Loan recent = persistLoan("456", "recente@email.com", today.minusDays(5));
+		Loan returned = persistLoan("789", "devolvido@email.com", today.minusDays(5));
+		returned.setReturned(true);
+		entityManager.flush();
+
+		List<LateLoan> result = repository.findLateLoansAfter(today.minusDays(2), today, 0, 0, 1,
+				PageRequest.of(0, 10));
+
+		org.assertj.core.api.Assertions.assertThat(result).extracting(LateLoan::getId).containsExactly(recent.getId());
+	}
+
+	@Test
+	@DisplayName("Deve buscar emprestimos pelo isbn ou customer a partir de um id, em ordem de id")
+	public void findByBookIsbnOrCustomerAfterTest() {
+		Loan first = createAndPersistLoan(LocalDate.now());
+		Loan second = Loan.builder().book(first.getBook()).customer("Fulano").loanDate(LocalDate.now())
+				.dueDate(LocalDate.now().plusDays(4)).returned(true).build();
+		entityManager.persist(second);
+
+		Slice<Loan> firstSlice = repository.findByBookIsbnOrCustomerAfter("123", null, 0, PageRequest.of(0, 1));
+		Slice<Loan> secondSlice = repository.findByBookIsbnOrCustomerAfter(null, "Fulano", first.getId(), PageRequest.of(0, 1));
+
+		org.assertj.core.api.Assertions.assertThat(firstSlice.getContent()).containsExactly(first);
+		org.assertj.core.api.Assertions.assertThat(firstSlice.hasNext()).isTrue();
+		org.assertj.core.api.Assertions.assertThat(secondSlice.getContent()).containsExactly(second);
+		org.assertj.core.api.Assertions.assertThat(secondSlice.hasNext()).isFalse();
+	}
+
+	private Loan persistLoan(String isbn, String email, LocalDate loanDate) {
+		Book book = BookRepositoryTest.createNewBook(isbn);
+		entityManager.persist(book);
+		Loan loan = Loan.builder().book(book).customer("Ciclano").customerEmail(email).loanDate(loanDate)
+				.dueDate(loanDate.plusDays(4)).build();
+		entityManager.persist(loan);
+		return loan;
+	}
 
-        org.assertj.core.api.Assertions.assertThat(result).isEmpty();
-    }
-	
-	
-	
 	public Loan createAndPersistLoan(LocalDate loanDate){
         Book book = BookRepositoryTest.createNewBook("123");
         entityManager.persist(book);
 
-        Loan loan = Loan.builder().book(book).customer("Fulano").loanDate(loanDate).build();
+        Loan loan = Loan.builder().book(book).customer("Fulano").loanDate(loanDate).dueDate(loanDate.plusDays(4)).build();
         entityManager.persist(loan);
 
         return loan;
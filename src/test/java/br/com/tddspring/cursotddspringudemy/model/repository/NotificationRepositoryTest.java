@@ -0,0 +1,138 @@
+package br.com.tddspring.cursotddspringudemy.model.repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import br.com.tddspring.cursotddspringudemy.model.entity.Notification;
+import br.com.tddspring.cursotddspringudemy.model.entity.Notification.Status;
+import br.com.tddspring.cursotddspringudemy.model.entity.Notification.Type;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+public class NotificationRepositoryTest {
+
+	private static final LocalDate PERIOD = LocalDate.of(2020, 5, 10);
+
+	@Autowired
+	NotificationRepository repository;
+
+	@Autowired
+	TestEntityManager entityManager;
+
+	@Test
+	@DisplayName("Deve retornar os emprestimos ja notificados no periodo")
+	public void findNotifiedLoanIdsTest() {
+		entityManager.persist(createNotification(1, PERIOD, Status.SENT));
+		entityManager.persist(createNotification(2, PERIOD.minusDays(1), Status.SENT));
+
+		Set<Integer> notified = repository.findNotifiedLoanIds(Type.LATE_LOAN, PERIOD, Arrays.asList(1, 2, 3));
+
+		org.assertj.core.api.Assertions.assertThat(notified).containsExactly(1);
+	}
+
+	@Test
+	@DisplayName("Não deve permitir duas notificacoes do mesmo emprestimo no mesmo periodo")
+	public void uniqueLoanPeriodTest() {
+		entityManager.persist(createNotification(1, PERIOD, Status.PENDING));
+
+		Throwable exception = org.assertj.core.api.Assertions
+				.catchThrowable(() -> repository.saveAndFlush(createNotification(1, PERIOD, Status.PENDING)));
+
+		org.assertj.core.api.Assertions.assertThat(exception).isInstanceOf(DataIntegrityViolationException.class);
+	}
+
+	@Test
+	@DisplayName("Deve reivindicar apenas notificacoes pendentes ou com reivindicacao expirada")
+	public void claimTest() {
+		LocalDateTime now = LocalDateTime.now();
+		Notification pending = entityManager.persist(createNotification(1, PERIOD, Status.PENDING));
+		Notification expired = createNotification(2, PERIOD, Status.CLAIMED);
+		expired.setClaimToken("other");
+		expired.setClaimedUntil(now.minusMinutes(1));
+		entityManager.persist(expired);
+		Notification claimed = createNotification(3, PERIOD, Status.CLAIMED);
+		claimed.setClaimToken("other");
+		claimed.setClaimedUntil(now.plusMinutes(5));
+		entityManager.persist(claimed);
+		entityManager.persist(createNotification(4, PERIOD, Status.SENT));
+
+		List<Long> ids = repository.findClaimableIds(Status.PENDING, Status.CLAIMED, now, PageRequest.of(0, 10));
+		int updated = repository.claim(Arrays.asList(pending.getId(), expired.getId(), claimed.getId()), "token",
+				now.plusMinutes(5), now, Status.PENDING, Status.CLAIMED);
+		entityManager.clear();
+
+		org.assertj.core.api.Assertions.assertThat(ids).containsExactly(pending.getId(), expired.getId());
+		org.assertj.core.api.Assertions.assertThat(updated).isEqualTo(2);
+		org.assertj.core.api.Assertions.assertThat(repository.findByClaimTokenOrderById("token"))
+				.extracting(Notification::getLoanId).containsExactly(1, 2);
+	}
+
+	@Test
+	@DisplayName("Deve confirmar ou devolver apenas notificacoes reivindicadas pelo mesmo token")
+	public void completeAndReleaseTest() {
+		Notification first = createNotification(1, PERIOD, Status.CLAIMED);
+		first.setClaimToken("token");
+		entityManager.persist(first);
+		Notification second = createNotification(2, PERIOD, Status.CLAIMED);
+		second.setClaimToken("token");
+		entityManager.persist(second);
+
+		int staleAck = repository.complete(first.getId(), "other", Status.SENT, LocalDateTime.now());
+		int ack = repository.complete(first.getId(), "token", Status.SENT, LocalDateTime.now());
+		int release = repository.release(second.getId(), "token", Status.PENDING);
+		entityManager.clear();
+
+		org.assertj.core.api.Assertions.assertThat(staleAck).isZero();
+		org.assertj.core.api.Assertions.assertThat(ack).isEqualTo(1);
+		org.assertj.core.api.Assertions.assertThat(release).isEqualTo(1);
+		org.assertj.core.api.Assertions.assertThat(repository.getOne(first.getId()).getStatus()).isEqualTo(Status.SENT);
+		Notification released = repository.getOne(second.getId());
+		org.assertj.core.api.Assertions.assertThat(released.getStatus()).isEqualTo(Status.PENDING);
+		org.assertj.core.api.Assertions.assertThat(released.getAttempts()).isEqualTo(1);
+		org.assertj.core.api.Assertions.assertThat(released.getClaimToken()).isNull();
+	}
+
+	@Test
+	@DisplayName("Deve considerar valida apenas a reivindicacao do mesmo token ainda nao expirada")
+	public void claimStillHeldTest() {
+		LocalDateTime now = LocalDateTime.now();
+		Notification held = createNotification(1, PERIOD, Status.CLAIMED);
+		held.setClaimToken("token");
+		held.setClaimedUntil(now.plusMinutes(5));
+		entityManager.persist(held);
+		Notification lapsed = createNotification(2, PERIOD, Status.CLAIMED);
+		lapsed.setClaimToken("token");
+		lapsed.setClaimedUntil(now.minusMinutes(1));
+		entityManager.persist(lapsed);
+
+		org.assertj.core.api.Assertions
+				.assertThat(repository.existsByIdAndClaimTokenAndClaimedUntilAfter(held.getId(), "token", now)).isTrue();
+		org.assertj.core.api.Assertions
+				.assertThat(repository.existsByIdAndClaimTokenAndClaimedUntilAfter(held.getId(), "other", now)).isFalse();
+		org.assertj.core.api.Assertions
+				.assertThat(repository.existsByIdAndClaimTokenAndClaimedUntilAfter(lapsed.getId(), "token", now))
+				.isFalse();
+	}
+
+	public static Notification createNotification(Integer loanId, LocalDate period, Status status) {
+		return Notification.builder().loanId(loanId).type(Type.LATE_LOAN).period(period)
+				.email("cliente" + loanId + "@email.com").status(status).attempts(0).createdAt(LocalDateTime.now())
+				.build();
+	}
+
+}
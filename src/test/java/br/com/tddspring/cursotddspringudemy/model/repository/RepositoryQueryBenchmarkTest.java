@@ -0,0 +1,199 @@
+package br.com.tddspring.cursotddspringudemy.model.repository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import javax.sql.DataSource;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import br.com.tddspring.cursotddspringudemy.dataset.DatasetGenerator;
+import br.com.tddspring.cursotddspringudemy.dataset.DatasetGenerator.Dataset;
+import br.com.tddspring.cursotddspringudemy.dataset.QueryProbe;
+import br.com.tddspring.cursotddspringudemy.dataset.QueryProbe.Measurement;
+import br.com.tddspring.cursotddspringudemy.model.entity.Book;
+
+/**
+ * Runs the repository queries against a generated dataset of
+ * {@code -Dqueries.loans} loans (10000 by default; 1000000 and 10000000 are
+ * the other reference sizes), writes each query's analyzed plans, rows
+ * scanned and time per call to {@code target/query-benchmark/}, and fails
+ * when a query goes past its budget in {@code query-thresholds.properties}.
+ *
+ * Budgets are kept per size; a size without budgets is measured and reported
+ * only. Rows scanned are exact, so their budgets catch a lost index or a worse
+ * plan; times are median per call and their budgets leave room for slower
+ * machines.
+ */
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest(properties = "spring.datasource.name=query-benchmark")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestInstance(Lifecycle.PER_CLASS)
+public class RepositoryQueryBenchmarkTest {
+
+	static final int LOANS = Integer.getInteger("queries.loans", 10_000);
+	static final int RUNS = Integer.getInteger("queries.runs", 21);
+
+	@TestConfiguration
+	static class ProbeConfiguration {
+
+		@Bean
+		static QueryProbe queryProbe() {
+			return new QueryProbe();
+		}
+
+		@Bean
+		static BeanPostProcessor queryProbePostProcessor(QueryProbe queryProbe) {
+			return QueryProbe.postProcessor(queryProbe);
+		}
+
+	}
+
+	@Autowired
+	DataSource dataSource;
+
+	@Autowired
+	JdbcTemplate jdbc;
+
+	@Autowired
+	QueryProbe probe;
+
+	@Autowired
+	LoanRepository loanRepository;
+
+	@Autowired
+	BookRepository bookRepository;
+
+	Dataset dataset;
+
+	@BeforeAll
+	public void load() throws SQLException {
+		dataset = DatasetGenerator.builder().books(Math.max(1, LOANS / 5)).loans(LOANS)
+				.customers(Math.max(1, LOANS / 10)).build().load(dataSource);
+	}
+
+	@AfterAll
+	public void tearDown() {
+		// in batches: a single delete of a million rows holds its undo log in the heap
+		while (jdbc.update("delete from loan limit 50000") > 0) {
+		}
+		while (jdbc.update("delete from book limit 50000") > 0) {
+		}
+	}
+
+	@Test
+	@DisplayName("Deve manter as consultas dos repositorios dentro do orcamento de linhas lidas e tempo")
+	public void queriesWithinBudgetTest() throws SQLException, IOException {
+		// the most borrowed book, the customer with the longest history and a
+		// book in the long tail
+		Book popular = bookRepository.findById(dataset.getFirstBookId()).get();
+		Book rare = bookRepository.findById(dataset.getFirstBookId() + dataset.getBooks() - 1).get();
+		String customer = "Cliente 0";
+		LocalDate today = LocalDate.now();
+		// an import-sized batch, half of it already in the catalog
+		Set<String> isbns = new HashSet<>();
+		for (int i = 0; i < 500; i++) {
+			isbns.add(DatasetGenerator.isbn(dataset.getFirstBookId() + i * (dataset.getBooks() / 250)));
+		}
+
+		List<Measurement> measurements = new ArrayList<>();
+		measure(measurements, "loan.findByBookIsbnOrCustomer",
+				() -> loanRepository.findByBookIsbnOrCustomer(rare.getIsbn(), customer, PageRequest.of(0, 10)));
+		measure(measurements, "loan.findSummariesByBookIsbnOrCustomer", () -> loanRepository
+				.findSummariesByBookIsbnOrCustomer(rare.getIsbn(), customer, PageRequest.of(0, 10)));
+		measure(measurements, "loan.findByBookIsbnOrCustomerAfter", () -> loanRepository
+				.findByBookIsbnOrCustomerAfter(rare.getIsbn(), customer, 0, PageRequest.of(0, 10)));
+		measure(measurements, "loan.findByBook", () -> loanRepository.findByBook(popular, PageRequest.of(0, 10)));
+		measure(measurements, "loan.findByBookAndIdGreaterThanOrderByIdAsc",
+				() -> loanRepository.findByBookAndIdGreaterThanOrderByIdAsc(popular, 0, PageRequest.of(0, 10)));
+		measure(measurements, "loan.findLateLoansAfter", () -> loanRepository
+				.findLateLoansAfter(today.minusDays(30), today, 0, 0, 1, PageRequest.of(0, 500)));
+		measure(measurements, "book.existsByIsbn", () -> bookRepository.existsByIsbn(rare.getIsbn()));
+		measure(measurements, "book.findByIsbn", () -> bookRepository.findByIsbn(rare.getIsbn()));
+		measure(measurements, "book.findExistingIsbns", () -> bookRepository.findExistingIsbns(isbns));
+		measure(measurements, "book.findByFilterAfter",
+				() -> bookRepository.findByFilterAfter(0, null, null, rare.getIsbn(), PageRequest.of(0, 20)));
+
+		report(measurements);
+
+		Properties thresholds = thresholds();
+		List<String> violations = new ArrayList<>();
+		for (Measurement measurement : measurements) {
+			String key = measurement.getName() + "." + LOANS;
+			String rows = thresholds.getProperty(key + ".rows-scanned");
+			if (rows != null && measurement.getRowsScanned() > Long.parseLong(rows)) {
+				violations.add(key + " scanned " + measurement.getRowsScanned() + " rows, budget " + rows);
+			}
+			String millis = thresholds.getProperty(key + ".millis");
+			if (millis != null && measurement.getMedianMillis() > Double.parseDouble(millis)) {
+				violations.add(key + " took " + measurement.getMedianMillis() + " ms, budget " + millis);
+			}
+		}
+		Assertions.assertThat(violations).isEmpty();
+	}
+
+	private void measure(List<Measurement> measurements, String name, Supplier<?> call) throws SQLException {
+		measurements.add(probe.measure(name, RUNS, call));
+	}
+
+	private static void report(List<Measurement> measurements) throws IOException {
+		Path directory = Paths.get("target", "query-benchmark");
+		Files.createDirectories(directory);
+		try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(directory.resolve(LOANS + ".txt"),
+				StandardCharsets.UTF_8))) {
+			out.printf(Locale.ROOT, "%-45s %10s %14s %12s %12s%n", "query (" + LOANS + " loans)", "statements",
+					"rows scanned", "median ms", "max ms");
+			for (Measurement measurement : measurements) {
+				out.printf(Locale.ROOT, "%-45s %10d %14d %12.3f %12.3f%n", measurement.getName(),
+						measurement.getPlans().size(), measurement.getRowsScanned(), measurement.getMedianMillis(),
+						measurement.getMaxMillis());
+			}
+			for (Measurement measurement : measurements) {
+				out.printf("%n-- %s%n", measurement.getName());
+				measurement.getPlans().forEach(out::println);
+			}
+		}
+	}
+
+	private static Properties thresholds() throws IOException {
+		Properties thresholds = new Properties();
+		try (InputStream in = RepositoryQueryBenchmarkTest.class.getResourceAsStream("/query-thresholds.properties")) {
+			thresholds.load(in);
+		}
+		return thresholds;
+	}
+
+}